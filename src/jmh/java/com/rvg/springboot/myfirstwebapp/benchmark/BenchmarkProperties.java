@@ -0,0 +1,28 @@
+package com.rvg.springboot.myfirstwebapp.benchmark;
+
+/**
+ * Application arguments for benchmarks that start the full application.
+ * They are passed as command line arguments so they override application.properties.
+ */
+final class BenchmarkProperties {
+
+    private BenchmarkProperties() {
+    }
+
+    /**
+     * Returns arguments that start the application on a random port with its own
+     * in-memory database and without debug logging.
+     *
+     * @param databaseName the name of the in-memory H2 database
+     * @return the arguments in --key=value form
+     */
+    static String[] quietApplication(String databaseName) {
+        return new String[] {
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_ON_EXIT=FALSE",
+                "--logging.level.org.springframework=warn",
+                "--logging.level.com.rvg.springboot.myfirstwebapp=warn",
+                "--spring.main.banner-mode=off"
+        };
+    }
+}
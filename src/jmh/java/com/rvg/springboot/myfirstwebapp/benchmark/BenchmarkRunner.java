@@ -0,0 +1,43 @@
+package com.rvg.springboot.myfirstwebapp.benchmark;
+
+import java.io.File;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks once per configured thread count and writes the results
+ * of each run as JSON, so runs of different versions can be diffed.
+ *
+ * System properties:
+ * - jmh.include: regular expression selecting the benchmarks to run (default: all)
+ * - jmh.threads: comma separated thread counts (default: 1,4,16)
+ * - jmh.sizes: comma separated store sizes overriding the "size" parameter of each benchmark
+ * - jmh.output: directory for the result files (default: target/jmh)
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = System.getProperty("jmh.include", ".*");
+        String threads = System.getProperty("jmh.threads", "1,4,16");
+        String sizes = System.getProperty("jmh.sizes", "");
+        File output = new File(System.getProperty("jmh.output", "target/jmh"));
+        output.mkdirs();
+
+        for (String threadCount : threads.split(",")) {
+            int count = Integer.parseInt(threadCount.trim());
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(BenchmarkRunner.class.getPackageName() + "\\." + include)
+                    .threads(count)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(output, "results-" + count + "-threads.json").getPath());
+            if (!sizes.isBlank()) {
+                options.param("size", sizes.split(","));
+            }
+            new Runner(options.build()).run();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.rvg.springboot.myfirstwebapp.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.rvg.springboot.myfirstwebapp.MyfirstwebappApplication;
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+import com.rvg.springboot.myfirstwebapp.todo.TodoSummary;
+
+/**
+ * Benchmarks the JPA TodoRepository against the embedded H2 database.
+ *
+ * Each trial starts the application on a random port with its own in-memory database
+ * and seeds it with {@code size} todos spread evenly over {@value TodoServiceBenchmark#USERS} users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TodoRepositoryBenchmark {
+
+    private static final int SEED_CHUNK = 1000;
+
+    @Param({ "1000", "100000", "1000000" })
+    int size;
+
+    ConfigurableApplicationContext context;
+
+    TodoRepository todoRepository;
+
+    JdbcTemplate jdbcTemplate;
+
+    int[] seededIds;
+
+    int lastSeededId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        context = new SpringApplicationBuilder(MyfirstwebappApplication.class)
+                .run(BenchmarkProperties.quietApplication("repository" + size));
+        todoRepository = context.getBean(TodoRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        LocalDate today = LocalDate.now();
+        List<Todo> chunk = new ArrayList<>(SEED_CHUNK);
+        for (int i = 0; i < size; i++) {
+            chunk.add(new Todo(0, TodoServiceBenchmark.username(i), "Benchmark todo " + i, today.plusDays(i % 365), false));
+            if (chunk.size() == SEED_CHUNK || i == size - 1) {
+                todoRepository.saveAll(chunk);
+                chunk.clear();
+            }
+        }
+        seededIds = jdbcTemplate.queryForList("select id from todo", Integer.class).stream()
+                .mapToInt(Integer::intValue).toArray();
+        lastSeededId = jdbcTemplate.queryForObject("select max(id) from todo", Integer.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeAddedTodos() {
+        jdbcTemplate.update("delete from todo where id > ?", lastSeededId);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Todo> findById() {
+        return todoRepository.findById(randomId());
+    }
+
+    @Benchmark
+    public List<Todo> findByUsername() {
+        return todoRepository.findByUsername(randomUsername());
+    }
+
+    @Benchmark
+    public List<TodoSummary> findFirstPage() {
+        return todoRepository.findFirstPage(randomUsername(), Limit.of(21));
+    }
+
+    @Benchmark
+    public Todo save() {
+        return todoRepository.save(new Todo(0, randomUsername(), "Added todo", LocalDate.now(), false));
+    }
+
+    @Benchmark
+    public Todo update() {
+        Optional<Todo> todo = todoRepository.findById(randomId());
+        if (todo.isEmpty()) {
+            return null;
+        }
+        todo.get().setDone(!todo.get().isDone());
+        return todoRepository.save(todo.get());
+    }
+
+    /**
+     * Inserts a todo and deletes it again by id, so the table keeps its size.
+     */
+    @Benchmark
+    public void deleteById() {
+        Todo todo = todoRepository.save(new Todo(0, randomUsername(), "Deleted todo", LocalDate.now(), false));
+        todoRepository.deleteById(todo.getId());
+    }
+
+    private int randomId() {
+        return seededIds[ThreadLocalRandom.current().nextInt(seededIds.length)];
+    }
+
+    private static String randomUsername() {
+        return TodoServiceBenchmark.username(ThreadLocalRandom.current().nextInt(TodoServiceBenchmark.USERS));
+    }
+}
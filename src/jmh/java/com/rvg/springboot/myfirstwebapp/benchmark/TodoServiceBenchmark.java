@@ -0,0 +1,111 @@
+package com.rvg.springboot.myfirstwebapp.benchmark;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoService;
+
+/**
+ * Benchmarks the in-memory TodoService with stores of different sizes.
+ * The todos are spread evenly over {@value #USERS} users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TodoServiceBenchmark {
+
+    static final int USERS = 100;
+
+    @Param({ "1000", "100000", "1000000" })
+    int size;
+
+    TodoService todoService;
+
+    // Highest id present after setup; todos added during an iteration get higher ids
+    int lastSeededId;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        todoService = new TodoService();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < size; i++) {
+            todoService.addTodo(username(i), "Benchmark todo " + i, today.plusDays(i % 365), false);
+        }
+        lastSeededId = size + todoService.findByUsername("rvg").size();
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeAddedTodos() {
+        for (int id = lastSeededId + 1; todoService.findById(id) != null; id++) {
+            todoService.deleteById(id);
+        }
+    }
+
+    @Benchmark
+    public Todo findById() {
+        return todoService.findById(randomId());
+    }
+
+    @Benchmark
+    public List<Todo> findByUsername() {
+        return todoService.findByUsername(username(ThreadLocalRandom.current().nextInt(USERS)));
+    }
+
+    @Benchmark
+    public void addTodo() {
+        todoService.addTodo(username(ThreadLocalRandom.current().nextInt(USERS)), "Added todo",
+                LocalDate.now(), false);
+    }
+
+    @Benchmark
+    public void updateTodo() {
+        int id = randomId();
+        Todo todo = todoService.findById(id);
+        if (todo == null) {
+            // Momentarily removed by a concurrent deleteById
+            return;
+        }
+        todoService.updateTodo(new Todo(id, todo.getUsername(), "Updated todo", todo.getTargetDate(), !todo.isDone()));
+    }
+
+    /**
+     * Deletes a todo and puts it back, so the store keeps its size.
+     */
+    @Benchmark
+    public void deleteById() {
+        int id = randomId();
+        Todo todo = todoService.findById(id);
+        todoService.deleteById(id);
+        if (todo != null) {
+            todoService.updateTodo(todo);
+        }
+    }
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(1, lastSeededId + 1);
+    }
+
+    static String username(int i) {
+        return "user" + (i % USERS);
+    }
+}
@@ -0,0 +1,109 @@
+package com.rvg.springboot.myfirstwebapp.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import com.rvg.springboot.myfirstwebapp.MyfirstwebappApplication;
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+
+/**
+ * Compares request handling on platform threads with handling on virtual threads
+ * when many slow clients are connected at once.
+ *
+ * One operation serves {@code clients} concurrent requests. Each request runs the
+ * list-todos page query against H2 through Hikari and then blocks for
+ * {@value #CLIENT_DELAY_MILLIS} ms, standing in for a slow client reading the response.
+ * The platform variant uses a fixed pool of {@value #PLATFORM_POOL_SIZE} threads,
+ * Tomcat's default maximum; the virtual variant uses one virtual thread per request,
+ * which is what spring.threads.virtual.enabled=true gives Tomcat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g", "-Djdk.tracePinnedThreads=short" })
+public class VirtualThreadBenchmark {
+
+    static final int PLATFORM_POOL_SIZE = 200;
+
+    static final long CLIENT_DELAY_MILLIS = 50;
+
+    @Param({ "platform", "virtual" })
+    String threads;
+
+    @Param({ "2000" })
+    int clients;
+
+    ConfigurableApplicationContext context;
+
+    TodoRepository todoRepository;
+
+    ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void start() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        context = new SpringApplicationBuilder(MyfirstwebappApplication.class)
+                .run(BenchmarkProperties.quietApplication("virtual" + threads));
+        todoRepository = context.getBean(TodoRepository.class);
+
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            todos.add(new Todo(0, TodoServiceBenchmark.username(i), "Benchmark todo " + i, LocalDate.now(), false));
+        }
+        todoRepository.saveAll(todos);
+
+        executor = "virtual".equals(threads)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_POOL_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        executor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public int serveSlowClients() throws Exception {
+        List<Future<Integer>> requests = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            String username = TodoServiceBenchmark.username(i);
+            requests.add(executor.submit(() -> {
+                int rows = todoRepository.findFirstPage(username, Limit.of(21)).size();
+                Thread.sleep(CLIENT_DELAY_MILLIS);
+                return rows;
+            }));
+        }
+
+        int rows = 0;
+        for (Future<Integer> request : requests) {
+            rows += request.get();
+        }
+        return rows;
+    }
+}
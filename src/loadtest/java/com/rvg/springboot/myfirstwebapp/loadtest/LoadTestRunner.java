@@ -0,0 +1,248 @@
+package com.rvg.springboot.myfirstwebapp.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rvg.springboot.myfirstwebapp.MyfirstwebappApplication;
+import com.rvg.springboot.myfirstwebapp.todo.store.TodoStore;
+
+/**
+ * Runs an end-to-end load test of the todo pages against the application on an
+ * embedded server in this JVM.
+ *
+ * The application is started on a random port, synthetic users are added to the user
+ * store and given todos, and each user logs in through the login form. Then an
+ * {@link OpenWorkload} replays a mix of list-todos, add-todo, update-todo and
+ * delete-todo requests at a target rate. Response and service time percentiles are
+ * printed per operation, and written to the output directory as a JSON summary and
+ * HdrHistogram percentile distributions (.hgrm files, for plotting).
+ *
+ * System properties:
+ * - loadtest.users: number of synthetic users (default: 200)
+ * - loadtest.todos-per-user: todos seeded per user (default: 20)
+ * - loadtest.rate: target requests per second (default: 200)
+ * - loadtest.warmup: unmeasured warm-up, e.g. 10s (default: 10s)
+ * - loadtest.duration: measured period, e.g. 60s (default: 60s)
+ * - loadtest.mix: weights of the operations (default: list:70,add:10,update:15,delete:5)
+ * - loadtest.app-args: space separated arguments for the application, e.g. --todo.security.stateless=true
+ * - loadtest.output: directory for the results (default: target/loadtest)
+ */
+public class LoadTestRunner {
+
+    private static final String PASSWORD = "loadtest";
+
+    public static void main(String[] args) throws Exception {
+        int userCount = Integer.getInteger("loadtest.users", 200);
+        int todosPerUser = Integer.getInteger("loadtest.todos-per-user", 20);
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "200"));
+        Duration warmup = DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "10s"));
+        Duration duration = DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "60s"));
+        Map<Operation, Integer> mix = parseMix(System.getProperty("loadtest.mix", "list:70,add:10,update:15,delete:5"));
+        File output = new File(System.getProperty("loadtest.output", "target/loadtest"));
+        output.mkdirs();
+
+        List<String> appArgs = new ArrayList<>(List.of("--server.port=0", "--logging.level.root=warn"));
+        appArgs.addAll(Arrays.stream(System.getProperty("loadtest.app-args", "").split("\\s+"))
+                .filter(arg -> !arg.isBlank()).toList());
+
+        // Devtools would restart the application in a new class loader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MyfirstwebappApplication.class)
+                .run(appArgs.toArray(String[]::new))) {
+            URI base = URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+
+            long started = System.nanoTime();
+            List<SyntheticUser> users = seed(context, userCount, todosPerUser);
+            System.out.printf("Seeded %d users with %d todos each in %d ms%n", userCount, todosPerUser,
+                    (System.nanoTime() - started) / 1_000_000);
+            started = System.nanoTime();
+            logIn(client, base, users);
+            System.out.printf("Logged in %d users in %d ms%n", userCount, (System.nanoTime() - started) / 1_000_000);
+
+            System.out.printf("Sending %.0f requests/s for %s after a warm-up of %s, mix %s%n", rate, duration, warmup,
+                    mix);
+            Map<Operation, OpenWorkload.Stats> stats = new OpenWorkload(client, base, users, mix, rate,
+                    Duration.ofSeconds(30)).run(warmup, duration, 42);
+            report(stats, rate, duration, output);
+        }
+    }
+
+    /**
+     * Adds the synthetic users, all with the same password so it is hashed only once,
+     * and gives each one its todos through the TodoStore the pages use.
+     */
+    private static List<SyntheticUser> seed(ConfigurableApplicationContext context, int userCount, int todosPerUser)
+            throws Exception {
+        InMemoryUserDetailsManager userDetailsManager = context.getBean(InMemoryUserDetailsManager.class);
+        String hash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        TodoStore todoStore = context.getBean(TodoStore.class);
+
+        List<Future<SyntheticUser>> seeded = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < userCount; i++) {
+                String username = "load" + i;
+                userDetailsManager.createUser(User.withUsername(username).password(hash).roles("USER").build());
+                seeded.add(executor.submit(() -> {
+                    List<Integer> ids = new ArrayList<>(todosPerUser);
+                    for (int n = 0; n < todosPerUser; n++) {
+                        ids.add(todoStore.addTodo(username, "Seeded load test todo " + n, LocalDate.now().plusDays(n),
+                                false).getId());
+                    }
+                    return new SyntheticUser(username, ids);
+                }));
+            }
+        }
+        List<SyntheticUser> users = new ArrayList<>(userCount);
+        for (Future<SyntheticUser> user : seeded) {
+            users.add(user.get());
+        }
+        return users;
+    }
+
+    /**
+     * Logs every user in through the login form and keeps the cookies it answers with
+     * (the session, or the signed login cookie in the stateless mode).
+     */
+    private static void logIn(HttpClient client, URI base, List<SyntheticUser> users) throws Exception {
+        List<Future<?>> logins = new ArrayList<>();
+        // The server checks each password with BCrypt; more parallel logins would only queue
+        try (ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())) {
+            for (SyntheticUser user : users) {
+                logins.add(executor.submit(() -> {
+                    Map<String, String> form = Map.of("username", user.getUsername(), "password", PASSWORD);
+                    HttpResponse<Void> response = client.send(Operation.post(base.resolve("/login"), form).build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    String location = response.headers().firstValue("Location").orElse("");
+                    if (response.statusCode() != 302 || location.contains("error")) {
+                        throw new IllegalStateException("Login of " + user.getUsername() + " failed: "
+                                + response.statusCode() + " " + location);
+                    }
+                    user.setCookies(String.join("; ", response.headers().allValues("Set-Cookie").stream()
+                            .map(cookie -> cookie.substring(0, cookie.indexOf(';') < 0 ? cookie.length() : cookie.indexOf(';')))
+                            .toList()));
+                    return null;
+                }));
+            }
+        }
+        for (Future<?> login : logins) {
+            login.get();
+        }
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix must give at least one operation a positive weight");
+        }
+        return weights;
+    }
+
+    /**
+     * Prints the percentiles per operation and writes the summary and the distributions.
+     */
+    private static void report(Map<Operation, OpenWorkload.Stats> stats, double rate, Duration duration, File output)
+            throws IOException {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("targetRate", rate);
+        summary.put("durationSeconds", duration.toSeconds());
+        Histogram allResponses = new Histogram(3);
+        long errors = 0;
+
+        System.out.println();
+        System.out.printf("%-8s %8s %7s | response time ms: %8s %8s %8s %8s %8s | service time ms: %8s %8s%n",
+                "", "requests", "errors", "p50", "p90", "p99", "p99.9", "max", "p50", "p99");
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Map.Entry<Operation, OpenWorkload.Stats> entry : stats.entrySet()) {
+            OpenWorkload.Stats measured = entry.getValue();
+            if (measured.responseTime.getTotalCount() == 0) {
+                continue;
+            }
+            String name = entry.getKey().name().toLowerCase();
+            print(name, measured.responseTime, measured.serviceTime, measured.errors.sum());
+            operations.put(name, Map.of(
+                    "requests", measured.responseTime.getTotalCount(),
+                    "errors", measured.errors.sum(),
+                    "responseTimeMs", percentiles(measured.responseTime),
+                    "serviceTimeMs", percentiles(measured.serviceTime)));
+            write(measured.responseTime, new File(output, name + "-response-time.hgrm"));
+            write(measured.serviceTime, new File(output, name + "-service-time.hgrm"));
+            allResponses.add(measured.responseTime);
+            errors += measured.errors.sum();
+        }
+        double achieved = allResponses.getTotalCount() / (double) duration.toSeconds();
+        System.out.printf("%nAchieved %.1f requests/s of %.0f, %d errors%n", achieved, rate, errors);
+
+        summary.put("achievedRate", achieved);
+        summary.put("errors", errors);
+        summary.put("responseTimeMs", percentiles(allResponses));
+        summary.put("operations", operations);
+        write(allResponses, new File(output, "all-response-time.hgrm"));
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(output, "summary.json"), summary);
+        System.out.println("Results written to " + output);
+    }
+
+    private static void print(String name, Histogram response, Histogram service, long errors) {
+        System.out.printf("%-8s %8d %7d | response time ms: %8.2f %8.2f %8.2f %8.2f %8.2f | service time ms: %8.2f %8.2f%n",
+                name, response.getTotalCount(), errors,
+                millis(response, 50), millis(response, 90), millis(response, 99), millis(response, 99.9),
+                response.getMaxValue() / 1e6, millis(service, 50), millis(service, 99));
+    }
+
+    private static Map<String, Double> percentiles(Histogram histogram) {
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (double percentile : new double[] { 50, 90, 99, 99.9 }) {
+            percentiles.put("p" + (percentile == Math.rint(percentile) ? Integer.toString((int) percentile)
+                    : Double.toString(percentile)), millis(histogram, percentile));
+        }
+        percentiles.put("max", histogram.getMaxValue() / 1e6);
+        return percentiles;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    private static void write(Histogram histogram, File file) throws IOException {
+        try (PrintStream stream = new PrintStream(file)) {
+            // Values are recorded in nanoseconds and written in milliseconds
+            histogram.outputPercentileDistribution(stream, 1e6);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.rvg.springboot.myfirstwebapp.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Sends requests at a target rate, whatever the server's response times (an open
+ * workload, as from many independent browsers).
+ *
+ * Arrivals follow a Poisson process: the gaps between requests are exponentially
+ * distributed around 1/rate. Each request is sent on its own virtual thread at its
+ * scheduled time, so a slow response never delays the next request. A closed loop,
+ * where each client waits for its previous response, would send fewer requests
+ * exactly when the server stalls, and hide the stall from the measurements
+ * (coordinated omission).
+ *
+ * Two latencies are recorded per request in HdrHistograms:
+ * - response time: from the time the request was scheduled to the response, including
+ *   any time the request waited because the generator or the client fell behind. This
+ *   is what a user sees, and the number to compare against latency goals.
+ * - service time: from the time the request was actually sent to the response.
+ * A growing gap between the two shows that the target rate is above what the system
+ * (or the generator) sustains.
+ */
+final class OpenWorkload {
+
+    /**
+     * Measurements of one operation.
+     */
+    static final class Stats {
+
+        final Histogram responseTime = new ConcurrentHistogram(3);
+        final Histogram serviceTime = new ConcurrentHistogram(3);
+        final LongAdder errors = new LongAdder();
+    }
+
+    private final HttpClient client;
+    private final URI base;
+    private final List<SyntheticUser> users;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final double rate;
+    private final Duration timeout;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+
+    /**
+     * Creates a workload.
+     *
+     * @param client the client to send the requests with
+     * @param base the base URL of the application
+     * @param users the logged-in users; each request is sent by a random one
+     * @param mix the relative weight of each operation
+     * @param rate the target rate in requests per second
+     * @param timeout how long to wait for a response before counting an error
+     */
+    OpenWorkload(HttpClient client, URI base, List<SyntheticUser> users, Map<Operation, Integer> mix, double rate,
+            Duration timeout) {
+        this.client = client;
+        this.base = base;
+        this.users = users;
+        this.rate = rate;
+        this.timeout = timeout;
+        this.operations = mix.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    /**
+     * Runs the workload: a warm-up whose requests are not measured, then the measured
+     * period. Returns once every response has arrived or timed out.
+     *
+     * @param warmup the duration of the warm-up
+     * @param duration the duration of the measured period
+     * @param seed the seed of the arrival times and of the choices of users and operations
+     * @return the measurements per operation
+     */
+    Map<Operation, Stats> run(Duration warmup, Duration duration, long seed) {
+        Random random = new Random(seed);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        long scheduled = start;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                scheduled += (long) (-Math.log(1 - random.nextDouble()) / rate * 1e9);
+                if (scheduled >= end) {
+                    break;
+                }
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                SyntheticUser user = users.get(random.nextInt(users.size()));
+                Operation operation = pick(random);
+                long at = scheduled;
+                boolean measured = at >= measureFrom;
+                executor.execute(() -> send(user, operation, at, measured));
+            }
+        }
+        return stats;
+    }
+
+    private void send(SyntheticUser user, Operation operation, long scheduled, boolean measured) {
+        Operation.Prepared prepared = operation.prepare(base, user);
+        HttpRequest request = prepared.request()
+                .header("Cookie", user.getCookies())
+                .timeout(timeout)
+                .build();
+        long sent = System.nanoTime();
+        HttpResponse<Void> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (IOException | InterruptedException e) {
+            response = null;
+        }
+        long received = System.nanoTime();
+
+        boolean succeeded = response != null && prepared.operation().succeeded(response);
+        if (succeeded && prepared.operation() == Operation.UPDATE) {
+            user.updated(prepared.todo().id(), prepared.todo().version());
+        }
+        if (measured) {
+            Stats measurements = stats.get(prepared.operation());
+            measurements.responseTime.recordValue(received - scheduled);
+            measurements.serviceTime.recordValue(received - sent);
+            if (!succeeded) {
+                measurements.errors.increment();
+            }
+        }
+    }
+
+    private Operation pick(Random random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < operations.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+}
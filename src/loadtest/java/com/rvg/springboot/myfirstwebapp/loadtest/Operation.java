@@ -0,0 +1,113 @@
+package com.rvg.springboot.myfirstwebapp.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The page requests replayed by the load test, as a browser sends them after login.
+ *
+ * Each operation builds its request for a user, and decides from the response status
+ * whether it succeeded. Updates and deletes pick one of the user's known todos; a user
+ * without todos lists them instead.
+ */
+enum Operation {
+
+    LIST {
+        @Override
+        Prepared prepare(URI base, SyntheticUser user) {
+            return new Prepared(this, HttpRequest.newBuilder(base.resolve("/list-todos")).GET(), null);
+        }
+    },
+
+    ADD {
+        @Override
+        Prepared prepare(URI base, SyntheticUser user) {
+            Map<String, String> form = new LinkedHashMap<>();
+            form.put("description", "Load test todo " + ThreadLocalRandom.current().nextInt(1_000_000));
+            form.put("targetDate", randomDate().toString());
+            return new Prepared(this, post(base.resolve("/add-todo"), form), null);
+        }
+    },
+
+    UPDATE {
+        @Override
+        Prepared prepare(URI base, SyntheticUser user) {
+            SyntheticUser.KnownTodo todo = user.pick();
+            if (todo == null) {
+                return LIST.prepare(base, user);
+            }
+            Map<String, String> form = new LinkedHashMap<>();
+            form.put("id", Integer.toString(todo.id()));
+            form.put("description", "Updated load test todo " + todo.id());
+            form.put("targetDate", randomDate().toString());
+            form.put("done", Boolean.toString(ThreadLocalRandom.current().nextBoolean()));
+            form.put("version", Integer.toString(todo.version()));
+            return new Prepared(this, post(base.resolve("/update-todo"), form), todo);
+        }
+    },
+
+    DELETE {
+        @Override
+        Prepared prepare(URI base, SyntheticUser user) {
+            SyntheticUser.KnownTodo todo = user.take();
+            if (todo == null) {
+                return LIST.prepare(base, user);
+            }
+            return new Prepared(this, HttpRequest.newBuilder(base.resolve("/delete-todo?id=" + todo.id())).GET(), todo);
+        }
+    };
+
+    /**
+     * A request ready to be sent.
+     *
+     * @param operation the operation actually performed, LIST if the user had no todo to change
+     * @param request the request, without the user's cookies
+     * @param todo the todo changed by an update or delete, otherwise null
+     */
+    record Prepared(Operation operation, HttpRequest.Builder request, SyntheticUser.KnownTodo todo) {
+    }
+
+    /**
+     * @param base the base URL of the application
+     * @param user the logged-in user sending the request
+     * @return the request to send
+     */
+    abstract Prepared prepare(URI base, SyntheticUser user);
+
+    /**
+     * Pages answer a successful change with a redirect to the list, and render the form
+     * again when it could not be applied, such as after a concurrent update. A redirect
+     * to the login page means the user's login was lost.
+     *
+     * @param response the response
+     * @return true for the expected response
+     */
+    boolean succeeded(HttpResponse<?> response) {
+        if (this == LIST) {
+            return response.statusCode() == 200;
+        }
+        return response.statusCode() == 302
+                && !response.headers().firstValue("Location").orElse("").contains("/login");
+    }
+
+    private static LocalDate randomDate() {
+        return LocalDate.now().plusDays(ThreadLocalRandom.current().nextInt(-30, 365));
+    }
+
+    static HttpRequest.Builder post(URI uri, Map<String, String> form) {
+        StringJoiner body = new StringJoiner("&");
+        form.forEach((name, value) -> body.add(URLEncoder.encode(name, StandardCharsets.UTF_8) + "="
+                + URLEncoder.encode(value, StandardCharsets.UTF_8)));
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()));
+    }
+}
@@ -0,0 +1,78 @@
+package com.rvg.springboot.myfirstwebapp.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A load test user: the cookies of its login, and the todos it knows it owns.
+ *
+ * Todos are known from seeding; the versions are tracked so updates are sent with the
+ * version the server expects, as a browser sends the version of the form it shows.
+ * Two concurrent updates of one todo still conflict, as they would for a real user.
+ */
+final class SyntheticUser {
+
+    record KnownTodo(int id, int version) {
+    }
+
+    private final String username;
+    private final List<KnownTodo> todos;
+    private volatile String cookies;
+
+    SyntheticUser(String username, List<Integer> ids) {
+        this.username = username;
+        this.todos = new ArrayList<>(ids.size());
+        ids.forEach(id -> todos.add(new KnownTodo(id, 0)));
+    }
+
+    String getUsername() {
+        return username;
+    }
+
+    String getCookies() {
+        return cookies;
+    }
+
+    void setCookies(String cookies) {
+        this.cookies = cookies;
+    }
+
+    /**
+     * @return a random known todo, or null if the user has none left
+     */
+    synchronized KnownTodo pick() {
+        return todos.isEmpty() ? null : todos.get(ThreadLocalRandom.current().nextInt(todos.size()));
+    }
+
+    /**
+     * Forgets a random known todo, which is about to be deleted.
+     *
+     * @return the todo, or null if the user has none left
+     */
+    synchronized KnownTodo take() {
+        if (todos.isEmpty()) {
+            return null;
+        }
+        int index = ThreadLocalRandom.current().nextInt(todos.size());
+        KnownTodo todo = todos.get(index);
+        todos.set(index, todos.get(todos.size() - 1));
+        todos.remove(todos.size() - 1);
+        return todo;
+    }
+
+    /**
+     * Records that an update of a todo was applied, so it now has the next version.
+     *
+     * @param id the id of the todo
+     * @param version the version the update was sent with
+     */
+    synchronized void updated(int id, int version) {
+        for (int i = 0; i < todos.size(); i++) {
+            if (todos.get(i).id() == id && todos.get(i).version() == version) {
+                todos.set(i, new KnownTodo(id, version + 1));
+                return;
+            }
+        }
+    }
+}
@@ -1,25 +1,35 @@
 package com.rvg.springboot.myfirstwebapp.login;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
-import org.springframework.web.bind.annotation.SessionAttributes;
+
+import com.rvg.springboot.myfirstwebapp.todo.stats.TodoStatisticsService;
 
 // WelcomeController class is a Spring MVC controller that handles requests to the root URL ("/").
 // It retrieves the username of the currently authenticated user and passes it to the welcome view.
 // The class is annotated with @Controller to indicate that it is a Spring MVC controller.
-// The @SessionAttributes annotation is used to store the "name" attribute in the session.
-// The "name" attribute is used to pass the username to the view.
+// The "name" attribute is used to pass the username to the view. It is put in the model
+// on every request rather than kept in the session, so no session is needed.
+// The welcome page doubles as a dashboard: it shows the counts of the user's todos,
+// read from the in-memory counters of TodoStatisticsService instead of the todo table.
+// The statistics only exist with the database store; with another store the counts are left out.
 // The getLoggedInUserName() method retrieves the username of the currently authenticated user.
 // The goToWelcomePage() method handles GET requests to the root URL ("/") and directs the user to the welcome page.
 // The method uses the ModelMap object to pass attributes to the view.
 @Controller
-@SessionAttributes("name")
 public class WelcomeController {
 
+    private final ObjectProvider<TodoStatisticsService> todoStatisticsService;
+
+    public WelcomeController(ObjectProvider<TodoStatisticsService> todoStatisticsService) {
+        this.todoStatisticsService = todoStatisticsService;
+    }
+
     /**
      * Handles GET requests to the root URL ("/") and directs the user to the welcome page.
      * 
@@ -28,7 +38,12 @@ public class WelcomeController {
      */
     @RequestMapping(value = "/", method = RequestMethod.GET)
     public String goToWelcomePage(ModelMap model) {
-        model.put("name", getLoggedInUserName());
+        String username = getLoggedInUserName();
+        model.put("name", username);
+        todoStatisticsService.ifAvailable(statistics -> {
+            model.put("stats", statistics.getStatistics(username));
+            model.put("statsReady", statistics.isReady());
+        });
         return "welcome";
     }
 
@@ -0,0 +1,107 @@
+package com.rvg.springboot.myfirstwebapp.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * PasswordEncoder that remembers successful password checks for a short time.
+ *
+ * BCrypt is deliberately slow, so verifying every login with it lets a burst of
+ * logins saturate the CPU. This encoder delegates to a slow encoder, but once a
+ * raw password has been verified against a stored hash, the same check is answered
+ * from a bounded cache until its entry expires.
+ *
+ * The cache never holds raw passwords. Entries are keyed by an HMAC-SHA256 of the
+ * stored hash and the raw password, under a random key that exists only in this
+ * process. Failed checks are not cached, and a changed password hash never matches
+ * an old entry.
+ */
+public class CachingPasswordEncoder implements PasswordEncoder {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final PasswordEncoder delegate;
+
+    private final Cache<String, Boolean> verifiedPasswords;
+
+    private final SecretKeySpec cacheKey;
+
+    /**
+     * Creates a new CachingPasswordEncoder.
+     *
+     * @param delegate the encoder that hashes and verifies passwords
+     * @param maximumSize the maximum number of remembered checks
+     * @param expireAfterWrite how long a successful check is remembered
+     */
+    public CachingPasswordEncoder(PasswordEncoder delegate, long maximumSize, Duration expireAfterWrite) {
+        this.delegate = delegate;
+        this.verifiedPasswords = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.cacheKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+
+        String entry = cacheEntry(rawPassword, encodedPassword);
+        if (verifiedPasswords.getIfPresent(entry) != null) {
+            return true;
+        }
+        boolean matches = delegate.matches(rawPassword, encodedPassword);
+        if (matches) {
+            verifiedPasswords.put(entry, Boolean.TRUE);
+        }
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Returns the cache of successful checks, for monitoring.
+     *
+     * @return the cache
+     */
+    public Cache<String, Boolean> getVerifiedPasswords() {
+        return verifiedPasswords;
+    }
+
+    private String cacheEntry(CharSequence rawPassword, String encodedPassword) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(cacheKey);
+            mac.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.rvg.springboot.myfirstwebapp.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.DeferredSecurityContext;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.security.web.context.SecurityContextRepository;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * SecurityContextRepository that keeps the logged-in user in a signed cookie instead
+ * of the HTTP session, so the server holds no state per logged-in user.
+ *
+ * The cookie carries the username, the user's authorities and an expiry time, signed
+ * with HMAC-SHA256. A request presenting a valid cookie is authenticated without a
+ * session lookup, without deserializing a security context and without loading the
+ * user. The cookie is only read when something asks for the security context, and it
+ * is written once, at login. Logging out deletes it.
+ *
+ * A cookie cannot be revoked before it expires, short of changing the signing key,
+ * so its validity should stay short; remember-me covers longer absences.
+ */
+public class SignedCookieSecurityContextRepository implements SecurityContextRepository {
+
+    public static final String COOKIE_NAME = "TODO_AUTH";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec signingKey;
+    private final Duration validity;
+
+    // Mac instances are not thread-safe, and creating one per request is wasteful
+    private final ThreadLocal<Mac> macs;
+
+    private SecurityContextHolderStrategy securityContextHolderStrategy = SecurityContextHolder
+            .getContextHolderStrategy();
+
+    /**
+     * Creates a new SignedCookieSecurityContextRepository.
+     *
+     * @param key the secret the cookies are signed with
+     * @param validity how long a cookie is accepted after login
+     */
+    public SignedCookieSecurityContextRepository(String key, Duration validity) {
+        this.signingKey = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.validity = validity;
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(signingKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 is not available", e);
+            }
+        });
+    }
+
+    public void setSecurityContextHolderStrategy(SecurityContextHolderStrategy securityContextHolderStrategy) {
+        this.securityContextHolderStrategy = securityContextHolderStrategy;
+    }
+
+    @Override
+    @Deprecated
+    public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
+        return loadDeferredContext(requestResponseHolder.getRequest()).get();
+    }
+
+    @Override
+    public DeferredSecurityContext loadDeferredContext(HttpServletRequest request) {
+        Supplier<SecurityContext> context = () -> {
+            Authentication authentication = readCookie(request);
+            if (authentication == null) {
+                return null;
+            }
+            SecurityContext securityContext = securityContextHolderStrategy.createEmptyContext();
+            securityContext.setAuthentication(authentication);
+            return securityContext;
+        };
+        return new DeferredSecurityContext() {
+
+            private SecurityContext loaded;
+            private boolean generated;
+
+            @Override
+            public SecurityContext get() {
+                if (loaded == null) {
+                    loaded = context.get();
+                    if (loaded == null) {
+                        loaded = securityContextHolderStrategy.createEmptyContext();
+                        generated = true;
+                    }
+                }
+                return loaded;
+            }
+
+            @Override
+            public boolean isGenerated() {
+                get();
+                return generated;
+            }
+        };
+    }
+
+    /**
+     * Writes a cookie for an authenticated user, or deletes the cookie when the context is empty.
+     *
+     * @param context the security context to keep
+     * @param request the current request
+     * @param response the response to set the cookie on
+     */
+    @Override
+    public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+        Authentication authentication = context.getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            if (findCookie(request) != null) {
+                setCookie(request, response, "", Duration.ZERO);
+            }
+            return;
+        }
+        long expires = System.currentTimeMillis() / 1000 + validity.toSeconds();
+        String authorities = String.join(",", AuthorityUtils.authorityListToSet(authentication.getAuthorities()));
+        String payload = authentication.getName() + '\n' + expires + '\n' + authorities;
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        setCookie(request, response, ENCODER.encodeToString(bytes) + '.' + ENCODER.encodeToString(sign(bytes)),
+                validity);
+    }
+
+    @Override
+    public boolean containsContext(HttpServletRequest request) {
+        return readCookie(request) != null;
+    }
+
+    /**
+     * Verifies the cookie of a request.
+     *
+     * @param request the request
+     * @return the authenticated user, or null if there is no valid, unexpired cookie
+     */
+    private Authentication readCookie(HttpServletRequest request) {
+        String value = findCookie(request);
+        int dot = value == null ? -1 : value.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(value.substring(0, dot));
+            signature = DECODER.decode(value.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            return null;
+        }
+        String[] fields = new String(payload, StandardCharsets.UTF_8).split("\n", 3);
+        if (fields.length != 3 || Long.parseLong(fields[1]) < System.currentTimeMillis() / 1000) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = fields[2].isEmpty()
+                ? AuthorityUtils.NO_AUTHORITIES
+                : AuthorityUtils.commaSeparatedStringToAuthorityList(fields[2]);
+        return UsernamePasswordAuthenticationToken.authenticated(fields[0], null, authorities);
+    }
+
+    private static String findCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE_NAME.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void setCookie(HttpServletRequest request, HttpServletResponse response, String value,
+            Duration maxAge) {
+        String path = request.getContextPath().isEmpty() ? "/" : request.getContextPath();
+        ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, value)
+                .path(path)
+                .maxAge(maxAge)
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .sameSite("Lax")
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    private byte[] sign(byte[] payload) {
+        // doFinal resets the Mac for the next use on this thread
+        return macs.get().doFinal(payload);
+    }
+}
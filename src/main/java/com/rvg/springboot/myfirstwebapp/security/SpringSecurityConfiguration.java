@@ -1,16 +1,30 @@
 package com.rvg.springboot.myfirstwebapp.security;
 
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.function.Function;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.context.DelegatingSecurityContextRepository;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.savedrequest.NullRequestCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
 import static org.springframework.security.config.Customizer.withDefaults;;
 
 /**
@@ -18,19 +32,51 @@ import static org.springframework.security.config.Customizer.withDefaults;;
  * It defines beans for user details management, password encoding, and HTTP security.
  * 
  * - InMemoryUserDetailsManager: Manages user details in memory.
- * - PasswordEncoder: Encodes passwords using BCrypt.
+ * - PasswordEncoder: Encodes passwords using BCrypt, remembering successful checks for a short time.
  * - SecurityFilterChain: Configures HTTP security to require authentication for all requests.
+ *
+ * Logged-in users are recognized by their session, or by a signed remember-me cookie
+ * once the session is gone; neither path runs BCrypt again.
+ *
+ * With todo.security.stateless=true no session is used at all: the logged-in user is
+ * kept in a signed cookie (SignedCookieSecurityContextRepository), and the filters that
+ * only exist to manage session state are left out. Static assets never pass through
+ * the security filters.
  */
 @Configuration
 public class SpringSecurityConfiguration {
     
+    // Secret used to sign remember-me cookies; a random one is generated if none is configured
+    @Value("${todo.security.remember-me.key:}")
+    private String rememberMeKey;
+
+    // How long a remember-me cookie stays valid
+    @Value("${todo.security.remember-me.validity:14d}")
+    private Duration rememberMeValidity;
+
+    // Keep the logged-in user in a signed cookie instead of the HTTP session
+    @Value("${todo.security.stateless:false}")
+    private boolean stateless;
+
+    // How long the signed login cookie of the stateless mode is accepted
+    @Value("${todo.security.stateless.validity:8h}")
+    private Duration statelessValidity;
+
+    // Maximum number of successful password checks to remember
+    @Value("${todo.security.credential-cache.maximum-size:10000}")
+    private long credentialCacheSize;
+
+    // How long a successful password check is remembered
+    @Value("${todo.security.credential-cache.expire-after-write:5m}")
+    private Duration credentialCacheTtl;
+
     // Define a bean for InMemoryUserDetailsManager
     @Bean
-    public InMemoryUserDetailsManager createUserDetailsManager() {
+    public InMemoryUserDetailsManager createUserDetailsManager(PasswordEncoder passwordEncoder) {
         // Create a new user with username "rvg" and password "asdf"
-        UserDetails userDetails = createNewUser("rvg", "asdf");
+        UserDetails userDetails = createNewUser(passwordEncoder, "rvg", "asdf");
         // Create another new user with username "ric" and password "qwerty"
-        UserDetails userDetails1 = createNewUser("ric", "qwerty");
+        UserDetails userDetails1 = createNewUser(passwordEncoder, "ric", "qwerty");
 
         // Return an InMemoryUserDetailsManager initialized with the created users
         return new InMemoryUserDetailsManager(userDetails, userDetails1);
@@ -39,13 +85,14 @@ public class SpringSecurityConfiguration {
     /**
      * Creates a new user with the specified username and password.
      *
+     * @param encoder the PasswordEncoder used to hash the password
      * @param username the username of the new user
      * @param password the password of the new user
      * @return UserDetails object containing the new user's details
      */
-    private UserDetails createNewUser(String username, String password) {
-        // Define a password encoder function that uses the getPasswordEncoder() method to encode the input password
-        Function<String, String> passwordEncoder = input -> getPasswordEncoder().encode(input);
+    private UserDetails createNewUser(PasswordEncoder encoder, String username, String password) {
+        // Define a password encoder function that uses the shared PasswordEncoder bean to encode the input password
+        Function<String, String> passwordEncoder = encoder::encode;
 
         // Build the UserDetails object with the provided username, encoded password, and roles
         UserDetails userDetails = User.builder()
@@ -61,12 +108,31 @@ public class SpringSecurityConfiguration {
 
     /**
      * Creates a PasswordEncoder bean that uses the BCrypt hashing algorithm.
+     * Successful checks are remembered in a bounded, short-lived cache, so repeated
+     * logins with the same credentials do not pay for BCrypt every time. The cache
+     * statistics are published to Micrometer as the "credentialChecks" cache.
      * 
+     * @param meterRegistry the registry to publish the cache statistics to
      * @return a PasswordEncoder that uses BCrypt
      */
     @Bean
-    public PasswordEncoder getPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder getPasswordEncoder(MeterRegistry meterRegistry) {
+        CachingPasswordEncoder passwordEncoder = new CachingPasswordEncoder(new BCryptPasswordEncoder(),
+                credentialCacheSize, credentialCacheTtl);
+        CaffeineCacheMetrics.monitor(meterRegistry, passwordEncoder.getVerifiedPasswords(), "credentialChecks");
+        return passwordEncoder;
+    }
+
+    /**
+     * Lets requests for the webjar assets bypass the security filters entirely.
+     * The assets are public and fingerprinted, so there is nothing to protect, and
+     * serving them needs no security context, session or cookie parsing.
+     *
+     * @return the customizer that excludes /webjars/** from the filter chain
+     */
+    @Bean
+    public WebSecurityCustomizer ignoreStaticResources() {
+        return web -> web.ignoring().requestMatchers("/webjars/**");
     }
 
     /**
@@ -77,21 +143,62 @@ public class SpringSecurityConfiguration {
      * @throws Exception if an error occurs while configuring the security filter chain
      * 
      * This configuration ensures that:
-     * - All requests are authenticated.
-     * - A default login form is used for authentication.
+     * - All requests are authenticated, except the health and Prometheus scrape endpoints.
+     * - The cluster endpoints are closed; a partitioned deployment serves them through its own
+     *   filter chain, which only accepts the cluster key (ClusterConfiguration).
+     * - A default login form is used for authentication; API clients may use HTTP Basic instead.
+     * - "Remember me" issues a signed token cookie that is checked with SHA-256, not BCrypt.
      * - CSRF protection is disabled.
      * - Frame options headers are disabled.
+     *
+     * In the stateless mode, additionally:
+     * - No HTTP session is created or read; the security context lives in a signed cookie.
+     * - Requests that need a login are not saved for replay after the login, which would need a session.
+     * - Anonymous authentication tokens are not created for every unauthenticated request.
      */
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-        http.authorizeRequests(auth -> auth
+        String key = rememberMeKey.isBlank() ? randomKey() : rememberMeKey;
+
+        // Authorization rules are only evaluated when a request is authorized, not per filter
+        http.authorizeHttpRequests(auth -> auth
+                // Probes and the Prometheus scraper cannot log in; keep these off public networks
+                .requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll()
+                // Operating a partitioned deployment needs the cluster key, never a user login
+                .requestMatchers("/api/cluster/**").denyAll()
                 .anyRequest().authenticated());
         http.formLogin(withDefaults());
+        http.httpBasic(withDefaults());
+        http.rememberMe(rememberMe -> rememberMe
+                .key(key)
+                .tokenValiditySeconds((int) rememberMeValidity.toSeconds()));
+
+        if (stateless) {
+            http.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+            // The request attribute carries the context into async and error dispatches, as by default
+            http.securityContext(context -> context.securityContextRepository(new DelegatingSecurityContextRepository(
+                    new RequestAttributeSecurityContextRepository(),
+                    new SignedCookieSecurityContextRepository(key, statelessValidity))));
+            http.requestCache(cache -> cache.requestCache(new NullRequestCache()));
+            http.anonymous(anonymous -> anonymous.disable());
+        }
 
-        http.csrf().disable();
-        http.headers().frameOptions().disable();
+        http.csrf(csrf -> csrf.disable());
+        http.headers(headers -> headers.frameOptions(frameOptions -> frameOptions.disable()));
 
         return http.build();
     }
 
+    /**
+     * Generates a random secret for signing remember-me cookies.
+     * Cookies signed with it stop being valid when the application restarts.
+     *
+     * @return a random Base64 encoded secret
+     */
+    private static String randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return Base64.getEncoder().encodeToString(key);
+    }
+
 }
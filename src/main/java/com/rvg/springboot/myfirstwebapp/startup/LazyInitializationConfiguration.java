@@ -0,0 +1,32 @@
+package com.rvg.springboot.myfirstwebapp.startup;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.sql.init.AbstractScriptDatabaseInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for lazy initialization (spring.main.lazy-initialization, set by
+ * the production profile).
+ *
+ * With lazy initialization a bean is only created when something first uses it. Beans
+ * that do their work as a side effect of being created would never run. This class
+ * lists those beans so they are still created at startup.
+ *
+ * Methods:
+ * - eagerBeans(): Excludes the beans that must be created at startup from lazy initialization.
+ */
+@Configuration
+public class LazyInitializationConfiguration {
+
+    /**
+     * Keeps the SQL script initializer eager: nothing depends on it, so lazily it would
+     * never run data.sql.
+     *
+     * @return the filter excluding the beans from lazy initialization
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(AbstractScriptDatabaseInitializer.class);
+    }
+}
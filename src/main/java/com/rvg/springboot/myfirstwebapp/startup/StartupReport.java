@@ -0,0 +1,122 @@
+package com.rvg.springboot.myfirstwebapp.startup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Reports how long the application took to start, once it is ready to serve requests.
+ *
+ * The report gives the JVM uptime (which includes JVM and class loading time before
+ * main), the time Spring Boot took until it was ready, the number of loaded classes,
+ * whether AOT-generated bean definitions, a CDS archive and lazy initialization were
+ * used, and the slowest startup steps recorded by the BufferingApplicationStartup set
+ * in main(). It is logged, and written as JSON to todo.startup.report-file when that is
+ * set, so builds can compare startup times and catch regressions. Spring Boot also
+ * publishes application.started.time and application.ready.time to Micrometer, and
+ * the full step timeline is served by /actuator/startup.
+ *
+ * Methods:
+ * - report(ApplicationReadyEvent event): Logs and writes the startup report.
+ */
+@Component
+public class StartupReport {
+
+    private static final int SLOWEST_STEPS = 10;
+
+    private final Logger logger = Logger.getLogger(StartupReport.class.getName());
+
+    private final ObjectMapper objectMapper;
+    private final String reportFile;
+    private final boolean lazyInitialization;
+
+    public StartupReport(ObjectMapper objectMapper,
+            @Value("${todo.startup.report-file:}") String reportFile,
+            @Value("${spring.main.lazy-initialization:false}") boolean lazyInitialization) {
+        this.objectMapper = objectMapper;
+        this.reportFile = reportFile;
+        this.lazyInitialization = lazyInitialization;
+    }
+
+    /**
+     * Logs the startup report, and writes it to the report file if one is configured.
+     *
+     * @param event the event telling the application is ready
+     */
+    @EventListener
+    public void report(ApplicationReadyEvent event) {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("jvmUptimeMillis", runtime.getUptime());
+        report.put("readyMillis", millis(event.getTimeTaken()));
+        report.put("loadedClasses", ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+        report.put("aot", AotDetector.useGeneratedArtifacts());
+        report.put("cds", runtime.getInputArguments().stream().anyMatch(arg -> arg.startsWith("-XX:SharedArchiveFile")));
+        report.put("lazyInitialization", lazyInitialization);
+        report.put("slowestSteps", slowestSteps(event.getApplicationContext().getApplicationStartup()));
+
+        logger.info("Startup report: " + report);
+        if (!reportFile.isBlank()) {
+            try {
+                Files.write(Path.of(reportFile),
+                        objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValueAsBytes(report));
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Cannot write the startup report to " + reportFile, e);
+            }
+        }
+    }
+
+    /**
+     * Lists the recorded startup steps that took longest. A step's duration includes
+     * the steps nested in it, such as the beans a bean depends on.
+     *
+     * @param startup the application startup recording the steps
+     * @return the name, tags and duration of the slowest steps, slowest first
+     */
+    private static List<Map<String, Object>> slowestSteps(ApplicationStartup startup) {
+        if (!(startup instanceof BufferingApplicationStartup buffering)) {
+            return List.of();
+        }
+        List<Map<String, Object>> steps = new ArrayList<>();
+        buffering.getBufferedTimeline().getEvents().stream()
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(SLOWEST_STEPS)
+                .forEach(event -> {
+                    Map<String, Object> step = new LinkedHashMap<>();
+                    step.put("name", event.getStartupStep().getName());
+                    for (StartupStep.Tag tag : event.getStartupStep().getTags()) {
+                        step.put(tag.getKey(), tag.getValue());
+                    }
+                    step.put("millis", millis(event.getDuration()));
+                    steps.add(step);
+                });
+        return steps;
+    }
+
+    private static long millis(Duration duration) {
+        return duration == null ? -1 : duration.toMillis();
+    }
+}
@@ -0,0 +1,49 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import jakarta.servlet.jsp.JspException;
+import jakarta.servlet.jsp.PageContext;
+import jakarta.servlet.jsp.tagext.SimpleTagSupport;
+
+/**
+ * JSP tag that renders its body once per key and then writes the cached HTML.
+ *
+ * Usage: {@code <todo:cache key="${fragmentKey}">...</todo:cache>}. The body is only
+ * evaluated on a cache miss, so expressions inside it are not evaluated for cached
+ * fragments. The fragments are held by the {@link RenderedFragmentCache} bean.
+ * Without a key the body is rendered every time.
+ */
+public class CachedFragmentTag extends SimpleTagSupport {
+
+    private String key;
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    @Override
+    public void doTag() throws JspException, IOException {
+        PageContext pageContext = (PageContext) getJspContext();
+        if (key == null || key.isEmpty()) {
+            getJspBody().invoke(null);
+            return;
+        }
+        RenderedFragmentCache cache = WebApplicationContextUtils
+                .getRequiredWebApplicationContext(pageContext.getServletContext())
+                .getBean(RenderedFragmentCache.class);
+
+        String fragment = cache.get(key);
+        if (fragment == null) {
+            // Concurrent misses may render the same fragment twice; the results are identical
+            StringWriter body = new StringWriter();
+            getJspBody().invoke(body);
+            fragment = body.toString();
+            cache.put(key, fragment);
+        }
+        pageContext.getOut().write(fragment);
+    }
+}
@@ -0,0 +1,54 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * TodoWriter that writes every change to the database right away, each in its own transaction.
+ * Updates are conditional on the version the user edited (see TodoUpdateService).
+ */
+@Component
+@ConditionalOnProperty(name = "todo.write-behind.enabled", havingValue = "false", matchIfMissing = true)
+public class DirectTodoWriter implements TodoWriter {
+
+    private final TodoRepository todoRepository;
+    private final TodoUpdateService todoUpdateService;
+
+    public DirectTodoWriter(TodoRepository todoRepository, TodoUpdateService todoUpdateService) {
+        this.todoRepository = todoRepository;
+        this.todoUpdateService = todoUpdateService;
+    }
+
+    @Override
+    public void create(Todo todo) {
+        todoRepository.save(todo);
+    }
+
+    @Override
+    public TodoUpdateService.Result update(Todo todo) {
+        return todoUpdateService.update(todo.getId(), todo.getUsername(), todo.getVersion(), todo.getDescription(),
+                todo.getTargetDate(), todo.isDone());
+    }
+
+    /**
+     * Deletes a todo, if it belongs to the user.
+     */
+    @Override
+    @Transactional
+    public void delete(int id, String username) {
+        todoRepository.findById(id)
+                .filter(todo -> todo.getUsername().equals(username))
+                .ifPresent(todoRepository::delete);
+    }
+
+    @Override
+    public void awaitWrites(String username) {
+        // Nothing is ever pending
+    }
+
+    @Override
+    public void awaitWrite(int id) {
+        // Nothing is ever pending
+    }
+}
@@ -0,0 +1,61 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache of rendered HTML fragments, used by the {@code <todo:cache>} JSP tag.
+ *
+ * Keys are expected to contain everything the fragment depends on, such as the user
+ * and the version of their todos (see {@link TodoQueryService#getVersion(String)}),
+ * so entries never need to be invalidated; outdated ones are simply not asked for
+ * again and are evicted. The cache is bounded by the size of the fragments, and its
+ * statistics are published to Micrometer as the {@code todoFragments} cache.
+ *
+ * Methods:
+ * - get(String key): Returns the fragment cached under a key, if any.
+ * - put(String key, String fragment): Caches a rendered fragment.
+ */
+@Component
+public class RenderedFragmentCache {
+
+    private final Cache<String, String> fragments;
+
+    public RenderedFragmentCache(MeterRegistry meterRegistry,
+            @Value("${todo.fragment-cache.maximum-size:32MB}") DataSize maximumSize) {
+        this.fragments = Caffeine.newBuilder()
+                // Strings take about two bytes per character
+                .maximumWeight(maximumSize.toBytes())
+                .weigher((String key, String fragment) -> 2 * (key.length() + fragment.length()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, fragments, "todoFragments");
+    }
+
+    /**
+     * Returns the fragment cached under the given key.
+     *
+     * @param key the key identifying the fragment and everything it depends on
+     * @return the cached fragment, or null if it is not cached
+     */
+    public String get(String key) {
+        return fragments.getIfPresent(key);
+    }
+
+    /**
+     * Caches a rendered fragment.
+     *
+     * @param key the key identifying the fragment and everything it depends on
+     * @param fragment the rendered fragment
+     */
+    public void put(String key, String fragment) {
+        fragments.put(key, fragment);
+    }
+}
@@ -0,0 +1,101 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces concurrent identical reads: while a read of a key is running, callers asking
+ * for the same key wait for it and share its result instead of querying again.
+ *
+ * The first caller for a key runs the query on its own thread and publishes the result
+ * through a future that later callers join; the key is released once the query ends, so
+ * results are never reused after it. Callers share the same result object and must not
+ * change it. A failed query fails every caller that joined it.
+ *
+ * Reads are counted in the {@code todo.reads} metric, tagged with the query and with
+ * outcome {@code queried} (the database was read) or {@code coalesced} (the result of a
+ * concurrent read was shared, saving a database call).
+ *
+ * Methods:
+ * - execute(K key, Supplier<V> query): Runs the query, or joins a running one for the same key.
+ * - forget(K key): Lets later callers of a key start a new query.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the results
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter queried;
+    private final Counter coalesced;
+
+    /**
+     * Creates a new SingleFlight.
+     *
+     * @param meterRegistry the registry of the read counters
+     * @param query the name of the query, used as the metric tag
+     */
+    public SingleFlight(MeterRegistry meterRegistry, String query) {
+        this.queried = Counter.builder("todo.reads")
+                .description("Repository reads, by whether they queried the database or shared a concurrent query")
+                .tag("query", query)
+                .tag("outcome", "queried")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("todo.reads")
+                .description("Repository reads, by whether they queried the database or shared a concurrent query")
+                .tag("query", query)
+                .tag("outcome", "coalesced")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the query, or waits for the running query of the same key and returns its result.
+     *
+     * @param key the key the query reads
+     * @param query the query
+     * @return the result of the query
+     */
+    public V execute(K key, Supplier<V> query) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        queried.increment();
+        try {
+            V result = query.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Lets callers that come after a change start a new query instead of joining one that
+     * may have read the data before the change. Callers already waiting still share it.
+     *
+     * @param key the changed key
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+}
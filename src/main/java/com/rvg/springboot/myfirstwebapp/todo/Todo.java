@@ -2,33 +2,60 @@ package com.rvg.springboot.myfirstwebapp.todo;
 
 import java.time.LocalDate;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
 
 /**
  * Represents a Todo item with details such as id, username, description, target date, and completion status.
  * This class is annotated with @Entity to indicate that it is a JPA entity.
+ * The composite (username, target_date, id) index backs the keyset paginated list of a user's todos.
+ * Every insert, update and delete is announced as a TodoChangedEvent by the TodoEntityListener.
+ * The version column is incremented on every update, so concurrent edits of the same todo
+ * are detected instead of silently overwriting each other.
+ * Every todo has a target date: the list ordering and its cursors rely on it.
  */
 @Entity
+@EntityListeners(TodoEntityListener.class)
+@Table(indexes = @Index(name = "idx_todo_username_target_date", columnList = "username, target_date, id"))
 public class Todo {
 
     // Default constructor
     public Todo() {}
     
     // Fields of the Todo class with annotations for JPA
+    // Ids come from a pooled sequence: Hibernate reserves a block of ids per sequence call,
+    // which lets inserts be sent to the database in JDBC batches.
+    // The sequence starts above the ids used by data.sql.
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "todo_seq")
+    @SequenceGenerator(name = "todo_seq", sequenceName = "todo_seq", initialValue = 10000, allocationSize = 50)
     private int id;
     private String username;
 
     @Size(min = 10, message = "Enter at least 10 characters.")
+    @Size(max = 255, message = "Enter at most 255 characters.")
     private String description;
+    @NotNull(message = "Enter a target date.")
+    @Column(nullable = false)
     private LocalDate targetDate;
     private boolean done;
 
+    // Checked and incremented by Hibernate when the entity is updated, and by the
+    // conditional updates in TodoRepository
+    @Version
+    private int version;
+
     // Getters and Setters
     public int getId() {
         return id;
@@ -70,6 +97,14 @@ public class Todo {
         this.done = done;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     /**
      * Constructs a new Todo object with the specified details.
      *
@@ -102,6 +137,7 @@ public class Todo {
                 ", description= '" + description + '\'' +
                 ", targetDate= " + targetDate +
                 ", done= " + done +
+                ", version= " + version +
                 '}';
     }
 }
@@ -0,0 +1,22 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+/**
+ * Application event published whenever a Todo item is created, updated or deleted.
+ *
+ * Events are published from inside the transaction that writes the change; listeners
+ * that keep derived state (caches, indexes, counters) should use
+ * {@code @TransactionalEventListener} so they only react once the change is committed.
+ *
+ * @param type the kind of change
+ * @param id the id of the changed Todo item
+ * @param username the owner of the changed Todo item
+ */
+public record TodoChangedEvent(Type type, int id, String username) {
+
+    /**
+     * The kind of change made to a Todo item.
+     */
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
@@ -1,9 +1,9 @@
 package com.rvg.springboot.myfirstwebapp.todo;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.logging.Logger;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
@@ -12,37 +12,109 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.SessionAttributes;
+import org.springframework.web.context.request.WebRequest;
 
+import com.rvg.springboot.myfirstwebapp.todo.store.TodoStore;
+
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
-//@Controller
-@SessionAttributes("name")
+/**
+ * This controller handles CRUD operations for Todo items kept in a {@link TodoStore}.
+ * It manages the creation, updating, deletion, and listing of todos for the logged-in user.
+ *
+ * Annotations:
+ * @Controller - Indicates that this class serves as a controller in the Spring MVC framework.
+ *
+ * Dependencies:
+ * - TodoStore: The store selected by todo.store: the database (through the cached
+ *   TodoQueryService and the TodoWriter), memory or the embedded log.
+ *
+ * Methods:
+ * - listAllTodos(ModelMap model, String after, String before, int size, WebRequest request, HttpServletResponse response): Handles the request to list one page of todos.
+ * - showNewTodoPage(ModelMap model): Handles the request to show the page for creating a new todo.
+ * - addNewTodo(ModelMap model, @Valid Todo todo, BindingResult result): Handles the submission of a new todo item.
+ * - deleteTodo(ModelMap model, @RequestParam int id): Handles the deletion of a todo item by its ID.
+ * - showUpdateTodoPage(@RequestParam int id, ModelMap model): Handles the request to show the page for updating a todo item.
+ * - updateTodo(ModelMap model, @Valid Todo todo, BindingResult result): Handles the submission of an updated todo item.
+ * - getLoggedInUserName(ModelMap model): Retrieves the username of the currently authenticated user.
+ * @author rvega
+ */
+@Controller
 public class TodoController {
 
-    private TodoService todoService;
-    
-    Logger logger = Logger.getLogger(TodoController.class.getName());
-
-    public TodoController(TodoService todoService) {
-        this.todoService = todoService;
+    public TodoController(TodoStore todoStore) {
+        this.todoStore = todoStore;
     }
 
+    private TodoStore todoStore;
+
+    /**
+     * Handles the request to list one page of todos for the logged-in user.
+     * Todos are ordered by target date and paginated with cursors rather than offsets.
+     *
+     * If the store versions the user's todos, the response carries the version as its ETag.
+     * When the browser revalidates a page whose todos have not changed since, the answer is
+     * 304 Not Modified and neither the store nor the view is touched. Otherwise the table is
+     * rendered once per version and page, and served from the rendered fragment cache afterwards.
+     *
+     * @param model the ModelMap object to pass attributes to the view
+     * @param after the cursor the page starts after, if any
+     * @param before the cursor the page ends before, if any
+     * @param size the number of todos per page
+     * @param request the current request, used for the conditional GET
+     * @param response the current response
+     * @return the name of the view to be rendered, in this case "listTodos", or null if not modified
+     */
     @RequestMapping("list-todos")
-    public String listAllTodos(ModelMap model) {
-        String username = getLoggedInUserName(model);
-        List<Todo> todos = todoService.findByUsername(username);
-        model.addAttribute("todos", todos);
-        return "listTodos";
-    }
+	public String listAllTodos(ModelMap model,
+			@RequestParam(required = false) String after,
+			@RequestParam(required = false) String before,
+			@RequestParam(defaultValue = "" + TodoQueryService.DEFAULT_PAGE_SIZE) int size,
+			WebRequest request, HttpServletResponse response) {
+		String username = getLoggedInUserName(model);
+
+		// Versions are unique across users, so the ETag cannot match another user's page.
+		// The ETag is weak because Tomcat does not compress responses with strong ETags.
+		long version = todoStore.getVersion(username);
+		// Let the browser keep the page, but revalidate it on every visit
+		response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+		if (version != TodoStore.NO_VERSION && request.checkNotModified("W/\"" + Long.toHexString(version) + "\"")) {
+			return null;
+		}
 
-    @RequestMapping(value = "add-todo", method = RequestMethod.GET)
+		TodoPage page = todoStore.findPage(username, after, before, size);
+		model.addAttribute("page", page);
+		model.addAttribute("todos", page.getTodos());
+		// Without a version there is nothing to key the rendered table by, so it is rendered every time
+		model.addAttribute("fragmentKey", version == TodoStore.NO_VERSION ? ""
+				: "list-todos:" + version + ":" + size + ":" + after + ":" + before);
+
+		return "listTodos";
+	}
+
+
+    /**
+     * Displays the page for creating a new Todo item.
+     *
+     * @param model the ModelMap object to pass attributes to the view
+     * @return the name of the view to be rendered, in this case "todo"
+     */
+    @RequestMapping(value="add-todo", method = RequestMethod.GET)
     public String showNewTodoPage(ModelMap model) {
         String username = getLoggedInUserName(model);
         model.put("todo", new Todo(0, username, "", LocalDate.now().plusYears(1), false));
         return "todo";
     }
 
+    /**
+     * Handles the submission of a new Todo item.
+     *
+     * @param model the ModelMap object to hold attributes for the view
+     * @param todo the Todo object to be added
+     * @param result the BindingResult object to hold validation errors
+     * @return the name of the view to be rendered
+     */
     @RequestMapping(value = "add-todo", method = RequestMethod.POST)
     public String addNewTodo(ModelMap model, @Valid Todo todo, BindingResult result) {
         if (result.hasErrors()) {
@@ -50,28 +122,51 @@ public class TodoController {
         }
 
         String username = getLoggedInUserName(model);
-        todoService.addTodo(username, todo.getDescription(), todo.getTargetDate(), false);
+        todoStore.addTodo(username, todo.getDescription(), todo.getTargetDate(), false);
+
         return "redirect:list-todos";
     }
 
+    /**
+     * Handles the deletion of a todo item. Todos of other users are left alone.
+     *
+     * @param model the ModelMap object that holds the model attributes for the view
+     * @param id the ID of the todo item to be deleted
+     * @return a redirect to the list of todos
+     */
     @RequestMapping("delete-todo")
-    public String deleteTodo(@RequestParam int id) {
-        todoService.deleteById(id);
+    public String deleteTodo(ModelMap model, @RequestParam int id) {
+        todoStore.deleteById(id, getLoggedInUserName(model));
         return "redirect:list-todos";
     }
 
+    /**
+     * Handles GET requests for updating a todo item. Todos of other users are not shown.
+     *
+     * @param id the ID of the todo item to be updated
+     * @param model the model map to hold attributes for the view
+     * @return the name of the view to be rendered
+     */
     @RequestMapping(value="update-todo", method = RequestMethod.GET)
     public String showUpdateTodoPage(@RequestParam int id, ModelMap model) {
-        Todo todo = todoService.findById(id);
-        if (todo != null) {
+        // Retrieve the todo item by its ID
+        Todo todo = todoStore.findById(id);
+
+        // If the todo item exists and belongs to the user, add it to the model
+        if (todo != null && todo.getUsername().equals(getLoggedInUserName(model))) {
             model.put("todo", todo);
         }
-        
+
+        // Return the view name
         return "todo";
     }
 
     /**
      * Handles the POST request to update an existing todo item.
+     * The todo is only changed if it still has the version the form was opened with; the
+     * store checks and changes it in one step. If someone changed it meanwhile, the form is
+     * shown again with the user's values and a warning; it now carries the latest version,
+     * so submitting again overwrites the change.
      *
      * @param model the ModelMap object to hold model attributes
      * @param todo the Todo object containing the updated todo details
@@ -83,10 +178,18 @@ public class TodoController {
 		if(result.hasErrors()) {
 			return "todo";
 		}
-		
+
 		String username = getLoggedInUserName(model);
-		todo.setUsername(username);
-		todoService.updateTodo(todo);
+		TodoUpdateService.Result updated = todoStore.updateIfVersion(todo.getId(), username, todo.getVersion(),
+				todo.getDescription(), todo.getTargetDate(), todo.isDone());
+		if (updated == TodoUpdateService.Result.CONFLICT) {
+			Todo current = todoStore.findById(todo.getId());
+			if (current != null) {
+				todo.setVersion(current.getVersion());
+				result.reject("todo.conflict", "This todo was changed since you opened it. Submit again to overwrite the changes.");
+				return "todo";
+			}
+		}
 		return "redirect:list-todos";
 	}
 
@@ -0,0 +1,15 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import java.time.LocalDate;
+
+/**
+ * Number of todos sharing an owner, a target date and a status, as counted by
+ * a GROUP BY query (see TodoRepository#countByUsernameAndTargetDateAndDone).
+ *
+ * @param username the owner of the todos
+ * @param targetDate the target date of the todos, may be null
+ * @param done the status of the todos
+ * @param count the number of todos
+ */
+public record TodoCount(String username, LocalDate targetDate, boolean done, long count) {
+}
@@ -0,0 +1,68 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Position of a Todo item in the list ordering (target date, then id), used as the
+ * seek key for keyset pagination. A cursor is passed between requests in its encoded
+ * form, for example {@code 2025-03-01_1002}.
+ *
+ * @param targetDate the target date of the Todo item at the cursor position
+ * @param id the id of the Todo item at the cursor position
+ */
+public record TodoCursor(LocalDate targetDate, int id) {
+
+    private static final char SEPARATOR = '_';
+
+    /**
+     * Creates a cursor pointing at the given Todo item.
+     *
+     * @param todo the Todo item
+     * @return the cursor for the item
+     */
+    public static TodoCursor of(TodoSummary todo) {
+        return new TodoCursor(todo.getTargetDate(), todo.getId());
+    }
+
+    /**
+     * Creates a cursor for the position right after this one, before any later Todo item.
+     * A page that ends before it includes the item at this position.
+     *
+     * @return the cursor following this one
+     */
+    public TodoCursor next() {
+        return new TodoCursor(targetDate, id + 1);
+    }
+
+    /**
+     * Decodes a cursor from its request parameter form.
+     *
+     * @param value the encoded cursor, may be null or empty
+     * @return the decoded cursor, or null if the value is missing or malformed
+     */
+    public static TodoCursor decode(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        int separator = value.lastIndexOf(SEPARATOR);
+        if (separator <= 0) {
+            return null;
+        }
+        try {
+            return new TodoCursor(LocalDate.parse(value.substring(0, separator)),
+                    Integer.parseInt(value.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Encodes this cursor for use as a request parameter.
+     *
+     * @return the encoded cursor
+     */
+    public String encode() {
+        return targetDate.toString() + SEPARATOR + id;
+    }
+}
@@ -0,0 +1,44 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that turns every insert, update and delete of a Todo entity
+ * into a {@link TodoChangedEvent}, whichever code path wrote it through TodoRepository.
+ *
+ * Hibernate obtains the listener from the Spring context, so it can use the
+ * application event publisher.
+ */
+@Component
+public class TodoEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public TodoEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    public void afterInsert(Todo todo) {
+        publish(TodoChangedEvent.Type.CREATED, todo);
+    }
+
+    @PostUpdate
+    public void afterUpdate(Todo todo) {
+        publish(TodoChangedEvent.Type.UPDATED, todo);
+    }
+
+    @PostRemove
+    public void afterDelete(Todo todo) {
+        publish(TodoChangedEvent.Type.DELETED, todo);
+    }
+
+    private void publish(TodoChangedEvent.Type type, Todo todo) {
+        eventPublisher.publishEvent(new TodoChangedEvent(type, todo.getId(), todo.getUsername()));
+    }
+}
@@ -0,0 +1,56 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import java.util.List;
+
+/**
+ * One page of a user's Todo items in list order, together with the cursors
+ * needed to request the neighbouring pages.
+ *
+ * The getters follow JavaBean naming so the page can be used directly from JSP EL.
+ */
+public class TodoPage {
+
+    private final List<TodoSummary> todos;
+    private final int size;
+    private final String previousCursor;
+    private final String nextCursor;
+
+    /**
+     * Constructs a new TodoPage.
+     *
+     * @param todos the Todo items on this page, in list order
+     * @param size the requested page size
+     * @param previousCursor the cursor to request the previous page with, or null if this is the first page
+     * @param nextCursor the cursor to request the next page with, or null if this is the last page
+     */
+    public TodoPage(List<TodoSummary> todos, int size, String previousCursor, String nextCursor) {
+        this.todos = todos;
+        this.size = size;
+        this.previousCursor = previousCursor;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TodoSummary> getTodos() {
+        return todos;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getPreviousCursor() {
+        return previousCursor;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasPrevious() {
+        return previousCursor != null;
+    }
+
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,251 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Read side of the JPA backed Todo list.
+ *
+ * Pages are fetched with keyset (seek) pagination ordered by target date and id:
+ * every page is a single range scan on the (username, target_date, id) index that
+ * starts at the cursor, so the cost of a page does not grow with the number of
+ * items a user has or with how far they have paged.
+ *
+ * Pages hold {@link TodoSummary} projections read in a read-only transaction, so
+ * listing todos never hydrates managed entities and Hibernate skips flushing.
+ *
+ * Every user has a version that changes whenever one of their todos is added,
+ * updated or deleted. Versions are unique across users and, because they start at
+ * the startup time, are not reused after a restart, so they can serve as HTTP
+ * entity tags and as keys of rendered pages.
+ *
+ * Before reading, pending writes of the user or todo are awaited (see {@link TodoWriter}),
+ * so users always read their own writes, even with write-behind enabled.
+ *
+ * Pages and single todos are cached in bounded Caffeine caches (W-TinyLFU eviction
+ * with a time-to-live). Page keys carry the user's version, so a change invalidates
+ * exactly that user's pages; the stale entries are never read again and age out of
+ * the cache. Hit, miss and eviction counts are published to Micrometer as the
+ * {@code todoPages} and {@code todos} caches. Cached todos are never handed out:
+ * every caller gets its own copy, which it may change freely.
+ *
+ * Misses are read outside the caches through a {@link SingleFlight}, so concurrent
+ * misses of the same page or todo (several tabs, retries) share one query, and the
+ * query does not hold a lock of the cache while it waits for the database. A todo
+ * read while it changes is returned but not cached.
+ */
+@Service
+public class TodoQueryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final TodoRepository todoRepository;
+
+    private final TodoWriter todoWriter;
+
+    private final Cache<PageKey, TodoPage> pages;
+
+    private final Cache<Integer, Todo> todos;
+
+    private final SingleFlight<PageKey, TodoPage> pageReads;
+
+    private final SingleFlight<Integer, Todo> todoReads;
+
+    // Number of changes seen so far; a todo read while it changes is not cached
+    private final AtomicLong changes = new AtomicLong();
+
+    // Source of user versions, in microseconds since the epoch at startup
+    private final AtomicLong nextVersion = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    // Current version of each user's todos, replaced on every change to one of them.
+    // Evicting a version only makes the user's cached pages miss: the user gets a new one.
+    private final Cache<String, Long> versions;
+
+    @Autowired
+    public TodoQueryService(TodoRepository todoRepository, TodoWriter todoWriter, MeterRegistry meterRegistry,
+            @Value("${todo.cache.maximum-size:10000}") long maximumSize,
+            @Value("${todo.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this(todoRepository, todoWriter, meterRegistry, maximumSize, expireAfterWrite,
+                new SingleFlight<>(meterRegistry, "findById"));
+    }
+
+    /**
+     * Creates the service with the given SingleFlight for todo reads, so tests can
+     * interleave a read with a change.
+     */
+    TodoQueryService(TodoRepository todoRepository, TodoWriter todoWriter, MeterRegistry meterRegistry,
+            long maximumSize, Duration expireAfterWrite, SingleFlight<Integer, Todo> todoReads) {
+        this.todoRepository = todoRepository;
+        this.todoWriter = todoWriter;
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.todos = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "todoPages");
+        CaffeineCacheMetrics.monitor(meterRegistry, todos, "todos");
+        this.pageReads = new SingleFlight<>(meterRegistry, "findPage");
+        this.todoReads = todoReads;
+    }
+
+    /**
+     * Finds one page of the given user's Todo items.
+     *
+     * If a {@code before} cursor is given, the page ends just before that position;
+     * otherwise, if an {@code after} cursor is given, the page starts just after it;
+     * otherwise the first page is returned. Malformed cursors are treated as missing.
+     *
+     * @param username the owner of the Todo items
+     * @param after the encoded cursor the page starts after, may be null
+     * @param before the encoded cursor the page ends before, may be null
+     * @param size the requested page size, clamped to 1..{@value #MAX_PAGE_SIZE}
+     * @return the requested page
+     */
+    public TodoPage findPage(String username, String after, String before, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        TodoCursor afterCursor = TodoCursor.decode(after);
+        TodoCursor beforeCursor = TodoCursor.decode(before);
+        PageKey key = new PageKey(username, getVersion(username),
+                beforeCursor == null ? afterCursor : null, beforeCursor, pageSize);
+        TodoPage page = pages.getIfPresent(key);
+        if (page == null) {
+            // The key carries the version, so a page read meanwhile is never stale for it
+            page = pageReads.execute(key, () -> loadPage(key));
+            pages.put(key, page);
+        }
+        return page;
+    }
+
+    /**
+     * Returns the current version of the given user's Todo items.
+     * The version changes whenever one of the items is added, updated or deleted,
+     * and no two users share a version. Pending writes of the user are written first.
+     *
+     * @param username the owner of the Todo items
+     * @return the current version
+     */
+    public long getVersion(String username) {
+        todoWriter.awaitWrites(username);
+        return versions.get(username, key -> nextVersion.incrementAndGet());
+    }
+
+    /**
+     * Finds a Todo item by its ID.
+     *
+     * @param id the ID of the Todo item to find
+     * @return a copy of the Todo item with the given ID, or null if not found
+     */
+    public Todo findById(int id) {
+        todoWriter.awaitWrite(id);
+        Todo todo = todos.getIfPresent(id);
+        if (todo == null) {
+            long seen = changes.get();
+            todo = todoReads.execute(id, () -> todoRepository.findById(id).orElse(null));
+            // A change announced during the read may not be in the result; leave it uncached.
+            // A change announced after this check invalidates the entry again.
+            if (todo != null && changes.get() == seen) {
+                todos.put(id, todo);
+            }
+        }
+        return todo == null ? null : copy(todo);
+    }
+
+    /**
+     * Drops the cached state affected by a committed change to a Todo item.
+     * Runs before other listeners of the event, so they read the changed state.
+     *
+     * @param event the change event
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTodoChanged(TodoChangedEvent event) {
+        // In this order: a read that sees the new count cannot join a read from before the
+        // change, and a read that saw the old count and cached anyway is invalidated after
+        todoReads.forget(event.id());
+        changes.incrementAndGet();
+        todos.invalidate(event.id());
+        versions.asMap().merge(event.username(), nextVersion.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * Loads a page from the database.
+     *
+     * @param key the page to load
+     * @return the loaded page
+     */
+    private TodoPage loadPage(PageKey key) {
+        int pageSize = key.size();
+        // Fetch one extra row to find out whether there is another page in the scan direction
+        Limit limit = Limit.of(pageSize + 1);
+
+        TodoCursor beforeCursor = key.before();
+        if (beforeCursor != null) {
+            List<TodoSummary> todos = new ArrayList<>(todoRepository.findPageBefore(
+                    key.username(), beforeCursor.targetDate(), beforeCursor.id(), limit));
+            boolean hasPrevious = todos.size() > pageSize;
+            if (hasPrevious) {
+                todos.remove(pageSize);
+            }
+            Collections.reverse(todos);
+            return new TodoPage(todos, pageSize,
+                    hasPrevious ? TodoCursor.of(todos.get(0)).encode() : null,
+                    todos.isEmpty() ? null : TodoCursor.of(todos.get(todos.size() - 1)).encode());
+        }
+
+        TodoCursor afterCursor = key.after();
+        List<TodoSummary> todos = new ArrayList<>(afterCursor == null
+                ? todoRepository.findFirstPage(key.username(), limit)
+                : todoRepository.findPageAfter(key.username(), afterCursor.targetDate(), afterCursor.id(), limit));
+        boolean hasNext = todos.size() > pageSize;
+        if (hasNext) {
+            todos.remove(pageSize);
+        }
+
+        String previousCursor = null;
+        if (afterCursor != null) {
+            // Past the end, the previous page ends with the todo at the cursor
+            previousCursor = todos.isEmpty() ? afterCursor.next().encode() : TodoCursor.of(todos.get(0)).encode();
+        }
+        return new TodoPage(todos, pageSize, previousCursor,
+                hasNext ? TodoCursor.of(todos.get(todos.size() - 1)).encode() : null);
+    }
+
+    private static Todo copy(Todo todo) {
+        Todo copy = new Todo(todo.getId(), todo.getUsername(), todo.getDescription(), todo.getTargetDate(),
+                todo.isDone());
+        copy.setVersion(todo.getVersion());
+        return copy;
+    }
+
+    /**
+     * Cache key of a page: the user, the version of their todos and the page position.
+     */
+    private record PageKey(String username, long version, TodoCursor after, TodoCursor before, int size) {
+    }
+}
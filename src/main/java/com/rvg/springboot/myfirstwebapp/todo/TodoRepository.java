@@ -1,14 +1,241 @@
 package com.rvg.springboot.myfirstwebapp.todo;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 /**
  * TodoRepository interface extends JpaRepository to provide CRUD operations for Todo entities.
- * It includes a custom method to find todos by username.
+ * It includes custom queries for the todo pages and the services built on them.
  */
 public interface TodoRepository extends JpaRepository<Todo, Integer> {
 
     public List<Todo> findByUsername(String username);
+
+    public boolean existsByIdAndUsername(int id, String username);
+
+    /**
+     * Finds some of a user's todos by id, as read-only summaries.
+     *
+     * @param username the owner of the todos
+     * @param ids the ids of the todos
+     * @return the todos that exist and belong to the user, in no particular order
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.rvg.springboot.myfirstwebapp.todo.TodoSummary(t.id, t.description, t.targetDate, t.done)"
+            + " from Todo t where t.username = :username and t.id in :ids")
+    public List<TodoSummary> findSummaries(@Param("username") String username, @Param("ids") Collection<Integer> ids);
+
+    /**
+     * Finds a user's todos in a range of ids, as read-only summaries. The range is one
+     * scan of the primary key index.
+     *
+     * @param username the owner of the todos
+     * @param first the first id of the range
+     * @param last the last id of the range
+     * @return the todos in the range that belong to the user, in no particular order
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.rvg.springboot.myfirstwebapp.todo.TodoSummary(t.id, t.description, t.targetDate, t.done)"
+            + " from Todo t where t.username = :username and t.id between :first and :last")
+    public List<TodoSummary> findSummariesBetween(@Param("username") String username, @Param("first") int first,
+            @Param("last") int last);
+
+    /**
+     * Finds some of a user's todos by id, as read-only summaries. Runs of consecutive
+     * ids, such as the todos of a bulk import, are read as ranges of the primary key;
+     * the other ids are read with IN lists of bounded length.
+     *
+     * @param username the owner of the todos
+     * @param ids the ids of the todos
+     * @return the todos that exist and belong to the user, in no particular order
+     */
+    public default List<TodoSummary> findSummariesByIds(String username, Collection<Integer> ids) {
+        // Ids are read as a range when at least this many are consecutive
+        int minRangeSize = 16;
+        int inListSize = 500;
+
+        List<TodoSummary> todos = new ArrayList<>(ids.size());
+        List<Integer> scattered = new ArrayList<>();
+        List<Integer> sorted = ids.stream().sorted().toList();
+        int start = 0;
+        for (int i = 1; i <= sorted.size(); i++) {
+            if (i < sorted.size() && sorted.get(i) == sorted.get(i - 1) + 1) {
+                continue;
+            }
+            // sorted[start..i) is a run of consecutive ids
+            if (i - start >= minRangeSize) {
+                todos.addAll(findSummariesBetween(username, sorted.get(start), sorted.get(i - 1)));
+            } else {
+                scattered.addAll(sorted.subList(start, i));
+            }
+            start = i;
+        }
+        for (int from = 0; from < scattered.size(); from += inListSize) {
+            todos.addAll(findSummaries(username, scattered.subList(from, Math.min(from + inListSize, scattered.size()))));
+        }
+        return todos;
+    }
+
+    /**
+     * Finds the todos of all users that come after an id, in id order. Used to walk
+     * the whole table in batches, each batch a range scan on the primary key.
+     *
+     * @param id the id the batch starts after
+     * @param limit the maximum number of todos to return
+     * @return the todos, ordered by id
+     */
+    @Transactional(readOnly = true)
+    public List<Todo> findByIdGreaterThanOrderByIdAsc(int id, Limit limit);
+
+    /**
+     * Finds the todos of a user that come after an id, in id order. Used to move a
+     * user's todos to another node in batches.
+     *
+     * @param username the owner of the todos
+     * @param id the id the batch starts after
+     * @param limit the maximum number of todos to return
+     * @return the todos, ordered by id
+     */
+    @Transactional(readOnly = true)
+    public List<Todo> findByUsernameAndIdGreaterThanOrderByIdAsc(String username, int id, Limit limit);
+
+    /**
+     * Finds the todos that come after an id and are due for the archive: done todos with
+     * a target date before doneBefore, and any todo with a target date before staleBefore.
+     * The todos are locked until the end of the transaction, so they cannot be changed
+     * between being copied to the archive and being deleted.
+     *
+     * @param id the id the batch starts after
+     * @param doneBefore done todos with an earlier target date are returned
+     * @param staleBefore todos with an earlier target date are returned, done or not
+     * @param limit the maximum number of todos to return
+     * @return the todos, ordered by id
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Todo t where t.id > :id"
+            + " and ((t.done = true and t.targetDate < :doneBefore) or t.targetDate < :staleBefore)"
+            + " order by t.id asc")
+    public List<Todo> findArchivable(@Param("id") int id, @Param("doneBefore") LocalDate doneBefore,
+            @Param("staleBefore") LocalDate staleBefore, Limit limit);
+
+    /**
+     * Finds the owners of all todos.
+     *
+     * @return every username that owns at least one todo, in no particular order
+     */
+    @Transactional(readOnly = true)
+    @Query("select distinct t.username from Todo t")
+    public List<String> findUsernames();
+
+    /**
+     * Counts the todos of all users per owner, target date and status. The result has
+     * one row per distinct combination, however many todos there are.
+     *
+     * @return the counts, in no particular order
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.rvg.springboot.myfirstwebapp.todo.TodoCount(t.username, t.targetDate, t.done, count(t))"
+            + " from Todo t group by t.username, t.targetDate, t.done")
+    public List<TodoCount> countByUsernameAndTargetDateAndDone();
+
+    /**
+     * Changes some fields of a user's todo with a single UPDATE statement, if the todo
+     * still has the expected version. Null values leave a field unchanged. The version
+     * is incremented, as Hibernate does for entity updates.
+     *
+     * The statement bypasses the persistence context and the entity listener: callers
+     * must publish the TodoChangedEvent themselves (see TodoUpdateService).
+     *
+     * @param id the id of the todo
+     * @param username the owner of the todo
+     * @param version the expected version, or null to update whatever the version
+     * @param description the new description, or null
+     * @param targetDate the new target date, or null
+     * @param done the new status, or null
+     * @return 1 if the todo was updated, 0 if it does not exist, belongs to another user or has another version
+     */
+    @Modifying
+    @Transactional
+    @Query("update Todo t set t.description = coalesce(:description, t.description),"
+            + " t.targetDate = coalesce(:targetDate, t.targetDate), t.done = coalesce(:done, t.done),"
+            + " t.version = t.version + 1"
+            + " where t.id = :id and t.username = :username and (:version is null or t.version = :version)")
+    public int updateIfCurrent(@Param("id") int id, @Param("username") String username,
+            @Param("version") Integer version, @Param("description") String description,
+            @Param("targetDate") LocalDate targetDate, @Param("done") Boolean done);
+
+    /**
+     * Finds the first todos of a user in list order, as read-only summaries.
+     *
+     * @param username the owner of the todos
+     * @param limit the maximum number of todos to return
+     * @return the todos, ordered by target date and id
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.rvg.springboot.myfirstwebapp.todo.TodoSummary(t.id, t.description, t.targetDate, t.done)"
+            + " from Todo t where t.username = :username order by t.targetDate asc, t.id asc")
+    public List<TodoSummary> findFirstPage(@Param("username") String username, Limit limit);
+
+    /**
+     * Finds the todos of a user that come after the given position in list order, as read-only summaries.
+     *
+     * @param username the owner of the todos
+     * @param targetDate the target date of the cursor position
+     * @param id the id of the cursor position
+     * @param limit the maximum number of todos to return
+     * @return the todos, ordered by target date and id
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.rvg.springboot.myfirstwebapp.todo.TodoSummary(t.id, t.description, t.targetDate, t.done)"
+            + " from Todo t where t.username = :username"
+            + " and (t.targetDate > :targetDate or (t.targetDate = :targetDate and t.id > :id))"
+            + " order by t.targetDate asc, t.id asc")
+    public List<TodoSummary> findPageAfter(@Param("username") String username, @Param("targetDate") LocalDate targetDate,
+            @Param("id") int id, Limit limit);
+
+    /**
+     * Finds the todos of a user that come before the given position in list order, as read-only summaries.
+     *
+     * @param username the owner of the todos
+     * @param targetDate the target date of the cursor position
+     * @param id the id of the cursor position
+     * @param limit the maximum number of todos to return
+     * @return the todos, in reverse list order (closest to the cursor first)
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.rvg.springboot.myfirstwebapp.todo.TodoSummary(t.id, t.description, t.targetDate, t.done)"
+            + " from Todo t where t.username = :username"
+            + " and (t.targetDate < :targetDate or (t.targetDate = :targetDate and t.id < :id))"
+            + " order by t.targetDate desc, t.id desc")
+    public List<TodoSummary> findPageBefore(@Param("username") String username, @Param("targetDate") LocalDate targetDate,
+            @Param("id") int id, Limit limit);
+
+    /**
+     * Streams all todos of a user in list order, as read-only summaries.
+     * Rows are fetched through a database cursor; the stream must be consumed and closed
+     * inside a transaction.
+     *
+     * @param username the owner of the todos
+     * @return the todos, ordered by target date and id
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.rvg.springboot.myfirstwebapp.todo.TodoSummary(t.id, t.description, t.targetDate, t.done)"
+            + " from Todo t where t.username = :username order by t.targetDate asc, t.id asc")
+    public Stream<TodoSummary> streamByUsername(@Param("username") String username);
 }
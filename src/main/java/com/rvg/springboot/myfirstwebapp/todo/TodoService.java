@@ -3,66 +3,93 @@ package com.rvg.springboot.myfirstwebapp.todo;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 
-import org.springframework.stereotype.Service;
+import com.rvg.springboot.myfirstwebapp.todo.store.TodoStore;
 
 import jakarta.validation.Valid;
 
 /**
  * Service class for managing Todo items.
  * Provides methods to add, find, update, and delete Todo items.
- * 
- * This class uses an in-memory list to store Todo items and is not thread-safe.
- * 
+ *
+ * Todo items are kept in memory in a concurrent primary map keyed by id, with a
+ * secondary index of ids per username. Lookups by id and by username do not scan
+ * the whole store, and every mutation of a single id is applied atomically, so the
+ * service can be shared safely by all request threads.
+ *
  * Methods:
  * - findByUsername(String username): Finds and returns a list of Todo objects that match the given username.
  * - addTodo(String username, String description, LocalDate targetDate, boolean done): Adds a new Todo item.
  * - deleteById(int id): Deletes a Todo item by its ID.
+ * - deleteById(int id, String username): Deletes a user's Todo item by its ID.
  * - findById(int id): Finds a Todo item by its ID.
  * - updateTodo(@Valid Todo todo): Updates an existing Todo item.
- * 
+ * - updateIfVersion(int id, String username, int expectedVersion, ...): Updates a user's Todo item if its version is unchanged.
+ *
  * Fields:
- * - todos: A static list of Todo items.
- * - todosCount: A static counter for the number of Todo items.
+ * - todosById: The primary map of Todo items keyed by id.
+ * - idsByUsername: The secondary index of Todo ids per (case-insensitive) username, ordered by id.
+ * - todosCount: An atomic generator for Todo ids.
  * - logger: A logger for logging messages.
- * 
- * Note: This class is annotated with @Service to indicate that it's a Spring service component.
+ *
+ * Note: This class is the in-memory TodoStore. It is created by TodoStoreConfiguration
+ * when todo.store=memory, rather than being a component of its own.
  */
-@Service
-public class TodoService {
-    // A static list of Todo items
-    private static List<Todo> todos = new ArrayList<>();
+public class TodoService implements TodoStore {
+    // The primary map of Todo items keyed by id
+    private final ConcurrentMap<Integer, Todo> todosById = new ConcurrentHashMap<>();
 
-    // A static counter for the number of Todo items
-    private static int todosCount = 0;
+    // The secondary index of Todo ids per username; ids are kept sorted to preserve insertion order
+    private final ConcurrentMap<String, NavigableSet<Integer>> idsByUsername = new ConcurrentHashMap<>();
+
+    // An atomic generator for Todo ids
+    private final AtomicInteger todosCount = new AtomicInteger();
 
     // A logger for logging messages
     Logger logger = Logger.getLogger(TodoService.class.getName());
 
-    // Static block to initialize the list of Todo items
-    static {
-        todos.add(new Todo(++todosCount, "rvg", "Learn AWS1", LocalDate.now().plusYears(1), false));
-        todos.add(new Todo(++todosCount, "rvg", "Learn Docker1", LocalDate.now().plusMonths(6), false));
-        todos.add(new Todo(++todosCount, "rvg", "Learn Kubernetes1", LocalDate.now().plusMonths(9), false));
-        todos.add(new Todo(++todosCount, "rvg", "Learn Spring Boot1", LocalDate.now().plusMonths(3), false));
+    // Constructor to initialize the store with some Todo items
+    public TodoService() {
+        addTodo("rvg", "Learn AWS1", LocalDate.now().plusYears(1), false);
+        addTodo("rvg", "Learn Docker1", LocalDate.now().plusMonths(6), false);
+        addTodo("rvg", "Learn Kubernetes1", LocalDate.now().plusMonths(9), false);
+        addTodo("rvg", "Learn Spring Boot1", LocalDate.now().plusMonths(3), false);
     }
 
     /**
      * Finds and returns a list of Todo objects that match the given username.
      *
      * @param username the username to filter the Todo objects by
-     * @return a list of Todo objects that belong to the specified username, or an empty list if an exception occurs
+     * @return a list of Todo objects that belong to the specified username, in the order they were added
      */
+    @Override
     public List<Todo> findByUsername(String username) {
-        try {
-            return todos.stream()
-                        .filter(todo -> todo.getUsername().equalsIgnoreCase(username))
-                        .toList();
-        } catch (Exception e) {
-            logger.info(e.getMessage());
+        if (username == null) {
             return new ArrayList<>();
         }
+
+        NavigableSet<Integer> ids = idsByUsername.get(indexKey(username));
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+
+        List<Todo> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Todo todo = todosById.get(id);
+            // The index and the primary map are not updated as one unit, so skip entries that moved or vanished meanwhile
+            if (todo != null && username.equalsIgnoreCase(todo.getUsername())) {
+                result.add(todo);
+            }
+        }
+        return result;
     }
 
     /**
@@ -72,14 +99,16 @@ public class TodoService {
      * @param description the description of the Todo item
      * @param targetDate the target date of the Todo item
      * @param done the status of the Todo item
+     * @return the added Todo item
      */
-    public void addTodo(String username, String description, LocalDate targetDate, boolean done) {
-        try {
-            Todo todo = new Todo(++todosCount, username, description, targetDate, done);
-            todos.add(todo);
-        } catch (Exception e) {
-            logger.info(e.getMessage());
-        }
+    @Override
+    public Todo addTodo(String username, String description, LocalDate targetDate, boolean done) {
+        Todo todo = new Todo(todosCount.incrementAndGet(), username, description, targetDate, done);
+        todosById.compute(todo.getId(), (id, previous) -> {
+            index(todo);
+            return todo;
+        });
+        return todo;
     }
 
     /**
@@ -87,12 +116,30 @@ public class TodoService {
      *
      * @param id the ID of the Todo item to delete
      */
+    @Override
     public void deleteById(int id) {
-        try {
-            todos.removeIf(todo -> todo.getId() == id);
-        } catch (Exception e) {
-            logger.info(e.getMessage());
-        }
+        todosById.computeIfPresent(id, (key, previous) -> {
+            unindex(previous);
+            return null;
+        });
+    }
+
+    /**
+     * Deletes a user's Todo item by its ID. The owner is checked while the map entry for
+     * the id is locked, so the item cannot change hands in between.
+     *
+     * @param id the ID of the Todo item to delete
+     * @param username the user who deletes it
+     */
+    @Override
+    public void deleteById(int id, String username) {
+        todosById.computeIfPresent(id, (key, previous) -> {
+            if (!previous.getUsername().equals(username)) {
+                return previous;
+            }
+            unindex(previous);
+            return null;
+        });
     }
 
     /**
@@ -101,31 +148,98 @@ public class TodoService {
      * @param id the ID of the Todo item to find
      * @return the Todo item with the given ID, or null if not found
      */
+    @Override
     public Todo findById(int id) {
-        try {
-            return todos.stream()
-                        .filter(todo -> todo.getId() == id)
-                        .findFirst()
-                        .orElse(null);
-        } catch (Exception e) {
-            logger.info(e.getMessage());
-            return null;
-        }
+        return todosById.get(id);
     }
 
     /**
-     * Updates an existing Todo item. The method first deletes the Todo item with the same ID
-     * and then adds the updated Todo item to the list. If an exception occurs during the process,
-     * it logs the exception message.
+     * Updates an existing Todo item. The stored item with the same ID is replaced atomically,
+     * and the username index is moved if the owner of the item changed. If no item exists
+     * with that ID, the given item is added.
      *
      * @param todo the Todo item to be updated
      */
-	public void updateTodo(@Valid Todo todo) {
-		try {
-			deleteById(todo.getId());
-			todos.add(todo);
-		} catch (Exception e) {
-			logger.info(e.getMessage());
-		}
-	}
+    @Override
+    public void updateTodo(@Valid Todo todo) {
+        todosById.compute(todo.getId(), (id, previous) -> {
+            if (previous != null && !indexKey(previous.getUsername()).equals(indexKey(todo.getUsername()))) {
+                unindex(previous);
+            }
+            index(todo);
+            return todo;
+        });
+    }
+
+    /**
+     * Updates a user's Todo item if it still has the expected version. The version is checked
+     * and the item replaced while the map entry for the id is locked, so concurrent updates
+     * and deletes of the same item are applied one after the other.
+     *
+     * @param id the ID of the Todo item
+     * @param username the owner of the Todo item
+     * @param expectedVersion the version the caller read
+     * @param description the new description
+     * @param targetDate the new target date
+     * @param done the new status
+     * @return UPDATED, NOT_FOUND if the user has no item with this ID, or CONFLICT if its version changed
+     */
+    @Override
+    public TodoUpdateService.Result updateIfVersion(int id, String username, int expectedVersion, String description,
+            LocalDate targetDate, boolean done) {
+        AtomicReference<TodoUpdateService.Result> result = new AtomicReference<>(TodoUpdateService.Result.NOT_FOUND);
+        todosById.computeIfPresent(id, (key, current) -> {
+            if (!current.getUsername().equals(username)) {
+                return current;
+            }
+            if (current.getVersion() != expectedVersion) {
+                result.set(TodoUpdateService.Result.CONFLICT);
+                return current;
+            }
+            // A new object, so readers holding the old one never see it half changed
+            Todo updated = new Todo(id, current.getUsername(), description, targetDate, done);
+            updated.setVersion(expectedVersion + 1);
+            result.set(TodoUpdateService.Result.UPDATED);
+            return updated;
+        });
+        return result.get();
+    }
+
+    /**
+     * Adds the id of the given Todo item to the index of its username.
+     * Called while the primary map entry for the id is locked.
+     *
+     * @param todo the Todo item to index
+     */
+    private void index(Todo todo) {
+        idsByUsername.compute(indexKey(todo.getUsername()), (key, ids) -> {
+            NavigableSet<Integer> updated = ids != null ? ids : new ConcurrentSkipListSet<>();
+            updated.add(todo.getId());
+            return updated;
+        });
+    }
+
+    /**
+     * Removes the id of the given Todo item from the index of its username,
+     * dropping the index entry once the user has no items left.
+     * Called while the primary map entry for the id is locked.
+     *
+     * @param todo the Todo item to remove from the index
+     */
+    private void unindex(Todo todo) {
+        idsByUsername.computeIfPresent(indexKey(todo.getUsername()), (key, ids) -> {
+            ids.remove(todo.getId());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Returns the index key for a username. Usernames are matched case-insensitively.
+     *
+     * @param username the username
+     * @return the normalized index key
+     */
+    private static String indexKey(String username) {
+        return username == null ? "" : username.toLowerCase(Locale.ROOT);
+    }
 }
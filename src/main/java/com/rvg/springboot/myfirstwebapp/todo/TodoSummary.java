@@ -0,0 +1,49 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only view of a Todo item with just the fields shown on the list page.
+ *
+ * Instances are created by JPQL constructor expressions, so they are plain objects
+ * that never enter the persistence context: Hibernate keeps no entity snapshot for
+ * them and has nothing to dirty-check or flush.
+ */
+public class TodoSummary {
+
+    private final int id;
+    private final String description;
+    private final LocalDate targetDate;
+    private final boolean done;
+
+    /**
+     * Constructs a new TodoSummary.
+     *
+     * @param id the unique identifier of the todo item
+     * @param description a brief description of the todo item
+     * @param targetDate the target date for completing the todo item
+     * @param done the status indicating whether the todo item is completed
+     */
+    public TodoSummary(int id, String description, LocalDate targetDate, boolean done) {
+        this.id = id;
+        this.description = description;
+        this.targetDate = targetDate;
+        this.done = done;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public LocalDate getTargetDate() {
+        return targetDate;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+}
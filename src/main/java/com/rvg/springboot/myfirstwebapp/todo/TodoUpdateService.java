@@ -0,0 +1,63 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import java.time.LocalDate;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Changes existing todos with one conditional UPDATE statement instead of loading them first.
+ *
+ * Saving a detached Todo makes Hibernate select the row, merge it and write every column:
+ * two round trips per edit. Here the new values, the owner and the expected version go
+ * into the WHERE clause of a single UPDATE. When no row matches, a second query, made only
+ * on that rare path, tells a missing todo from one that was changed by someone else since
+ * the caller read it.
+ *
+ * The UPDATE bypasses the entity listener, so the TodoChangedEvent is published here,
+ * inside the transaction; listeners still only see it once the change is committed.
+ *
+ * Methods:
+ * - update(int id, String username, Integer version, String description, LocalDate targetDate, Boolean done): Changes some fields of a todo.
+ */
+@Service
+public class TodoUpdateService {
+
+    /**
+     * The outcome of an update.
+     */
+    public enum Result {
+        UPDATED, NOT_FOUND, CONFLICT
+    }
+
+    private final TodoRepository todoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public TodoUpdateService(TodoRepository todoRepository, ApplicationEventPublisher eventPublisher) {
+        this.todoRepository = todoRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Changes some fields of a user's todo, if it still has the expected version.
+     * Null values leave a field unchanged. On success the todo's version is incremented by one.
+     *
+     * @param id the id of the todo
+     * @param username the owner of the todo
+     * @param version the version the caller read, or null to overwrite whatever the version
+     * @param description the new description, or null
+     * @param targetDate the new target date, or null
+     * @param done the new status, or null
+     * @return UPDATED, NOT_FOUND if the user has no todo with this id, or CONFLICT if its version changed
+     */
+    @Transactional
+    public Result update(int id, String username, Integer version, String description, LocalDate targetDate,
+            Boolean done) {
+        if (todoRepository.updateIfCurrent(id, username, version, description, targetDate, done) == 0) {
+            return todoRepository.existsByIdAndUsername(id, username) ? Result.CONFLICT : Result.NOT_FOUND;
+        }
+        eventPublisher.publishEvent(new TodoChangedEvent(TodoChangedEvent.Type.UPDATED, id, username));
+        return Result.UPDATED;
+    }
+}
@@ -0,0 +1,56 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+/**
+ * Applies the changes users make to their todos through the pages.
+ *
+ * By default changes are written to the database right away (DirectTodoWriter). With
+ * todo.write-behind.enabled=true they are queued, coalesced and written in batches
+ * (WriteBehindTodoWriter); readers then call {@link #awaitWrites(String)} or
+ * {@link #awaitWrite(int)} first, so users always read their own writes.
+ *
+ * Methods:
+ * - create(Todo todo): Saves a new todo.
+ * - update(Todo todo): Saves the new state of an existing todo, unless it was changed since it was read.
+ * - delete(int id, String username): Deletes a todo.
+ * - awaitWrites(String username): Waits until all changes of a user are in the database.
+ * - awaitWrite(int id): Waits until all changes to a todo are in the database.
+ */
+public interface TodoWriter {
+
+    /**
+     * Saves a new todo.
+     *
+     * @param todo the todo, with its owner set
+     */
+    void create(Todo todo);
+
+    /**
+     * Saves the new state of an existing todo, if it still has the version the user edited.
+     *
+     * @param todo the todo, with its id, owner and the version it was read with set
+     * @return UPDATED, NOT_FOUND if the user has no todo with this id, or CONFLICT if it was changed meanwhile
+     */
+    TodoUpdateService.Result update(Todo todo);
+
+    /**
+     * Deletes a todo. Todos of other users are left alone.
+     *
+     * @param id the id of the todo
+     * @param username the user who deletes it
+     */
+    void delete(int id, String username);
+
+    /**
+     * Waits until all changes made by a user are in the database.
+     *
+     * @param username the user
+     */
+    void awaitWrites(String username);
+
+    /**
+     * Waits until all changes to a todo are in the database.
+     *
+     * @param id the id of the todo
+     */
+    void awaitWrite(int id);
+}
@@ -0,0 +1,13 @@
+package com.rvg.springboot.myfirstwebapp.todo.api;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch of changes.
+ *
+ * @param created the ids of the created todos, in request order
+ * @param updated the number of updated todos
+ * @param deleted the number of deleted todos
+ */
+public record BatchResult(List<Integer> created, int updated, int deleted) {
+}
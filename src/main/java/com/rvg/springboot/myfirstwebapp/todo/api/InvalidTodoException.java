@@ -0,0 +1,21 @@
+package com.rvg.springboot.myfirstwebapp.todo.api;
+
+import java.util.List;
+
+/**
+ * Thrown when a request to the todo API cannot be applied, for example because a
+ * todo fails validation or a batch refers to a todo the user does not own.
+ */
+public class InvalidTodoException extends RuntimeException {
+
+    private final List<String> errors;
+
+    public InvalidTodoException(List<String> errors) {
+        super(String.join("; ", errors));
+        this.errors = List.copyOf(errors);
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,303 @@
+package com.rvg.springboot.myfirstwebapp.todo.api;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.rvg.springboot.myfirstwebapp.todo.TodoPage;
+import com.rvg.springboot.myfirstwebapp.todo.TodoQueryService;
+import com.rvg.springboot.myfirstwebapp.todo.TodoSummary;
+import com.rvg.springboot.myfirstwebapp.todo.TodoUpdateService;
+import com.rvg.springboot.myfirstwebapp.todo.search.TodoSearchService;
+import com.rvg.springboot.myfirstwebapp.todo.stats.TodoStatistics;
+import com.rvg.springboot.myfirstwebapp.todo.store.TodoStoreConfiguration;
+import com.rvg.springboot.myfirstwebapp.todo.transfer.TodoExporter;
+import com.rvg.springboot.myfirstwebapp.todo.transfer.TodoRecord;
+
+/**
+ * This controller exposes the logged-in user's todos as a JSON API under /api/todos.
+ *
+ * Handlers return CompletableFutures completed on virtual threads by TodoApiService,
+ * so Tomcat's request threads are released while the database is queried. The full
+ * list is streamed: todos are serialized as they are read from the database cursor.
+ * Clients that keep a list open follow /api/todos/events instead of polling.
+ *
+ * A single todo is returned with its version as ETag. Sending that ETag back in an
+ * If-Match header makes PUT and PATCH conditional: if the todo was changed meanwhile,
+ * nothing is written and the answer is 412 Precondition Failed.
+ *
+ * Methods:
+ * - listTodos(String after, String before, int size): Returns one page of todos with cursors to the neighbouring pages.
+ * - streamTodos(): Streams all todos as one JSON array.
+ * - searchTodos(String q, int limit): Returns the todos best matching a full-text query.
+ * - getStatistics(): Returns the counts of the todos (total, done, overdue, due this week).
+ * - getTodo(int id): Returns one todo.
+ * - createTodo(TodoRecord todo): Creates a todo.
+ * - updateTodo(int id, String ifMatch, TodoRecord todo): Replaces a todo.
+ * - patchTodo(int id, String ifMatch, TodoPatch patch): Changes some fields of a todo.
+ * - deleteTodo(int id): Deletes a todo.
+ * - applyBatch(TodoBatch batch): Creates, updates and deletes several todos in one transaction.
+ * - streamChanges(): Pushes changes to the todos as server-sent events.
+ *
+ * Example, with the credentials of a user:
+ * curl -u rvg:asdf 'localhost:8080/api/todos?size=50'
+ * curl -u rvg:asdf -H 'Content-Type: application/json' -d '{"description":"Learn the API","targetDate":"2026-01-31","done":false}' localhost:8080/api/todos
+ * curl -u rvg:asdf -X PATCH -H 'If-Match: "0"' -H 'Content-Type: application/json' -d '{"done":true}' localhost:8080/api/todos/1001
+ */
+@RestController
+@ConditionalOnExpression(TodoStoreConfiguration.DATABASE)
+@RequestMapping("api/todos")
+public class TodoApiController {
+
+    private final TodoApiService todoApiService;
+    private final TodoExporter todoExporter;
+    private final TodoChangeStream todoChangeStream;
+
+    public TodoApiController(TodoApiService todoApiService, TodoExporter todoExporter,
+            TodoChangeStream todoChangeStream) {
+        this.todoApiService = todoApiService;
+        this.todoExporter = todoExporter;
+        this.todoChangeStream = todoChangeStream;
+    }
+
+    /**
+     * Returns one page of the user's todos, ordered by target date.
+     *
+     * @param after the cursor the page starts after, if any
+     * @param before the cursor the page ends before, if any
+     * @param size the number of todos per page
+     * @return the page, with the cursors of the previous and next pages
+     */
+    @RequestMapping(method = RequestMethod.GET)
+    public CompletableFuture<TodoPage> listTodos(@RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "" + TodoQueryService.DEFAULT_PAGE_SIZE) int size) {
+        return todoApiService.findPage(getLoggedInUserName(), after, before, size);
+    }
+
+    /**
+     * Streams all of the user's todos, ordered by target date, as one JSON array.
+     *
+     * @return the streamed todos
+     */
+    @RequestMapping(value = "stream", method = RequestMethod.GET)
+    public ResponseEntity<StreamingResponseBody> streamTodos() {
+        String username = getLoggedInUserName();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(output -> todoExporter.exportJsonArray(username, output));
+    }
+
+    /**
+     * Searches the descriptions of the user's todos. Every word of the query must
+     * appear in a description, as a word or the start of one.
+     *
+     * @param q the query
+     * @param limit the maximum number of todos to return
+     * @return the matching todos, best first
+     */
+    @RequestMapping(value = "search", method = RequestMethod.GET)
+    public CompletableFuture<List<TodoSummary>> searchTodos(@RequestParam String q,
+            @RequestParam(defaultValue = "" + TodoSearchService.DEFAULT_LIMIT) int limit) {
+        return todoApiService.search(getLoggedInUserName(), q, limit);
+    }
+
+    /**
+     * Returns the counts of the user's todos, kept up to date in memory.
+     *
+     * @return the counts
+     */
+    @RequestMapping(value = "stats", method = RequestMethod.GET)
+    public CompletableFuture<TodoStatistics> getStatistics() {
+        return todoApiService.statistics(getLoggedInUserName());
+    }
+
+    /**
+     * Returns one of the user's todos.
+     *
+     * @param id the id of the todo
+     * @return the todo with its version as ETag, or 404 if the user has no todo with this id
+     */
+    @RequestMapping(value = "{id}", method = RequestMethod.GET)
+    public CompletableFuture<ResponseEntity<TodoRecord>> getTodo(@PathVariable int id) {
+        return todoApiService.findById(getLoggedInUserName(), id)
+                .thenApply(todo -> todo
+                        .map(found -> ResponseEntity.ok()
+                                .eTag(Integer.toString(found.getVersion()))
+                                .body(TodoApiService.toRecord(found)))
+                        .orElseGet(() -> ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * Creates a todo for the user.
+     *
+     * @param todo the todo; its id is ignored
+     * @return the created todo with a Location header, or 400 if it is invalid
+     */
+    @RequestMapping(method = RequestMethod.POST)
+    public CompletableFuture<ResponseEntity<TodoRecord>> createTodo(@RequestBody TodoRecord todo) {
+        return todoApiService.create(getLoggedInUserName(), todo)
+                .thenApply(created -> ResponseEntity.created(URI.create("/api/todos/" + created.id())).body(created));
+    }
+
+    /**
+     * Replaces the description, target date and status of one of the user's todos.
+     *
+     * @param id the id of the todo
+     * @param ifMatch the ETag the client read, if the update is conditional
+     * @param todo the new values; its id is ignored
+     * @return the updated todo, 404 if the user has no todo with this id, 412 if it was changed
+     *         since the client read it, or 400 if the values are invalid
+     */
+    @RequestMapping(value = "{id}", method = RequestMethod.PUT)
+    public CompletableFuture<ResponseEntity<TodoRecord>> updateTodo(@PathVariable int id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody TodoRecord todo) {
+        Integer version = expectedVersion(ifMatch);
+        return todoApiService.update(getLoggedInUserName(), id, version, todo)
+                .thenApply(result -> result == TodoUpdateService.Result.UPDATED
+                        ? toResponse(result, HttpStatus.OK, version)
+                                .body(new TodoRecord(id, todo.description(), todo.targetDate(), todo.done()))
+                        : toResponse(result, HttpStatus.OK, version).<TodoRecord>build());
+    }
+
+    /**
+     * Changes only the fields given in the request, for example {"done":true}.
+     *
+     * @param id the id of the todo
+     * @param ifMatch the ETag the client read, if the change is conditional
+     * @param patch the fields to change
+     * @return 204, 404 if the user has no todo with this id, 412 if it was changed since
+     *         the client read it, or 400 if the patch is empty or invalid
+     */
+    @RequestMapping(value = "{id}", method = RequestMethod.PATCH)
+    public CompletableFuture<ResponseEntity<Void>> patchTodo(@PathVariable int id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody TodoPatch patch) {
+        Integer version = expectedVersion(ifMatch);
+        return todoApiService.patch(getLoggedInUserName(), id, version, patch)
+                .thenApply(result -> toResponse(result, HttpStatus.NO_CONTENT, version).<Void>build());
+    }
+
+    /**
+     * Deletes one of the user's todos.
+     *
+     * @param id the id of the todo
+     * @return 204, or 404 if the user has no todo with this id
+     */
+    @RequestMapping(value = "{id}", method = RequestMethod.DELETE)
+    public CompletableFuture<ResponseEntity<Void>> deleteTodo(@PathVariable int id) {
+        return todoApiService.delete(getLoggedInUserName(), id)
+                .thenApply(deleted -> deleted
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.notFound().<Void>build());
+    }
+
+    /**
+     * Applies a batch of creates, updates and deletes to the user's todos, all or nothing.
+     *
+     * @param batch the changes
+     * @return the ids of the created todos and the number of updated and deleted todos,
+     *         or 400 if any todo is invalid or missing
+     */
+    @RequestMapping(value = "batch", method = RequestMethod.POST)
+    public CompletableFuture<BatchResult> applyBatch(@RequestBody TodoBatch batch) {
+        return todoApiService.applyBatch(getLoggedInUserName(), batch);
+    }
+
+    /**
+     * Opens a stream of server-sent events describing changes to the user's todos,
+     * whether made through the pages, this API or an import. Each "todo" event carries
+     * a {@link TodoChange}; a "reset" event means changes were dropped and the client
+     * should reload its list.
+     *
+     * @return the event stream
+     */
+    @RequestMapping(value = "events", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges() {
+        return todoChangeStream.subscribe(getLoggedInUserName());
+    }
+
+    /**
+     * Reports a request that cannot be applied.
+     *
+     * @param e the exception describing the problems
+     * @return 400 with the list of problems
+     */
+    @ExceptionHandler(InvalidTodoException.class)
+    public ResponseEntity<Map<String, List<String>>> handleInvalidTodo(InvalidTodoException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("errors", e.getErrors()));
+    }
+
+    /**
+     * Starts the response to an update. When the update was conditional, the new
+     * version is known without reading the todo again, and is sent as ETag.
+     *
+     * @param result the outcome of the update
+     * @param updated the status to answer with when the todo was updated
+     * @param version the version the client read, or null
+     * @return the given status, 404 or 412
+     */
+    private static ResponseEntity.BodyBuilder toResponse(TodoUpdateService.Result result, HttpStatus updated,
+            Integer version) {
+        return switch (result) {
+            case NOT_FOUND -> ResponseEntity.status(HttpStatus.NOT_FOUND);
+            case CONFLICT -> ResponseEntity.status(HttpStatus.PRECONDITION_FAILED);
+            case UPDATED -> version == null
+                    ? ResponseEntity.status(updated)
+                    : ResponseEntity.status(updated).eTag(Integer.toString(version + 1));
+        };
+    }
+
+    /**
+     * Reads the version a client expects from its If-Match header.
+     *
+     * @param ifMatch the header, may be null
+     * @return the version, null if any version will do, or -1 for a tag that matches no version
+     */
+    private static Integer expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        // If-Match compares strongly, so weak or unquoted tags never match
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            return -1;
+        }
+        try {
+            return Integer.valueOf(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Retrieves the username of the currently authenticated user from the security context.
+     * It is read on the request thread, before any work is handed to a virtual thread.
+     *
+     * @return the username of the currently authenticated user
+     */
+    private String getLoggedInUserName() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,311 @@
+package com.rvg.springboot.myfirstwebapp.todo.api;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoPage;
+import com.rvg.springboot.myfirstwebapp.todo.TodoQueryService;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+import com.rvg.springboot.myfirstwebapp.todo.TodoSummary;
+import com.rvg.springboot.myfirstwebapp.todo.TodoUpdateService;
+import com.rvg.springboot.myfirstwebapp.todo.TodoWriter;
+import com.rvg.springboot.myfirstwebapp.todo.search.TodoSearchService;
+import com.rvg.springboot.myfirstwebapp.todo.stats.TodoStatistics;
+import com.rvg.springboot.myfirstwebapp.todo.stats.TodoStatisticsService;
+import com.rvg.springboot.myfirstwebapp.todo.store.TodoStoreConfiguration;
+import com.rvg.springboot.myfirstwebapp.todo.transfer.TodoRecord;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Reads and writes todos for the JSON API without blocking request threads.
+ *
+ * Every operation runs on its own virtual thread and completes a CompletableFuture.
+ * The servlet request thread is handed back to Tomcat as soon as the controller
+ * returns the future, and the JDBC work blocks only the cheap virtual thread.
+ *
+ * Reads go through the cached TodoQueryService; creates and deletes go through
+ * TodoRepository, and updates through TodoUpdateService, which changes a todo with one
+ * conditional statement. Either way the usual change events invalidate the caches.
+ * Before a todo is changed, queued write-behind edits of it are written (see TodoWriter),
+ * so a page edit that is still queued cannot overwrite a newer change made here.
+ * Users only see and change their own todos: a todo owned by someone else is reported
+ * as missing.
+ */
+@Service
+@ConditionalOnExpression(TodoStoreConfiguration.DATABASE)
+public class TodoApiService {
+
+    private final TodoRepository todoRepository;
+    private final TodoQueryService todoQueryService;
+    private final TodoUpdateService todoUpdateService;
+    private final TodoWriter todoWriter;
+    private final TodoSearchService todoSearchService;
+    private final TodoStatisticsService todoStatisticsService;
+    private final Validator validator;
+    private final TransactionTemplate transaction;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("todo-api-", 0).factory());
+
+    public TodoApiService(TodoRepository todoRepository, TodoQueryService todoQueryService,
+            TodoUpdateService todoUpdateService, TodoWriter todoWriter, TodoSearchService todoSearchService,
+            TodoStatisticsService todoStatisticsService, Validator validator,
+            PlatformTransactionManager transactionManager) {
+        this.todoRepository = todoRepository;
+        this.todoQueryService = todoQueryService;
+        this.todoUpdateService = todoUpdateService;
+        this.todoWriter = todoWriter;
+        this.todoSearchService = todoSearchService;
+        this.todoStatisticsService = todoStatisticsService;
+        this.validator = validator;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Finds one page of a user's todos.
+     *
+     * @param username the owner of the todos
+     * @param after the encoded cursor the page starts after, may be null
+     * @param before the encoded cursor the page ends before, may be null
+     * @param size the requested page size
+     * @return the page
+     */
+    public CompletableFuture<TodoPage> findPage(String username, String after, String before, int size) {
+        return async(() -> todoQueryService.findPage(username, after, before, size));
+    }
+
+    /**
+     * Finds one of a user's todos.
+     *
+     * @param username the owner of the todo
+     * @param id the id of the todo
+     * @return the todo with its version, or empty if it does not exist or belongs to another user
+     */
+    public CompletableFuture<Optional<Todo>> findById(String username, int id) {
+        return async(() -> Optional.ofNullable(todoQueryService.findById(id))
+                .filter(todo -> todo.getUsername().equals(username)));
+    }
+
+    /**
+     * Searches the descriptions of a user's todos.
+     *
+     * @param username the owner of the todos
+     * @param query the words to look for, as words or word beginnings
+     * @param limit the maximum number of todos to return
+     * @return the matching todos, best first
+     */
+    public CompletableFuture<List<TodoSummary>> search(String username, String query, int limit) {
+        return async(() -> todoSearchService.search(username, query, limit));
+    }
+
+    /**
+     * Returns the counts of a user's todos.
+     *
+     * @param username the owner of the todos
+     * @return the counts for today
+     */
+    public CompletableFuture<TodoStatistics> statistics(String username) {
+        return async(() -> todoStatisticsService.getStatistics(username));
+    }
+
+    /**
+     * Creates a todo for a user.
+     *
+     * @param username the owner of the new todo
+     * @param record the todo; its id is ignored
+     * @return the created todo with its id
+     * @throws InvalidTodoException (through the future) if the todo is invalid
+     */
+    public CompletableFuture<TodoRecord> create(String username, TodoRecord record) {
+        return async(() -> {
+            Todo todo = newTodo(username, record);
+            validate(null, List.of(todo));
+            return toRecord(todoRepository.save(todo));
+        });
+    }
+
+    /**
+     * Replaces the description, target date and status of one of a user's todos,
+     * with one UPDATE statement.
+     *
+     * @param username the owner of the todo
+     * @param id the id of the todo
+     * @param version the version the client read, or null to overwrite whatever the version
+     * @param record the new values; its id is ignored
+     * @return UPDATED, NOT_FOUND if it does not exist or belongs to another user, or CONFLICT if its version changed
+     * @throws InvalidTodoException (through the future) if the new values are invalid
+     */
+    public CompletableFuture<TodoUpdateService.Result> update(String username, int id, Integer version,
+            TodoRecord record) {
+        return async(() -> {
+            validate(null, List.of(newTodo(username, record)));
+            todoWriter.awaitWrite(id);
+            return todoUpdateService.update(id, username, version, record.description(), record.targetDate(),
+                    record.done());
+        });
+    }
+
+    /**
+     * Changes only the given fields of one of a user's todos, with one UPDATE statement.
+     *
+     * @param username the owner of the todo
+     * @param id the id of the todo
+     * @param version the version the client read, or null to overwrite whatever the version
+     * @param patch the fields to change
+     * @return UPDATED, NOT_FOUND if it does not exist or belongs to another user, or CONFLICT if its version changed
+     * @throws InvalidTodoException (through the future) if the patch is empty or invalid
+     */
+    public CompletableFuture<TodoUpdateService.Result> patch(String username, int id, Integer version,
+            TodoPatch patch) {
+        return async(() -> {
+            List<String> errors = new ArrayList<>();
+            if (patch.description() == null && patch.targetDate() == null && patch.done() == null) {
+                errors.add("Nothing to change: give a description, targetDate or done");
+            }
+            if (patch.description() != null) {
+                for (ConstraintViolation<Todo> violation : validator.validateValue(Todo.class, "description",
+                        patch.description())) {
+                    errors.add("description: " + violation.getMessage());
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new InvalidTodoException(errors);
+            }
+            todoWriter.awaitWrite(id);
+            return todoUpdateService.update(id, username, version, patch.description(), patch.targetDate(),
+                    patch.done());
+        });
+    }
+
+    /**
+     * Deletes one of a user's todos.
+     *
+     * @param username the owner of the todo
+     * @param id the id of the todo
+     * @return true if the todo was deleted, false if it does not exist or belongs to another user
+     */
+    public CompletableFuture<Boolean> delete(String username, int id) {
+        return async(() -> {
+            todoWriter.awaitWrite(id);
+            return transaction.execute(status -> {
+                Optional<Todo> todo = todoRepository.findById(id).filter(t -> t.getUsername().equals(username));
+                todo.ifPresent(todoRepository::delete);
+                return todo.isPresent();
+            });
+        });
+    }
+
+    /**
+     * Applies a batch of creates, updates and deletes in one transaction.
+     * The todos to update and delete are loaded with one query, and the changes are
+     * written in JDBC batches. If any todo is invalid or missing, nothing is changed.
+     *
+     * @param username the owner of the todos
+     * @param batch the changes
+     * @return the ids of the created todos and the number of updated and deleted todos
+     * @throws InvalidTodoException (through the future) if the batch cannot be applied
+     */
+    public CompletableFuture<BatchResult> applyBatch(String username, TodoBatch batch) {
+        return async(() -> {
+            if (batch.update().stream().anyMatch(record -> record.id() == null)
+                    || batch.delete().stream().anyMatch(Objects::isNull)) {
+                throw new InvalidTodoException(List.of("Todos to update and delete need an id"));
+            }
+            List<Todo> created = batch.create().stream().map(record -> newTodo(username, record)).toList();
+            validate("create", created);
+            validate("update", batch.update().stream().map(record -> newTodo(username, record)).toList());
+            todoWriter.awaitWrites(username);
+
+            return transaction.execute(status -> {
+                Set<Integer> ids = new HashSet<>(batch.delete());
+                batch.update().forEach(record -> ids.add(record.id()));
+                Map<Integer, Todo> owned = todoRepository.findAllById(ids).stream()
+                        .filter(todo -> todo.getUsername().equals(username))
+                        .collect(Collectors.toMap(Todo::getId, Function.identity()));
+
+                List<String> errors = new ArrayList<>();
+                for (Integer id : ids) {
+                    if (!owned.containsKey(id)) {
+                        errors.add("Todo " + id + " not found");
+                    }
+                }
+                if (!errors.isEmpty()) {
+                    throw new InvalidTodoException(errors);
+                }
+
+                batch.update().forEach(record -> apply(owned.get(record.id()), record));
+                Set<Integer> deleted = new HashSet<>(batch.delete());
+                todoRepository.deleteAll(deleted.stream().map(owned::get).toList());
+                List<Integer> createdIds = todoRepository.saveAll(created).stream().map(Todo::getId).toList();
+                return new BatchResult(createdIds, batch.update().size(), deleted.size());
+            });
+        });
+    }
+
+    /**
+     * Stops the executor, letting running operations finish.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.close();
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(operation, executor);
+    }
+
+    /**
+     * Validates todos and reports all violations at once.
+     *
+     * @param list the name of the batch list the todos come from, or null for a single todo
+     * @param todos the todos to validate
+     * @throws InvalidTodoException if any todo is invalid
+     */
+    private void validate(String list, List<Todo> todos) {
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < todos.size(); i++) {
+            Todo todo = todos.get(i);
+            String prefix = list == null ? "" : list + "[" + i + "]: ";
+            for (ConstraintViolation<Todo> violation : validator.validate(todo)) {
+                errors.add(prefix + violation.getPropertyPath() + ": " + violation.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new InvalidTodoException(errors);
+        }
+    }
+
+    private static Todo newTodo(String username, TodoRecord record) {
+        return new Todo(0, username, record.description(), record.targetDate(), record.done());
+    }
+
+    private static void apply(Todo todo, TodoRecord record) {
+        todo.setDescription(record.description());
+        todo.setTargetDate(record.targetDate());
+        todo.setDone(record.done());
+    }
+
+    static TodoRecord toRecord(Todo todo) {
+        return new TodoRecord(todo.getId(), todo.getDescription(), todo.getTargetDate(), todo.isDone());
+    }
+}
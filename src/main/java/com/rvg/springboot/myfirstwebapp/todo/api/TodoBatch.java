@@ -0,0 +1,21 @@
+package com.rvg.springboot.myfirstwebapp.todo.api;
+
+import java.util.List;
+
+import com.rvg.springboot.myfirstwebapp.todo.transfer.TodoRecord;
+
+/**
+ * A batch of changes to the logged-in user's todos, applied all or nothing.
+ *
+ * @param create todos to create; their ids are ignored
+ * @param update todos to update, identified by their ids
+ * @param delete ids of todos to delete
+ */
+public record TodoBatch(List<TodoRecord> create, List<TodoRecord> update, List<Integer> delete) {
+
+    public TodoBatch {
+        create = create == null ? List.of() : create;
+        update = update == null ? List.of() : update;
+        delete = delete == null ? List.of() : delete;
+    }
+}
@@ -0,0 +1,13 @@
+package com.rvg.springboot.myfirstwebapp.todo.api;
+
+import com.rvg.springboot.myfirstwebapp.todo.transfer.TodoRecord;
+
+/**
+ * A change to one of the user's todos, as pushed to the change stream.
+ *
+ * @param type "created", "updated" or "deleted"
+ * @param id the id of the changed todo
+ * @param todo the current state of the todo, or null if it was deleted
+ */
+public record TodoChange(String type, int id, TodoRecord todo) {
+}
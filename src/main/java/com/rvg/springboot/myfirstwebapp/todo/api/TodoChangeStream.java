@@ -0,0 +1,235 @@
+package com.rvg.springboot.myfirstwebapp.todo.api;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoChangedEvent;
+import com.rvg.springboot.myfirstwebapp.todo.TodoQueryService;
+import com.rvg.springboot.myfirstwebapp.todo.store.TodoStoreConfiguration;
+import com.rvg.springboot.myfirstwebapp.todo.transfer.TodoRecord;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes committed changes of a user's todos to that user's open server-sent event streams.
+ *
+ * Changes arrive as TodoChangedEvents, whichever code path made them. Each subscriber
+ * has its own queue of pending changes and at most one sender, a virtual thread that
+ * runs only while the queue is not empty, so a slow client never delays the writer of
+ * a change or other clients. Queued changes to the same todo are coalesced: the client
+ * receives the latest state once. A queue holds at most {@value #MAX_PENDING} todos;
+ * when a client falls further behind, its queue is replaced by a single "reset" event
+ * telling it to reload, so memory per subscriber stays bounded.
+ *
+ * Streams end after a timeout (todo.events.timeout) and browsers reconnect on their own.
+ * The number of open streams is published to Micrometer as todo.events.subscribers.
+ */
+@Component
+@ConditionalOnExpression(TodoStoreConfiguration.DATABASE)
+public class TodoChangeStream {
+
+    static final int MAX_PENDING = 100;
+
+    private final TodoQueryService todoQueryService;
+    private final Duration timeout;
+
+    private final ConcurrentMap<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("todo-events-", 0).factory());
+
+    public TodoChangeStream(TodoQueryService todoQueryService, MeterRegistry meterRegistry,
+            @Value("${todo.events.timeout:30m}") Duration timeout) {
+        this.todoQueryService = todoQueryService;
+        this.timeout = timeout;
+        Gauge.builder("todo.events.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open todo change streams")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a change stream for a user.
+     *
+     * @param username the owner of the todos to follow
+     * @return the emitter of the stream
+     */
+    public SseEmitter subscribe(String username) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(username, emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+
+        // Added inside compute, so it cannot race with the removal of an emptied set
+        subscribers.compute(username, (key, userSubscribers) -> {
+            Set<Subscriber> updated = userSubscribers == null ? ConcurrentHashMap.newKeySet() : userSubscribers;
+            updated.add(subscriber);
+            return updated;
+        });
+        subscriberCount.incrementAndGet();
+        return emitter;
+    }
+
+    /**
+     * Queues a committed change for the subscribers of the todo's owner.
+     *
+     * @param event the change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTodoChanged(TodoChangedEvent event) {
+        Set<Subscriber> userSubscribers = subscribers.get(event.username());
+        if (userSubscribers != null) {
+            for (Subscriber subscriber : userSubscribers) {
+                subscriber.offer(event.id(), event.type());
+            }
+        }
+    }
+
+    /**
+     * Ends all open streams and stops the senders.
+     */
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(s -> s.emitter.complete()));
+        senders.close();
+    }
+
+    /**
+     * Builds the event sent for a todo, from its current state.
+     *
+     * @param username the subscriber, who must own the todo
+     * @param id the id of the todo
+     * @param type the last change made to the todo
+     * @return the event
+     */
+    private TodoChange toChange(String username, int id, TodoChangedEvent.Type type) {
+        Todo todo = type == TodoChangedEvent.Type.DELETED ? null : todoQueryService.findById(id);
+        if (todo == null || !todo.getUsername().equals(username)) {
+            return new TodoChange("deleted", id, null);
+        }
+        return new TodoChange(type.name().toLowerCase(Locale.ROOT), id,
+                new TodoRecord(todo.getId(), todo.getDescription(), todo.getTargetDate(), todo.isDone()));
+    }
+
+    /**
+     * One open stream with its queue of pending changes.
+     */
+    private final class Subscriber {
+
+        private final String username;
+        private final SseEmitter emitter;
+
+        // Guarded by this
+        private final Map<Integer, TodoChangedEvent.Type> pending = new LinkedHashMap<>();
+        private boolean overflowed;
+        private boolean sending;
+        private boolean closed;
+
+        Subscriber(String username, SseEmitter emitter) {
+            this.username = username;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queues a change and starts a sender unless one is running.
+         */
+        void offer(int id, TodoChangedEvent.Type type) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (!overflowed) {
+                    // A queued todo keeps its place; one created since the last send stays "created"
+                    pending.merge(id, type, (previous, latest) -> previous == TodoChangedEvent.Type.CREATED
+                            && latest != TodoChangedEvent.Type.DELETED ? previous : latest);
+                    if (pending.size() > MAX_PENDING) {
+                        pending.clear();
+                        overflowed = true;
+                    }
+                }
+                if (sending) {
+                    return;
+                }
+                sending = true;
+            }
+            senders.execute(this::drain);
+        }
+
+        /**
+         * Sends queued changes until the queue is empty.
+         */
+        private void drain() {
+            while (true) {
+                Map<Integer, TodoChangedEvent.Type> changes;
+                boolean reset;
+                synchronized (this) {
+                    if (closed || (pending.isEmpty() && !overflowed)) {
+                        sending = false;
+                        return;
+                    }
+                    changes = new LinkedHashMap<>(pending);
+                    pending.clear();
+                    reset = overflowed;
+                    overflowed = false;
+                }
+
+                try {
+                    if (reset) {
+                        emitter.send(SseEmitter.event().name("reset").data("{}", MediaType.APPLICATION_JSON));
+                        continue;
+                    }
+                    List<TodoChange> events = new ArrayList<>(changes.size());
+                    changes.forEach((id, type) -> events.add(toChange(username, id, type)));
+                    for (TodoChange change : events) {
+                        emitter.send(SseEmitter.event().name("todo").data(change, MediaType.APPLICATION_JSON));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away or the stream already ended
+                    close();
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Stops queueing changes for this stream and forgets it.
+         */
+        void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+            }
+            subscribers.computeIfPresent(username, (key, userSubscribers) -> {
+                userSubscribers.remove(this);
+                return userSubscribers.isEmpty() ? null : userSubscribers;
+            });
+            subscriberCount.decrementAndGet();
+        }
+    }
+}
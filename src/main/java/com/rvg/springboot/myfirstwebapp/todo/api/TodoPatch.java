@@ -0,0 +1,14 @@
+package com.rvg.springboot.myfirstwebapp.todo.api;
+
+import java.time.LocalDate;
+
+/**
+ * A partial change to one todo, such as marking it done or moving its target date.
+ * Fields left out (null) are not changed.
+ *
+ * @param description the new description, or null
+ * @param targetDate the new target date, or null
+ * @param done the new status, or null
+ */
+public record TodoPatch(String description, LocalDate targetDate, Boolean done) {
+}
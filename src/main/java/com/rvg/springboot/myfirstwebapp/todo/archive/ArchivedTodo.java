@@ -0,0 +1,100 @@
+package com.rvg.springboot.myfirstwebapp.todo.archive;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import org.springframework.data.domain.Persistable;
+
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+/**
+ * A todo moved out of the todo table by the TodoArchiveService.
+ *
+ * Archived todos keep their id, owner, description, target date, status and version,
+ * and record when they were archived. They are read-only. The (username, target_date, id)
+ * index backs the archive page, which lists a user's archived todos newest first.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_archived_todo_username_target_date", columnList = "username, target_date, id"))
+public class ArchivedTodo implements Persistable<Integer> {
+
+    // The id the todo had in the todo table, not generated
+    @Id
+    private int id;
+    private String username;
+    private String description;
+    private LocalDate targetDate;
+    private boolean done;
+    private int version;
+    private Instant archivedAt;
+
+    // Archived todos are only ever inserted; saving one must not look it up first
+    @Transient
+    private boolean isNew;
+
+    // Default constructor
+    protected ArchivedTodo() {}
+
+    /**
+     * Creates the archived copy of a todo.
+     *
+     * @param todo the todo being archived
+     * @param archivedAt when the todo is archived
+     */
+    public ArchivedTodo(Todo todo, Instant archivedAt) {
+        this.id = todo.getId();
+        this.username = todo.getUsername();
+        this.description = todo.getDescription();
+        this.targetDate = todo.getTargetDate();
+        this.done = todo.isDone();
+        this.version = todo.getVersion();
+        this.archivedAt = archivedAt;
+        this.isNew = true;
+    }
+
+    @PostLoad
+    void loaded() {
+        isNew = false;
+    }
+
+    @Override
+    public Integer getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public LocalDate getTargetDate() {
+        return targetDate;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public Instant getArchivedAt() {
+        return archivedAt;
+    }
+}
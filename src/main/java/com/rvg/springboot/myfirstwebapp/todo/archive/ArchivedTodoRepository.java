@@ -0,0 +1,34 @@
+package com.rvg.springboot.myfirstwebapp.todo.archive;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * ArchivedTodoRepository provides access to the todos moved to the archive table.
+ * Archived todos are inserted by the TodoArchiveService and otherwise only read.
+ */
+public interface ArchivedTodoRepository extends JpaRepository<ArchivedTodo, Integer> {
+
+    /**
+     * Finds one page of a user's archived todos, latest target date first. The page
+     * is read with an offset, which is slower for later pages than the keyset
+     * pagination of the active todos, but the archive is rarely browsed.
+     *
+     * @param username the owner of the todos
+     * @param pageable the page number and size
+     * @return the todos of the page, and whether there is a next page
+     */
+    @Transactional(readOnly = true)
+    public Slice<ArchivedTodo> findByUsernameOrderByTargetDateDescIdDesc(String username, Pageable pageable);
+
+    /**
+     * Counts a user's archived todos.
+     *
+     * @param username the owner of the todos
+     * @return the number of archived todos
+     */
+    @Transactional(readOnly = true)
+    public long countByUsername(String username);
+}
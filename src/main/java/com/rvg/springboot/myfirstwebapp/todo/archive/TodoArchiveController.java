@@ -0,0 +1,65 @@
+package com.rvg.springboot.myfirstwebapp.todo.archive;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.Slice;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.ModelMap;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.rvg.springboot.myfirstwebapp.todo.store.TodoStoreConfiguration;
+
+/**
+ * This controller serves the page of the logged-in user's archived todos.
+ *
+ * Methods:
+ * - listArchivedTodos(ModelMap model, int page, int size): Handles the request to list one page of archived todos.
+ * - getLoggedInUserName(ModelMap model): Retrieves the username of the currently authenticated user.
+ */
+@Controller
+@ConditionalOnExpression(TodoStoreConfiguration.DATABASE)
+public class TodoArchiveController {
+
+    private final TodoArchiveService todoArchiveService;
+
+    public TodoArchiveController(TodoArchiveService todoArchiveService) {
+        this.todoArchiveService = todoArchiveService;
+    }
+
+    /**
+     * Handles the request to list one page of the logged-in user's archived todos,
+     * latest target date first.
+     *
+     * @param model the ModelMap object to pass attributes to the view
+     * @param page the number of the page, starting at 0
+     * @param size the number of todos per page
+     * @return the name of the view to be rendered, in this case "archivedTodos"
+     */
+    @RequestMapping(value = "archived-todos", method = RequestMethod.GET)
+    public String listArchivedTodos(ModelMap model, @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + TodoArchiveService.DEFAULT_PAGE_SIZE) int size) {
+        String username = getLoggedInUserName(model);
+        Slice<ArchivedTodo> todos = todoArchiveService.findArchived(username, page, size);
+        model.addAttribute("todos", todos.getContent());
+        model.addAttribute("page", todos.getNumber());
+        model.addAttribute("size", todos.getSize());
+        model.addAttribute("hasPrevious", todos.hasPrevious());
+        model.addAttribute("hasNext", todos.hasNext());
+        model.addAttribute("total", todoArchiveService.countArchived(username));
+        return "archivedTodos";
+    }
+
+    /**
+     * Retrieves the username of the currently authenticated user from the security context.
+     *
+     * @param model the ModelMap object that holds the model attributes for the view
+     * @return the username of the currently authenticated user
+     */
+    private String getLoggedInUserName(ModelMap model) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication.getName();
+    }
+}
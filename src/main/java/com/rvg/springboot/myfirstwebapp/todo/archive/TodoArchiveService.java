@@ -0,0 +1,213 @@
+package com.rvg.springboot.myfirstwebapp.todo.archive;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoChangedEvent;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+import com.rvg.springboot.myfirstwebapp.todo.store.TodoStoreConfiguration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Moves finished and stale todos out of the todo table into the archive table, so the
+ * table the todo pages, search and statistics read keeps only the working set.
+ *
+ * A todo is archived once it is done and its target date is more than
+ * todo.archive.done-after in the past, or, done or not, once its target date is more
+ * than todo.archive.stale-after in the past. When todo.archive.enabled is set, the
+ * table is walked every todo.archive.interval in primary key batches of
+ * todo.archive.batch-size on a background thread. Each batch is copied to the archive
+ * and deleted in one transaction, with its rows locked meanwhile, so an edit either
+ * happens before the todo is archived or finds it gone. The thread pauses for
+ * todo.archive.batch-delay between batches, which keeps the move from crowding out
+ * the requests.
+ *
+ * The batch delete bypasses the entity listener: a TodoChangedEvent of type DELETED is
+ * published for each archived todo, so caches, the search index, the statistics and the
+ * notifications drop it like a deleted todo. Moved todos are counted in the
+ * todo.archive.archived metric.
+ *
+ * Archived todos stay readable, one page at a time, from the archive table.
+ *
+ * Methods:
+ * - findArchived(String username, int page, int size): Returns one page of a user's archived todos.
+ * - countArchived(String username): Returns the number of a user's archived todos.
+ * - archive(): Moves every todo due for the archive.
+ */
+@Service
+@ConditionalOnExpression(TodoStoreConfiguration.DATABASE)
+public class TodoArchiveService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final Logger logger = Logger.getLogger(TodoArchiveService.class.getName());
+
+    private final TodoRepository todoRepository;
+    private final ArchivedTodoRepository archivedTodoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+    private final Counter archived;
+
+    private final boolean enabled;
+    private final Duration interval;
+    private final Duration doneAfter;
+    private final Duration staleAfter;
+    private final int batchSize;
+    private final Duration batchDelay;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("todo-archive").daemon().factory());
+
+    public TodoArchiveService(TodoRepository todoRepository, ArchivedTodoRepository archivedTodoRepository,
+            ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${todo.archive.enabled:false}") boolean enabled,
+            @Value("${todo.archive.interval:1h}") Duration interval,
+            @Value("${todo.archive.done-after:30d}") Duration doneAfter,
+            @Value("${todo.archive.stale-after:365d}") Duration staleAfter,
+            @Value("${todo.archive.batch-size:500}") int batchSize,
+            @Value("${todo.archive.batch-delay:200ms}") Duration batchDelay) {
+        this.todoRepository = todoRepository;
+        this.archivedTodoRepository = archivedTodoRepository;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.archived = Counter.builder("todo.archive.archived")
+                .description("Todos moved to the archive")
+                .register(meterRegistry);
+        this.enabled = enabled;
+        this.interval = interval;
+        this.doneAfter = doneAfter;
+        this.staleAfter = staleAfter;
+        this.batchSize = batchSize;
+        this.batchDelay = batchDelay;
+    }
+
+    /**
+     * Returns one page of a user's archived todos, latest target date first.
+     *
+     * @param username the owner of the todos
+     * @param page the number of the page, starting at 0
+     * @param size the number of todos per page, at most MAX_PAGE_SIZE
+     * @return the todos of the page, and whether there is a next page
+     */
+    public Slice<ArchivedTodo> findArchived(String username, int page, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        return archivedTodoRepository.findByUsernameOrderByTargetDateDescIdDesc(username,
+                PageRequest.of(Math.max(page, 0), pageSize));
+    }
+
+    /**
+     * @param username the owner of the todos
+     * @return the number of the user's archived todos
+     */
+    public long countArchived(String username) {
+        return archivedTodoRepository.countByUsername(username);
+    }
+
+    /**
+     * Schedules the archive runs once the application is ready, if archiving is enabled.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                archive();
+            } catch (RuntimeException e) {
+                // Thrown out of a periodic task, it would cancel all future runs
+                logger.log(Level.SEVERE, "Cannot archive todos", e);
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Moves every todo due for the archive, batch by batch, pausing between batches.
+     *
+     * @return the number of todos archived
+     */
+    public int archive() {
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        LocalDate doneBefore = today.minusDays(doneAfter.toDays());
+        LocalDate staleBefore = today.minusDays(staleAfter.toDays());
+        int count = 0;
+        int after = 0;
+        while (true) {
+            int from = after;
+            List<Todo> batch = transaction.execute(status -> archiveBatch(from, doneBefore, staleBefore));
+            if (batch.isEmpty()) {
+                break;
+            }
+            count += batch.size();
+            archived.increment(batch.size());
+            after = batch.get(batch.size() - 1).getId();
+            if (batch.size() < batchSize) {
+                break;
+            }
+            try {
+                Thread.sleep(batchDelay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (count > 0) {
+            logger.info("Archived " + count + " todos in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        return count;
+    }
+
+    /**
+     * Copies one batch of todos to the archive and deletes them. Runs in a transaction.
+     *
+     * @param after the id the batch starts after
+     * @param doneBefore done todos with an earlier target date are archived
+     * @param staleBefore todos with an earlier target date are archived, done or not
+     * @return the archived todos, ordered by id
+     */
+    private List<Todo> archiveBatch(int after, LocalDate doneBefore, LocalDate staleBefore) {
+        List<Todo> batch = todoRepository.findArchivable(after, doneBefore, staleBefore, Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        Instant now = Instant.now();
+        archivedTodoRepository.saveAll(batch.stream().map(todo -> new ArchivedTodo(todo, now)).toList());
+        todoRepository.deleteAllByIdInBatch(batch.stream().map(Todo::getId).toList());
+        for (Todo todo : batch) {
+            eventPublisher.publishEvent(
+                    new TodoChangedEvent(TodoChangedEvent.Type.DELETED, todo.getId(), todo.getUsername()));
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,64 @@
+package com.rvg.springboot.myfirstwebapp.todo.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.savedrequest.NullRequestCache;
+
+/**
+ * Configuration class for the partitioned deployment, active when todo.cluster.nodes is set.
+ *
+ * Methods:
+ * - clusterFilterChain(HttpSecurity http, ClusterKey clusterKey): Secures the cluster endpoints with the cluster key.
+ * - clusterRoutingFilter(ClusterMembership membership, ClusterKey clusterKey): Registers the ClusterRoutingFilter right after the security filters.
+ */
+@Configuration
+@ConditionalOnExpression(ClusterMembership.ENABLED)
+public class ClusterConfiguration {
+
+    /**
+     * Security filter chain of /api/cluster/**, checked before the application's chain.
+     * Only requests presenting the cluster key are allowed; logins, sessions and
+     * cookies play no part, and other requests are answered with 401.
+     *
+     * @param http the HttpSecurity to configure
+     * @param clusterKey the cluster key
+     * @return the filter chain of the cluster endpoints
+     * @throws Exception if the chain cannot be built
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SecurityFilterChain clusterFilterChain(HttpSecurity http, ClusterKey clusterKey) throws Exception {
+        http.securityMatcher("/api/cluster/**");
+        http.authorizeHttpRequests(auth -> auth.anyRequest().hasRole(ClusterKeyAuthenticationFilter.ROLE));
+        http.addFilterBefore(new ClusterKeyAuthenticationFilter(clusterKey), AnonymousAuthenticationFilter.class);
+        http.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+        http.securityContext(context -> context.securityContextRepository(new RequestAttributeSecurityContextRepository()));
+        http.requestCache(cache -> cache.requestCache(new NullRequestCache()));
+        http.exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(
+                new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
+        http.csrf(csrf -> csrf.disable());
+        return http.build();
+    }
+
+    @Bean
+    public FilterRegistrationBean<ClusterRoutingFilter> clusterRoutingFilter(ClusterMembership membership,
+            ClusterKey clusterKey) {
+        FilterRegistrationBean<ClusterRoutingFilter> registration = new FilterRegistrationBean<>(
+                new ClusterRoutingFilter(membership, clusterKey, ClusterRoutingFilter.newClient()));
+        // The user is only known once the security filters have run
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,109 @@
+package com.rvg.springboot.myfirstwebapp.todo.cluster;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.rvg.springboot.myfirstwebapp.todo.transfer.TodoRecord;
+
+/**
+ * REST controller for operating a partitioned deployment. Its endpoints are served
+ * by the node that receives them and require the cluster key in the X-Todo-Cluster-Key
+ * header (see ClusterConfiguration); user logins are not accepted.
+ *
+ * When nodes join or leave, start the new nodes with the new node list, then PUT the
+ * new list to every old node: each one routes by the new ring at once and moves the
+ * users it no longer owns to their new owners in the background. GET rebalance tells
+ * when the move is done.
+ *
+ * Examples:
+ * curl -H "X-Todo-Cluster-Key: $TODO_CLUSTER_KEY" localhost:8080/api/cluster/nodes
+ * curl -H "X-Todo-Cluster-Key: $TODO_CLUSTER_KEY" -X PUT -H 'Content-Type: application/json' -d '["http://localhost:8080","http://localhost:8081"]' localhost:8080/api/cluster/nodes
+ * curl -H "X-Todo-Cluster-Key: $TODO_CLUSTER_KEY" localhost:8080/api/cluster/rebalance
+ *
+ * Methods:
+ * - getNodes(): The nodes of the ring, and this node.
+ * - setNodes(List<String> nodes): Replaces the ring and starts moving the users this node no longer owns.
+ * - getRebalance(): Whether a move is running, and the outcome of the last one.
+ * - rebalance(): Starts moving the users this node does not own again, for instance after a failed move.
+ * - importTodos(String username, List<TodoRecord> todos): Receives a batch of todos moved from another node.
+ */
+@RestController
+@RequestMapping("api/cluster")
+@ConditionalOnExpression(ClusterMembership.ENABLED)
+public class ClusterController {
+
+    private final ClusterMembership membership;
+    private final TodoRebalancer rebalancer;
+
+    public ClusterController(ClusterMembership membership, TodoRebalancer rebalancer) {
+        this.membership = membership;
+        this.rebalancer = rebalancer;
+    }
+
+    /**
+     * @return this node and the nodes of the ring
+     */
+    @RequestMapping(value = "nodes", method = RequestMethod.GET)
+    public Map<String, Object> getNodes() {
+        Map<String, Object> nodes = new LinkedHashMap<>();
+        nodes.put("self", membership.getSelf());
+        nodes.put("nodes", membership.getNodes());
+        return nodes;
+    }
+
+    /**
+     * Replaces the ring, then starts moving the users this node no longer owns.
+     *
+     * @param nodes the base URLs of all nodes
+     * @return 202 Accepted with the state of the move
+     */
+    @RequestMapping(value = "nodes", method = RequestMethod.PUT)
+    public ResponseEntity<Map<String, Object>> setNodes(@RequestBody List<String> nodes) {
+        membership.setNodes(nodes);
+        rebalancer.start();
+        return ResponseEntity.accepted().body(getRebalance());
+    }
+
+    /**
+     * @return whether a move is running, and the outcome of the last completed one
+     */
+    @RequestMapping(value = "rebalance", method = RequestMethod.GET)
+    public Map<String, Object> getRebalance() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("running", rebalancer.isRunning());
+        state.put("last", rebalancer.getLastResult());
+        return state;
+    }
+
+    /**
+     * Starts moving the users this node does not own, for instance after a failed move.
+     *
+     * @return 202 Accepted with the state of the move
+     */
+    @RequestMapping(value = "rebalance", method = RequestMethod.POST)
+    public ResponseEntity<Map<String, Object>> rebalance() {
+        rebalancer.start();
+        return ResponseEntity.accepted().body(getRebalance());
+    }
+
+    /**
+     * Saves a batch of a user's todos moved here by another node.
+     *
+     * @param username the owner of the todos
+     * @param todos the todos; their ids are ignored
+     * @return the number of saved todos
+     */
+    @RequestMapping(value = "import", method = RequestMethod.POST)
+    public int importTodos(@RequestParam String username, @RequestBody List<TodoRecord> todos) {
+        return rebalancer.receive(username, todos);
+    }
+}
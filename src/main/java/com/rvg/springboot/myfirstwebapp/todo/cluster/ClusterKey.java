@@ -0,0 +1,132 @@
+package com.rvg.springboot.myfirstwebapp.todo.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+/**
+ * The secret shared by the nodes of a partitioned deployment (todo.cluster.key).
+ *
+ * It authenticates two things that user logins must not be able to do:
+ * - Calls to the cluster endpoints (ClusterController), by operators and by other nodes,
+ *   which present the key in the X-Todo-Cluster-Key header.
+ * - The marker of a request proxied by another node (X-Todo-Forwarded), which tells the
+ *   receiving node to serve the request itself. The marker names the forwarding node and
+ *   the time, and is signed with HMAC-SHA256 over them and the request method and target,
+ *   so a client cannot forge it, and a captured one is only accepted for a short time.
+ *
+ * Methods:
+ * - matches(String presented): Whether a presented key is the cluster key.
+ * - getHeaderValue(): The key, to present to other nodes.
+ * - signForward(String node, String method, String target): Creates a forwarded marker.
+ * - verifyForward(String marker, String method, String target): Checks a forwarded marker.
+ */
+@Component
+@ConditionalOnExpression(ClusterMembership.ENABLED)
+public class ClusterKey {
+
+    public static final String HEADER = "X-Todo-Cluster-Key";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    // How long a forwarded marker is accepted, allowing for clock differences between nodes
+    private static final Duration FORWARD_VALIDITY = Duration.ofMinutes(1);
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final byte[] key;
+
+    // Mac instances are not thread-safe
+    private final ThreadLocal<Mac> macs;
+
+    public ClusterKey(@Value("${todo.cluster.key:}") String key) {
+        if (key.isBlank()) {
+            throw new IllegalStateException("A partitioned deployment needs the same secret todo.cluster.key on every"
+                    + " node; it authenticates the nodes to each other and the operators to the cluster endpoints");
+        }
+        this.key = key.getBytes(StandardCharsets.UTF_8);
+        SecretKeySpec signingKey = new SecretKeySpec(this.key, HMAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(signingKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 is not available", e);
+            }
+        });
+    }
+
+    /**
+     * @param presented the value of the X-Todo-Cluster-Key header, may be null
+     * @return true if it is the cluster key
+     */
+    public boolean matches(String presented) {
+        return presented != null && MessageDigest.isEqual(key, presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the value of the X-Todo-Cluster-Key header for calls to other nodes
+     */
+    public String getHeaderValue() {
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates the marker of a request proxied to another node.
+     *
+     * @param node the base URL of the forwarding node
+     * @param method the method of the request
+     * @param target the path and query of the request
+     * @return the value of the X-Todo-Forwarded header
+     */
+    public String signForward(String node, String method, String target) {
+        String payload = node + '\n' + System.currentTimeMillis() / 1000;
+        return ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + '.'
+                + ENCODER.encodeToString(sign(payload, method, target));
+    }
+
+    /**
+     * Checks the marker of a request proxied by another node.
+     *
+     * @param marker the value of the X-Todo-Forwarded header, may be null
+     * @param method the method of the request
+     * @param target the path and query of the request
+     * @return true if a node signed the marker for this request within the last minute
+     */
+    public boolean verifyForward(String marker, String method, String target) {
+        int dot = marker == null ? -1 : marker.indexOf('.');
+        if (dot < 0) {
+            return false;
+        }
+        String payload;
+        byte[] signature;
+        try {
+            payload = new String(DECODER.decode(marker.substring(0, dot)), StandardCharsets.UTF_8);
+            signature = DECODER.decode(marker.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (!MessageDigest.isEqual(sign(payload, method, target), signature)) {
+            return false;
+        }
+        int newline = payload.lastIndexOf('\n');
+        long signedAt = Long.parseLong(payload.substring(newline + 1));
+        return Math.abs(System.currentTimeMillis() / 1000 - signedAt) <= FORWARD_VALIDITY.toSeconds();
+    }
+
+    private byte[] sign(String payload, String method, String target) {
+        // doFinal resets the Mac for the next use on this thread
+        return macs.get().doFinal((payload + '\n' + method + '\n' + target).getBytes(StandardCharsets.UTF_8));
+    }
+}
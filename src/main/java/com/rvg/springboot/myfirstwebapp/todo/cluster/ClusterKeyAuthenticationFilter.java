@@ -0,0 +1,42 @@
+package com.rvg.springboot.myfirstwebapp.todo.cluster;
+
+import java.io.IOException;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Security filter of the cluster endpoints: a request presenting the cluster key in
+ * the X-Todo-Cluster-Key header is authenticated with the CLUSTER role, which only
+ * the cluster key grants. User logins are not accepted on these endpoints.
+ */
+class ClusterKeyAuthenticationFilter extends OncePerRequestFilter {
+
+    static final String ROLE = "CLUSTER";
+
+    private final ClusterKey clusterKey;
+
+    ClusterKeyAuthenticationFilter(ClusterKey clusterKey) {
+        this.clusterKey = clusterKey;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (clusterKey.matches(request.getHeader(ClusterKey.HEADER))) {
+            SecurityContext context = SecurityContextHolder.getContextHolderStrategy().createEmptyContext();
+            context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated("cluster", null,
+                    AuthorityUtils.createAuthorityList("ROLE_" + ROLE)));
+            SecurityContextHolder.getContextHolderStrategy().setContext(context);
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,105 @@
+package com.rvg.springboot.myfirstwebapp.todo.cluster;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+/**
+ * The nodes of a partitioned deployment, and which of them owns each user.
+ *
+ * In a partitioned deployment every node runs with its own database and holds the
+ * todos of the users it owns, and nothing else. Users are assigned to nodes by a
+ * {@link ConsistentHashRing} over the node URLs, so every node computes the same owner
+ * for a user without asking the others. The deployment is enabled by listing the nodes
+ * in todo.cluster.nodes; todo.cluster.self names this node in that list.
+ *
+ * Requests may reach any node, so a login must be valid on all of them: partitioning
+ * requires the stateless security mode with a shared remember-me key.
+ *
+ * Methods:
+ * - ownerOf(String username): The node that owns a user.
+ * - isLocal(String username): Whether this node owns a user.
+ * - setNodes(List<String> nodes): Replaces the ring, when nodes join or leave.
+ */
+@Component
+@ConditionalOnExpression(ClusterMembership.ENABLED)
+public class ClusterMembership {
+
+    // Partitioning is enabled by listing the nodes
+    static final String ENABLED = "!'${todo.cluster.nodes:}'.isBlank()";
+
+    private final Logger logger = Logger.getLogger(ClusterMembership.class.getName());
+
+    private final String self;
+    private volatile ConsistentHashRing ring;
+
+    public ClusterMembership(@Value("${todo.cluster.nodes}") List<String> nodes,
+            @Value("${todo.cluster.self:}") String self,
+            @Value("${todo.security.stateless:false}") boolean stateless,
+            @Value("${todo.security.remember-me.key:}") String signingKey) {
+        if (self.isBlank()) {
+            throw new IllegalStateException("todo.cluster.self must name this node's URL");
+        }
+        if (!stateless || signingKey.isBlank()) {
+            throw new IllegalStateException("A partitioned deployment needs todo.security.stateless=true and the same"
+                    + " todo.security.remember-me.key on every node, so that logins are valid on every node");
+        }
+        this.self = normalize(self.trim());
+        this.ring = new ConsistentHashRing(normalize(nodes));
+        logger.info("Node " + this.self + " of " + ring.getNodes());
+    }
+
+    /**
+     * @param username the user
+     * @return the base URL of the node that owns the user's todos
+     */
+    public String ownerOf(String username) {
+        return ring.ownerOf(username);
+    }
+
+    /**
+     * @param username the user
+     * @return true if this node owns the user's todos
+     */
+    public boolean isLocal(String username) {
+        return self.equals(ring.ownerOf(username));
+    }
+
+    /**
+     * @return the base URL of this node
+     */
+    public String getSelf() {
+        return self;
+    }
+
+    /**
+     * @return the nodes of the current ring
+     */
+    public List<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    /**
+     * Replaces the ring. Requests are routed by the new ring from now on; the todos of
+     * users this node no longer owns stay here until they are moved by the TodoRebalancer.
+     * A node that leaves the deployment is given a ring without itself.
+     *
+     * @param nodes the base URLs of the nodes
+     */
+    public void setNodes(List<String> nodes) {
+        ring = new ConsistentHashRing(normalize(nodes));
+        logger.info("Node " + self + " now routes by " + ring.getNodes());
+    }
+
+    private static List<String> normalize(List<String> nodes) {
+        return nodes.stream().map(String::trim).filter(node -> !node.isEmpty()).map(ClusterMembership::normalize)
+                .distinct().toList();
+    }
+
+    private static String normalize(String node) {
+        return node.endsWith("/") ? node.substring(0, node.length() - 1) : node;
+    }
+}
@@ -0,0 +1,202 @@
+package com.rvg.springboot.myfirstwebapp.todo.cluster;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Servlet filter that sends each authenticated request to the node that owns the
+ * user's todos, so a client may talk to any node of a partitioned deployment.
+ *
+ * Runs after the security filters, once the user is known. Requests of users owned by
+ * this node continue down the chain; all others are proxied to the owner, with the
+ * request and response bodies streamed (change streams included). The login travels
+ * along in the client's own Authorization or cookie headers. A proxied request carries
+ * an X-Todo-Forwarded marker signed with the cluster key and is never proxied again,
+ * so nodes that briefly disagree about the ring, while it is being changed, cannot
+ * bounce a request around. Markers that are not validly signed are ignored, and
+ * client-supplied markers and cluster keys are not passed on to the owner.
+ *
+ * Unauthenticated requests, the login and logout pages, the actuator endpoints and
+ * the cluster endpoints are always served by the node that receives them.
+ */
+public class ClusterRoutingFilter extends OncePerRequestFilter {
+
+    static final String FORWARDED_HEADER = "X-Todo-Forwarded";
+
+    private static final List<String> LOCAL_PATHS = List.of("/login", "/logout", "/error", "/actuator/",
+            "/api/cluster/", "/h2-console");
+
+    // Hop-by-hop headers, and headers the HTTP client sets itself
+    private static final Set<String> SKIPPED_HEADERS = Set.of("connection", "content-length", "expect", "host",
+            "keep-alive", "proxy-authenticate", "proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade",
+            ":status", FORWARDED_HEADER.toLowerCase(Locale.ROOT), ClusterKey.HEADER.toLowerCase(Locale.ROOT));
+
+    private final Logger logger = Logger.getLogger(ClusterRoutingFilter.class.getName());
+
+    private final ClusterMembership membership;
+    private final ClusterKey clusterKey;
+    private final HttpClient client;
+
+    /**
+     * Creates a new ClusterRoutingFilter.
+     *
+     * @param membership the nodes and the owners of the users
+     * @param clusterKey the key forwarded markers are signed with
+     * @param client the client requests are proxied with
+     */
+    public ClusterRoutingFilter(ClusterMembership membership, ClusterKey clusterKey, HttpClient client) {
+        this.membership = membership;
+        this.clusterKey = clusterKey;
+        this.client = client;
+    }
+
+    /**
+     * @return an HTTP/1.1 client suitable for proxying between nodes
+     */
+    static HttpClient newClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (clusterKey.verifyForward(request.getHeader(FORWARDED_HEADER), request.getMethod(), target(request))) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String local : LOCAL_PATHS) {
+            if (path.startsWith(local)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String owner = membership.ownerOf(authentication.getName());
+        if (owner.equals(membership.getSelf())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        proxy(owner, request, response);
+    }
+
+    private void proxy(String owner, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String target = target(request);
+        HttpRequest.Builder forwarded = HttpRequest.newBuilder(URI.create(owner + target));
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    forwarded.header(name, value);
+                }
+            }
+        }
+        forwarded.header(FORWARDED_HEADER, clusterKey.signForward(membership.getSelf(), request.getMethod(), target));
+        boolean hasBody = request.getContentLengthLong() > 0 || request.getHeader(HttpHeaders.TRANSFER_ENCODING) != null;
+        forwarded.method(request.getMethod(), hasBody
+                ? HttpRequest.BodyPublishers.ofInputStream(() -> {
+                    try {
+                        return request.getInputStream();
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                : HttpRequest.BodyPublishers.noBody());
+
+        HttpResponse<InputStream> answer;
+        try {
+            answer = client.send(forwarded.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        } catch (ConnectException e) {
+            logger.log(Level.WARNING, "Cannot reach node " + owner, e);
+            response.sendError(HttpServletResponse.SC_BAD_GATEWAY);
+            return;
+        }
+
+        response.setStatus(answer.statusCode());
+        answer.headers().map().forEach((name, values) -> {
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                for (String value : values) {
+                    response.addHeader(name, name.equalsIgnoreCase(HttpHeaders.LOCATION)
+                            ? relocate(value, owner, request)
+                            : value);
+                }
+            }
+        });
+        try (InputStream body = answer.body()) {
+            OutputStream output = response.getOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = body.read(buffer)) >= 0) {
+                output.write(buffer, 0, read);
+                // Streamed responses, such as change events, must not wait for the buffer to fill
+                if (body.available() == 0) {
+                    output.flush();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param request a request
+     * @return the path and query of the request, as signed in forwarded markers
+     */
+    private static String target(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return request.getRequestURI() + (query == null ? "" : "?" + query);
+    }
+
+    /**
+     * Keeps redirects on the node the client talks to.
+     *
+     * @param location the Location header of the owner's response
+     * @param owner the base URL of the owner
+     * @param request the client's request
+     * @return the location, relative to this node if it pointed at the owner
+     */
+    private static String relocate(String location, String owner, HttpServletRequest request) {
+        if (!location.startsWith(owner)) {
+            return location;
+        }
+        String self = request.getRequestURL().toString();
+        return self.substring(0, self.length() - request.getRequestURI().length()) + location.substring(owner.length());
+    }
+}
@@ -0,0 +1,87 @@
+package com.rvg.springboot.myfirstwebapp.todo.cluster;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Consistent-hash ring that assigns keys (usernames) to nodes.
+ *
+ * Every node is placed on a ring of 64-bit hashes at many points (virtual nodes), and a
+ * key belongs to the node at the first point at or after the key's hash. Adding a node
+ * to N nodes therefore moves only about 1/(N+1) of the keys, all of them to the new
+ * node, and the virtual nodes keep the share of each node close to even.
+ *
+ * The ring is immutable; membership changes build a new ring. Lookups are a binary
+ * search over a sorted array and allocate nothing.
+ */
+public final class ConsistentHashRing {
+
+    static final int VIRTUAL_NODES = 160;
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    /**
+     * Builds a ring.
+     *
+     * @param nodes the nodes, at least one; their order does not matter
+     */
+    public ConsistentHashRing(List<String> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A ring needs at least one node");
+        }
+        this.nodes = List.copyOf(nodes);
+        long[][] entries = new long[nodes.size() * VIRTUAL_NODES][];
+        int n = 0;
+        for (int node = 0; node < nodes.size(); node++) {
+            for (int replica = 0; replica < VIRTUAL_NODES; replica++) {
+                entries[n++] = new long[] { hash(nodes.get(node) + "#" + replica), node };
+            }
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[entries.length];
+        this.owners = new String[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = nodes.get((int) entries[i][1]);
+        }
+    }
+
+    /**
+     * @param key the key, such as a username
+     * @return the node the key belongs to
+     */
+    public String ownerOf(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * @return the nodes of the ring
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * FNV-1a over the UTF-16 code units, followed by the MurmurHash3 finalizer so that
+     * similar keys, such as the virtual nodes of one node, spread over the whole ring.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
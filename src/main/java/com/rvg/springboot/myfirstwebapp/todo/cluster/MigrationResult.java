@@ -0,0 +1,13 @@
+package com.rvg.springboot.myfirstwebapp.todo.cluster;
+
+import java.util.List;
+
+/**
+ * Outcome of moving the users a node no longer owns to their owners.
+ *
+ * @param users the number of users moved completely
+ * @param todos the number of todos moved
+ * @param failed the users that could not be moved completely; their remaining todos stay on this node
+ */
+public record MigrationResult(int users, int todos, List<String> failed) {
+}
@@ -0,0 +1,216 @@
+package com.rvg.springboot.myfirstwebapp.todo.cluster;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+import com.rvg.springboot.myfirstwebapp.todo.TodoWriter;
+import com.rvg.springboot.myfirstwebapp.todo.transfer.TodoRecord;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Moves the todos of users this node no longer owns to the nodes that own them now,
+ * after nodes joined or left the ring.
+ *
+ * Each user is moved in batches in id order. A batch is sent to the owner, which saves
+ * it in one transaction, and only then deleted here, so a failure leaves every todo on
+ * at least one node and the move can simply be run again. If this node stops between
+ * the owner's commit and the local delete, that batch ends up on both nodes. Moved todos
+ * get new ids on their new node, and are announced there as new todos, which keeps the
+ * owner's caches, search index, statistics and notifications current.
+ *
+ * Moves run on a background thread, one at a time; a move requested while one runs
+ * is run again once it ends, so it sees the latest ring. Calls to the owner present
+ * the cluster key.
+ *
+ * Methods:
+ * - start(): Requests a move in the background.
+ * - isRunning(): Whether a move is running.
+ * - getLastResult(): The outcome of the last completed move.
+ * - rebalance(): Moves every user this node does not own.
+ * - receive(String username, List<TodoRecord> todos): Saves a batch moved here by another node.
+ */
+@Service
+@ConditionalOnExpression(ClusterMembership.ENABLED)
+public class TodoRebalancer {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final Logger logger = Logger.getLogger(TodoRebalancer.class.getName());
+
+    private final ClusterMembership membership;
+    private final TodoRepository todoRepository;
+    private final TodoWriter todoWriter;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final ClusterKey clusterKey;
+    private final HttpClient client = ClusterRoutingFilter.newClient();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("todo-rebalance").daemon().factory());
+    private final AtomicBoolean requested = new AtomicBoolean();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile MigrationResult lastResult;
+
+    public TodoRebalancer(ClusterMembership membership, ClusterKey clusterKey, TodoRepository todoRepository,
+            TodoWriter todoWriter, ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.membership = membership;
+        this.clusterKey = clusterKey;
+        this.todoRepository = todoRepository;
+        this.todoWriter = todoWriter;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Requests a move of the users this node does not own, on the background thread.
+     * If a move is running, another one follows it.
+     */
+    public void start() {
+        requested.set(true);
+        if (running.compareAndSet(false, true)) {
+            executor.execute(this::runRequested);
+        }
+    }
+
+    /**
+     * @return true while a move is running or requested
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * @return the outcome of the last completed move, or null if none completed yet
+     */
+    public MigrationResult getLastResult() {
+        return lastResult;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void runRequested() {
+        do {
+            while (requested.getAndSet(false)) {
+                try {
+                    lastResult = rebalance();
+                } catch (RuntimeException e) {
+                    logger.log(Level.SEVERE, "Cannot move users to other nodes", e);
+                }
+            }
+            running.set(false);
+            // A request that arrived after the loop but before running was cleared
+        } while (requested.get() && running.compareAndSet(false, true));
+    }
+
+    /**
+     * Moves the todos of every user this node does not own to the user's owner.
+     * Users are moved one after the other; a user that fails is reported and skipped.
+     *
+     * @return the number of users and todos moved, and the users that failed
+     */
+    public MigrationResult rebalance() {
+        int users = 0;
+        int todos = 0;
+        List<String> failed = new ArrayList<>();
+        for (String username : todoRepository.findUsernames()) {
+            if (membership.isLocal(username)) {
+                continue;
+            }
+            String owner = membership.ownerOf(username);
+            try {
+                todos += move(username, owner);
+                users++;
+            } catch (IOException | RuntimeException e) {
+                logger.log(Level.WARNING, "Cannot move the todos of " + username + " to " + owner, e);
+                failed.add(username);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.add(username);
+                break;
+            }
+        }
+        logger.info("Moved " + todos + " todos of " + users + " users to other nodes");
+        return new MigrationResult(users, todos, failed);
+    }
+
+    /**
+     * Saves todos moved here by another node as new todos of a user, in one transaction.
+     *
+     * @param username the owner of the todos
+     * @param todos the todos
+     * @return the number of saved todos
+     */
+    public int receive(String username, List<TodoRecord> todos) {
+        List<Todo> received = todos.stream()
+                .map(todo -> new Todo(0, username, todo.description(), todo.targetDate(), todo.done()))
+                .toList();
+        transaction.executeWithoutResult(status -> todoRepository.saveAll(received));
+        return received.size();
+    }
+
+    private int move(String username, String owner) throws IOException, InterruptedException {
+        // Changes still queued by the write-behind writer must be moved as well
+        todoWriter.awaitWrites(username);
+        URI target = URI.create(owner + "/api/cluster/import?username="
+                + URLEncoder.encode(username, StandardCharsets.UTF_8));
+        int moved = 0;
+        while (true) {
+            // Moved todos are deleted, so the next batch is always the first one left
+            List<Todo> batch = todoRepository.findByUsernameAndIdGreaterThanOrderByIdAsc(username, 0,
+                    Limit.of(BATCH_SIZE));
+            if (batch.isEmpty()) {
+                return moved;
+            }
+            send(target, batch);
+            List<Integer> ids = batch.stream().map(Todo::getId).toList();
+            transaction.executeWithoutResult(status -> todoRepository.deleteAll(todoRepository.findAllById(ids)));
+            moved += batch.size();
+        }
+    }
+
+    private void send(URI target, List<Todo> batch) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(target)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(ClusterKey.HEADER, clusterKey.getHeaderValue())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(toJson(batch)))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException(target + " answered " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private byte[] toJson(List<Todo> batch) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(batch.stream()
+                .map(todo -> new TodoRecord(todo.getId(), todo.getDescription(), todo.getTargetDate(), todo.isDone()))
+                .toList());
+    }
+}
@@ -0,0 +1,259 @@
+package com.rvg.springboot.myfirstwebapp.todo.reminder;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoChangedEvent;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+import com.rvg.springboot.myfirstwebapp.todo.store.TodoStoreConfiguration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Sends due-soon and overdue notifications for todos that are not done, without
+ * querying the database for due todos.
+ *
+ * Each open todo has one timer in a {@link TimingWheel}: first at the start of the day
+ * todo.reminders.due-soon before its target date, then, once that has fired, at the
+ * start of the day after its target date. Expired timers become {@link DueEvent}s for
+ * every {@link DueEventSink}. Once the overdue notification of a todo has fired, its
+ * target date is remembered, so later edits of the todo only notify again if they
+ * change the target date.
+ *
+ * The wheel is filled once when the application is ready, by walking the todo table
+ * in primary key batches, one batch per task so ticks keep running meanwhile. After
+ * that the table is never scanned again: change events only mark the changed todos,
+ * and every tick reads the marked todos by id and reschedules or cancels their timers.
+ * Listeners thus never touch the database, and a bulk import costs a few reads.
+ *
+ * All work runs on one thread, which owns the wheel; ticks happen every
+ * todo.reminders.tick. Todos that are already overdue at startup are reported again.
+ *
+ * Metrics: todo.reminders.scheduled (open timers) and todo.reminders.fired (events, tagged by kind).
+ */
+@Component
+@ConditionalOnExpression("${todo.reminders.enabled:true} and " + TodoStoreConfiguration.DATABASE)
+public class DueDateScheduler {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final Logger logger = Logger.getLogger(DueDateScheduler.class.getName());
+
+    private final TodoRepository todoRepository;
+    private final List<DueEventSink> sinks;
+    private final Duration dueSoon;
+    private final long tickMillis;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Owned by the scheduler thread
+    private final TimingWheel<Integer, DueEvent> wheel;
+    private boolean warmedUp;
+    // Target date of each todo whose overdue notification has fired
+    private final Map<Integer, LocalDate> overdueSent = new HashMap<>();
+
+    // Ids of changed todos, marked by any thread and read by the scheduler thread
+    private final Set<Integer> changed = ConcurrentHashMap.newKeySet();
+
+    private volatile int scheduled;
+    private final Counter dueSoonFired;
+    private final Counter overdueFired;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("todo-reminders").daemon().factory());
+
+    public DueDateScheduler(TodoRepository todoRepository, List<DueEventSink> sinks, MeterRegistry meterRegistry,
+            @Value("${todo.reminders.due-soon:1d}") Duration dueSoon,
+            @Value("${todo.reminders.tick:1s}") Duration tick,
+            @Value("${todo.reminders.wheel-size:512}") int wheelSize) {
+        this.todoRepository = todoRepository;
+        this.sinks = sinks;
+        this.dueSoon = dueSoon;
+        this.tickMillis = tick.toMillis();
+        this.wheel = new TimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+
+        Gauge.builder("todo.reminders.scheduled", this, scheduler -> scheduler.scheduled)
+                .description("Todos with a pending due-soon or overdue notification")
+                .register(meterRegistry);
+        this.dueSoonFired = Counter.builder("todo.reminders.fired").tag("kind", "due-soon")
+                .description("Due-soon and overdue notifications sent")
+                .register(meterRegistry);
+        this.overdueFired = Counter.builder("todo.reminders.fired").tag("kind", "overdue")
+                .description("Due-soon and overdue notifications sent")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts loading the todos and ticking once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(() -> warmUp(0));
+        executor.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Marks a committed change; the todo is read again at the next tick.
+     *
+     * @param event the change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTodoChanged(TodoChangedEvent event) {
+        changed.add(event.id());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Schedules the todos of one primary key batch and queues the next batch.
+     *
+     * @param after the id the batch starts after
+     */
+    private void warmUp(int after) {
+        try {
+            List<Todo> batch = todoRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(BATCH_SIZE));
+            batch.forEach(this::reschedule);
+            scheduled = wheel.size();
+            if (batch.size() == BATCH_SIZE) {
+                executor.execute(() -> warmUp(batch.get(batch.size() - 1).getId()));
+            } else {
+                // Marks set meanwhile are read from now on, so they win over older batch reads
+                warmedUp = true;
+                logger.info("Scheduled due date notifications for " + wheel.size() + " todos");
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Cannot load todos for due date notifications; retrying", e);
+            executor.schedule(() -> warmUp(after), 10 * tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Applies marked changes, then fires the timers that are due.
+     */
+    private void tick() {
+        try {
+            if (warmedUp) {
+                applyChanges();
+            }
+            for (DueEvent event : wheel.advance(System.currentTimeMillis())) {
+                fire(event);
+            }
+            scheduled = wheel.size();
+        } catch (RuntimeException e) {
+            // Thrown out of a periodic task, it would cancel all future ticks
+            logger.log(Level.SEVERE, "Due date tick failed", e);
+        }
+    }
+
+    /**
+     * Reads the marked todos by id and reschedules them; todos that are gone are cancelled.
+     */
+    private void applyChanges() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(changed);
+        changed.removeAll(ids);
+        try {
+            Set<Integer> found = new HashSet<>();
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                for (Todo todo : todoRepository.findAllById(ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())))) {
+                    reschedule(todo);
+                    found.add(todo.getId());
+                }
+            }
+            for (Integer id : ids) {
+                if (!found.contains(id)) {
+                    wheel.cancel(id);
+                    overdueSent.remove(id);
+                }
+            }
+        } catch (RuntimeException e) {
+            changed.addAll(ids);
+            throw e;
+        }
+    }
+
+    /**
+     * Schedules the next notification of a todo, or cancels it if it is done or was
+     * already reported overdue for its current target date.
+     *
+     * @param todo the current state of the todo
+     */
+    private void reschedule(Todo todo) {
+        if (todo.isDone() || todo.getTargetDate() == null
+                || todo.getTargetDate().equals(overdueSent.get(todo.getId()))) {
+            wheel.cancel(todo.getId());
+            return;
+        }
+        overdueSent.remove(todo.getId());
+        // A todo waiting to become overdue already had its due-soon notification, unless its date moved
+        DueEvent pending = wheel.get(todo.getId());
+        boolean dueSoonSent = pending != null && pending.kind() == DueEvent.Kind.OVERDUE
+                && pending.targetDate().equals(todo.getTargetDate());
+        DueEvent.Kind kind = dueSoonSent || overdueAt(todo.getTargetDate()) <= System.currentTimeMillis()
+                ? DueEvent.Kind.OVERDUE
+                : DueEvent.Kind.DUE_SOON;
+        DueEvent event = new DueEvent(kind, todo.getId(), todo.getUsername(), todo.getDescription(),
+                todo.getTargetDate());
+        wheel.schedule(todo.getId(), deadline(event), event);
+    }
+
+    private void fire(DueEvent event) {
+        (event.kind() == DueEvent.Kind.OVERDUE ? overdueFired : dueSoonFired).increment();
+        for (DueEventSink sink : sinks) {
+            try {
+                sink.onDue(event);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Due date sink " + sink.getClass().getName() + " failed", e);
+            }
+        }
+        if (event.kind() == DueEvent.Kind.OVERDUE) {
+            overdueSent.put(event.id(), event.targetDate());
+        } else {
+            DueEvent overdue = new DueEvent(DueEvent.Kind.OVERDUE, event.id(), event.username(), event.description(),
+                    event.targetDate());
+            wheel.schedule(event.id(), deadline(overdue), overdue);
+        }
+    }
+
+    private long deadline(DueEvent event) {
+        return event.kind() == DueEvent.Kind.OVERDUE
+                ? overdueAt(event.targetDate())
+                : event.targetDate().atStartOfDay(zone).minus(dueSoon).toInstant().toEpochMilli();
+    }
+
+    /**
+     * @return the start of the day after the target date, when a todo becomes overdue
+     */
+    private long overdueAt(LocalDate targetDate) {
+        return targetDate.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+}
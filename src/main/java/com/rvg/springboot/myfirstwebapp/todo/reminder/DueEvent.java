@@ -0,0 +1,25 @@
+package com.rvg.springboot.myfirstwebapp.todo.reminder;
+
+import java.time.LocalDate;
+
+/**
+ * A todo that is about to be due or has become overdue.
+ *
+ * @param kind whether the todo is due soon or overdue
+ * @param id the id of the todo
+ * @param username the owner of the todo
+ * @param description the description of the todo
+ * @param targetDate the target date of the todo
+ */
+public record DueEvent(Kind kind, int id, String username, String description, LocalDate targetDate) {
+
+    /**
+     * What happened to the todo.
+     */
+    public enum Kind {
+        /** The target date is within todo.reminders.due-soon. */
+        DUE_SOON,
+        /** The target date has passed and the todo is not done. */
+        OVERDUE
+    }
+}
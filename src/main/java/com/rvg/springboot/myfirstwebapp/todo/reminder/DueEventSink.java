@@ -0,0 +1,18 @@
+package com.rvg.springboot.myfirstwebapp.todo.reminder;
+
+/**
+ * Receives the due-soon and overdue notifications of the DueDateScheduler.
+ *
+ * Every bean implementing this interface receives every event. Sinks are called on the
+ * scheduler's thread, so they should hand slow work, such as sending mail, to their own
+ * executor. An exception thrown by one sink does not keep the event from the others.
+ */
+public interface DueEventSink {
+
+    /**
+     * Delivers one event.
+     *
+     * @param event the event
+     */
+    void onDue(DueEvent event);
+}
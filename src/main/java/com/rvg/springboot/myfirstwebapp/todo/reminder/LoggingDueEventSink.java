@@ -0,0 +1,20 @@
+package com.rvg.springboot.myfirstwebapp.todo.reminder;
+
+import java.util.logging.Logger;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * DueEventSink that writes every event to the log, standing in for real notifications.
+ */
+@Component
+public class LoggingDueEventSink implements DueEventSink {
+
+    private final Logger logger = Logger.getLogger(LoggingDueEventSink.class.getName());
+
+    @Override
+    public void onDue(DueEvent event) {
+        logger.info((event.kind() == DueEvent.Kind.OVERDUE ? "Overdue" : "Due soon") + ": todo " + event.id()
+                + " of " + event.username() + " (" + event.description() + "), target date " + event.targetDate());
+    }
+}
@@ -0,0 +1,169 @@
+package com.rvg.springboot.myfirstwebapp.todo.reminder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel: a ring of buckets, one per tick, holding timers by deadline.
+ *
+ * A timer goes into the bucket its deadline falls in, counted modulo the ring size,
+ * and remembers how many full turns of the ring remain before it is due. Each tick
+ * looks at one bucket only, so scheduling, cancelling and advancing cost O(1) per
+ * timer, whatever the number of timers; timers further away than one turn are merely
+ * passed over once per turn. Deadlines are rounded up to the next tick.
+ *
+ * Every timer has a key, and scheduling a key again replaces its timer. Buckets are
+ * doubly linked lists, so a timer is unlinked without searching its bucket.
+ *
+ * Not thread-safe: the wheel is meant to be owned by one thread.
+ *
+ * @param <K> the type of the timer keys
+ * @param <V> the type of the values handed back when timers expire
+ */
+class TimingWheel<K, V> {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final int mask;
+    private final Timer<K, V>[] buckets;
+    private final Map<K, Timer<K, V>> timers = new HashMap<>();
+
+    // The next tick to process
+    private long tick;
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param tickMillis the duration of one tick in milliseconds
+     * @param size the number of buckets, rounded up to a power of two
+     * @param startMillis the time of tick 0, in milliseconds since the epoch
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int size, long startMillis) {
+        if (tickMillis <= 0 || size <= 0) {
+            throw new IllegalArgumentException("Tick duration and size must be positive");
+        }
+        int buckets = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.mask = buckets - 1;
+        this.buckets = new Timer[buckets];
+    }
+
+    /**
+     * Schedules a timer, replacing the timer of the same key if there is one.
+     * A deadline in the past expires at the next call to {@link #advance(long)}.
+     *
+     * @param key the key of the timer
+     * @param deadline when the timer is due, in milliseconds since the epoch
+     * @param value the value handed back when the timer expires
+     */
+    void schedule(K key, long deadline, V value) {
+        cancel(key);
+        // The tick the deadline falls in, rounded up; never one that was already processed
+        long due = Math.max(Math.ceilDiv(deadline - startMillis, tickMillis), tick);
+        Timer<K, V> timer = new Timer<>(key, value, deadline, (due - tick) / buckets.length);
+        int index = (int) (due & mask);
+        timer.next = buckets[index];
+        if (timer.next != null) {
+            timer.next.previous = timer;
+        }
+        buckets[index] = timer;
+        timer.bucket = index;
+        timers.put(key, timer);
+    }
+
+    /**
+     * Cancels a timer.
+     *
+     * @param key the key of the timer
+     * @return true if a timer was cancelled, false if there was none
+     */
+    boolean cancel(K key) {
+        Timer<K, V> timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+    /**
+     * Processes every tick up to a time and removes the timers that expired.
+     *
+     * @param now the current time in milliseconds since the epoch
+     * @return the values of the expired timers, in deadline order
+     */
+    List<V> advance(long now) {
+        List<Timer<K, V>> expired = new ArrayList<>();
+        while (startMillis + tick * tickMillis <= now) {
+            Timer<K, V> timer = buckets[(int) (tick & mask)];
+            while (timer != null) {
+                Timer<K, V> next = timer.next;
+                if (timer.rounds <= 0) {
+                    unlink(timer);
+                    timers.remove(timer.key);
+                    expired.add(timer);
+                } else {
+                    timer.rounds--;
+                }
+                timer = next;
+            }
+            tick++;
+        }
+        expired.sort((a, b) -> Long.compare(a.deadline, b.deadline));
+        return expired.stream().map(timer -> timer.value).toList();
+    }
+
+    /**
+     * Looks up the value of a scheduled timer.
+     *
+     * @param key the key of the timer
+     * @return the value, or null if no timer is scheduled for the key
+     */
+    V get(K key) {
+        Timer<K, V> timer = timers.get(key);
+        return timer == null ? null : timer.value;
+    }
+
+    /**
+     * @return the number of scheduled timers
+     */
+    int size() {
+        return timers.size();
+    }
+
+    private void unlink(Timer<K, V> timer) {
+        if (timer.previous != null) {
+            timer.previous.next = timer.next;
+        } else {
+            buckets[timer.bucket] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        timer.previous = null;
+        timer.next = null;
+    }
+
+    private static final class Timer<K, V> {
+
+        final K key;
+        final V value;
+        final long deadline;
+        // Full turns of the wheel left before the timer is due
+        long rounds;
+        int bucket;
+        Timer<K, V> previous;
+        Timer<K, V> next;
+
+        Timer(K key, V value, long deadline, long rounds) {
+            this.key = key;
+            this.value = value;
+            this.deadline = deadline;
+            this.rounds = rounds;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.rvg.springboot.myfirstwebapp.todo.search;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import com.rvg.springboot.myfirstwebapp.todo.TodoSummary;
+
+/**
+ * Inverted index over the descriptions of one user's todos.
+ *
+ * Descriptions are split into lower-case words. The term dictionary is sorted, so the
+ * terms that start with a query word are one contiguous range of it. Each term has a
+ * posting list: the ids of the todos that contain it, sorted, with the number of times
+ * the term occurs, kept in two int arrays. Todo ids come from a sequence, so new todos
+ * are appended at the end of their posting lists.
+ *
+ * A query matches todos that contain every query word, each as a whole word or as the
+ * start of one. The word with the shortest posting lists picks the candidates; the other
+ * words are looked up in the candidates' posting entries by binary search, so a query
+ * never walks the long posting lists of frequent words. Hits are ranked by TF-IDF:
+ * words that are rare among the user's todos count more, prefix matches count half, and
+ * scores are divided by the square root of the description length.
+ *
+ * Reads share a lock; changes take it exclusively.
+ */
+class InvertedIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // How much a term that only starts with a query word counts, compared to the word itself
+    private static final double PREFIX_WEIGHT = 0.5;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Held by TodoSearchService while it reads changed todos and reindexes them
+    final ReentrantLock reindexLock = new ReentrantLock();
+
+    // Guarded by lock
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+
+    /**
+     * Splits a text into lower-case words.
+     *
+     * @param text the text, may be null
+     * @return the words, in order, with repetitions
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Adds a todo, or replaces the indexed version of it.
+     *
+     * @param todo the todo
+     */
+    void put(TodoSummary todo) {
+        Map<String, Integer> frequencies = frequencies(todo.getDescription());
+        lock.writeLock().lock();
+        try {
+            removeLocked(todo.getId());
+            int length = 0;
+            for (Map.Entry<String, Integer> term : frequencies.entrySet()) {
+                terms.computeIfAbsent(term.getKey(), key -> new Postings()).put(todo.getId(), term.getValue());
+                length += term.getValue();
+            }
+            documents.put(todo.getId(), new Document(todo, frequencies.keySet().toArray(String[]::new), length));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a todo, if it is indexed.
+     *
+     * @param id the id of the todo
+     */
+    void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed todos
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the todos that contain every word of a query, as a word or word prefix.
+     *
+     * @param query the query text
+     * @param limit the maximum number of todos to return
+     * @return the best matching todos, best first; ties are ordered by target date
+     */
+    List<TodoSummary> search(String query, int limit) {
+        List<String> words = tokenize(query).stream().distinct().toList();
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<List<Match>> matches = new ArrayList<>(words.size());
+            for (String word : words) {
+                List<Match> wordMatches = expand(word);
+                if (wordMatches.isEmpty()) {
+                    return List.of();
+                }
+                matches.add(wordMatches);
+            }
+            // The rarest word generates the candidates
+            matches.sort(Comparator.comparingInt(InvertedIndex::postingCount));
+
+            Map<Integer, Double> scores = new HashMap<>();
+            for (Match match : matches.get(0)) {
+                Postings postings = match.postings();
+                for (int i = 0; i < postings.size; i++) {
+                    scores.merge(postings.ids[i], match.weight() * postings.frequencies[i], Double::sum);
+                }
+            }
+            for (List<Match> wordMatches : matches.subList(1, matches.size())) {
+                Iterator<Map.Entry<Integer, Double>> candidates = scores.entrySet().iterator();
+                while (candidates.hasNext()) {
+                    Map.Entry<Integer, Double> candidate = candidates.next();
+                    double score = 0;
+                    for (Match match : wordMatches) {
+                        score += match.weight() * match.postings().frequency(candidate.getKey());
+                    }
+                    if (score == 0) {
+                        candidates.remove();
+                    } else {
+                        candidate.setValue(candidate.getValue() + score);
+                    }
+                }
+            }
+
+            return top(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Looks up the terms a query word matches, with the weight of each.
+     * Must be called under the lock.
+     */
+    private List<Match> expand(String word) {
+        List<Match> matches = new ArrayList<>();
+        // The range of terms that start with the word, the word itself first
+        for (Map.Entry<String, Postings> term : terms.subMap(word, true, word + Character.MAX_VALUE, false).entrySet()) {
+            Postings postings = term.getValue();
+            double idf = Math.log(1 + (double) documents.size() / postings.size);
+            matches.add(new Match(postings, term.getKey().equals(word) ? idf : PREFIX_WEIGHT * idf));
+        }
+        return matches;
+    }
+
+    /**
+     * Picks the best scoring todos, normalizing scores by description length.
+     * Must be called under the lock.
+     */
+    private List<TodoSummary> top(Map<Integer, Double> scores, int limit) {
+        // From worst to best: lower score, then later target date, then newer todo
+        Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score)
+                .thenComparing(hit -> hit.document().todo().getTargetDate(),
+                        Comparator.nullsFirst(Comparator.<LocalDate>reverseOrder()))
+                .thenComparing(Comparator.comparingInt((Hit hit) -> hit.document().todo().getId()).reversed());
+        // Min-heap of the best hits so far: the worst of them is evicted first
+        PriorityQueue<Hit> best = new PriorityQueue<>(ranking);
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            Document document = documents.get(entry.getKey());
+            best.add(new Hit(document, entry.getValue() / Math.sqrt(Math.max(1, document.length()))));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<TodoSummary> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(best.poll().document().todo());
+        }
+        return result.reversed();
+    }
+
+    /**
+     * Must be called under the write lock.
+     */
+    private void removeLocked(int id) {
+        Document previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms()) {
+            Postings postings = terms.get(term);
+            postings.remove(id);
+            if (postings.size == 0) {
+                terms.remove(term);
+            }
+        }
+    }
+
+    private static int postingCount(List<Match> matches) {
+        int count = 0;
+        for (Match match : matches) {
+            count += match.postings().size;
+        }
+        return count;
+    }
+
+    private static Map<String, Integer> frequencies(String description) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        for (String word : tokenize(description)) {
+            frequencies.merge(word, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    /**
+     * An indexed todo, with its distinct terms so it can be removed again.
+     */
+    private record Document(TodoSummary todo, String[] terms, int length) {
+    }
+
+    private record Match(Postings postings, double weight) {
+    }
+
+    private record Hit(Document document, double score) {
+    }
+
+    /**
+     * The todos that contain one term: sorted ids with the term's frequency in each.
+     */
+    static final class Postings {
+
+        int[] ids = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+
+        /**
+         * Adds a todo, or sets its frequency if it is already in the list.
+         */
+        void put(int id, int frequency) {
+            // Ids mostly grow, so check the end first
+            int index = size > 0 && ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                frequencies[index] = frequency;
+                return;
+            }
+            int insertAt = -(index + 1);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            frequencies[insertAt] = frequency;
+            size++;
+        }
+
+        void remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+            size--;
+        }
+
+        /**
+         * @return how often the term occurs in a todo, 0 if it does not
+         */
+        int frequency(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            return index >= 0 ? frequencies[index] : 0;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.rvg.springboot.myfirstwebapp.todo.search;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.ModelMap;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.rvg.springboot.myfirstwebapp.todo.TodoSummary;
+import com.rvg.springboot.myfirstwebapp.todo.store.TodoStoreConfiguration;
+
+/**
+ * This controller serves the search page for the logged-in user's todos.
+ *
+ * Methods:
+ * - searchTodos(ModelMap model, String q, int size): Handles the request to search the user's todos.
+ * - getLoggedInUserName(ModelMap model): Retrieves the username of the currently authenticated user.
+ */
+@Controller
+@ConditionalOnExpression(TodoStoreConfiguration.DATABASE)
+public class TodoSearchController {
+
+    private final TodoSearchService todoSearchService;
+
+    public TodoSearchController(TodoSearchService todoSearchService) {
+        this.todoSearchService = todoSearchService;
+    }
+
+    /**
+     * Handles the request to search the logged-in user's todos by description.
+     * Every word of the query must appear in a description, as a word or the start of one.
+     *
+     * @param model the ModelMap object to pass attributes to the view
+     * @param q the query; the page shows just the search form when it is blank
+     * @param size the maximum number of todos to show
+     * @return the name of the view to be rendered, in this case "searchTodos"
+     */
+    @RequestMapping(value = "search-todos", method = RequestMethod.GET)
+    public String searchTodos(ModelMap model, @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "" + TodoSearchService.DEFAULT_LIMIT) int size) {
+        List<TodoSummary> todos = q.isBlank()
+                ? List.of()
+                : todoSearchService.search(getLoggedInUserName(model), q, size);
+        model.addAttribute("q", q);
+        model.addAttribute("todos", todos);
+        model.addAttribute("searchReady", todoSearchService.isReady());
+        return "searchTodos";
+    }
+
+    /**
+     * Retrieves the username of the currently authenticated user from the security context.
+     *
+     * @param model the ModelMap object that holds the model attributes for the view
+     * @return the username of the currently authenticated user
+     */
+    private String getLoggedInUserName(ModelMap model) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication.getName();
+    }
+}
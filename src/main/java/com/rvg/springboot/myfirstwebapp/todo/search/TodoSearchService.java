@@ -0,0 +1,199 @@
+package com.rvg.springboot.myfirstwebapp.todo.search;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoChangedEvent;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+import com.rvg.springboot.myfirstwebapp.todo.TodoSummary;
+import com.rvg.springboot.myfirstwebapp.todo.TodoWriter;
+import com.rvg.springboot.myfirstwebapp.todo.store.TodoStoreConfiguration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Full-text search over the descriptions of a user's todos, served from memory.
+ *
+ * Every user has their own {@link InvertedIndex}, so a query only looks at that
+ * user's terms and its cost does not grow with the number of users. The indexes are
+ * built from the database once the application is ready, on a background thread,
+ * walking the todo table in primary key batches; searches made before that answer
+ * from what has been indexed so far and {@link #isReady()} is false.
+ *
+ * Changes arrive as TodoChangedEvents, whichever code path made them. The event only
+ * marks the todo as changed; the todo is read and reindexed when its owner next
+ * searches, together with the user's other changed todos. Writes never wait for the
+ * index, and a bulk import costs one primary key range read at the next search
+ * instead of one read per todo.
+ *
+ * The number of indexed todos is published to Micrometer as todo.search.indexed.
+ *
+ * Methods:
+ * - search(String username, String query, int limit): Finds the user's todos best matching a query.
+ * - isReady(): Tells whether the indexes have been built from the database.
+ * - onTodoChanged(TodoChangedEvent event): Marks a changed todo for reindexing.
+ * - rebuild(): Builds the indexes of all users from the database.
+ */
+@Service
+@ConditionalOnExpression(TodoStoreConfiguration.DATABASE)
+public class TodoSearchService {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final Logger logger = Logger.getLogger(TodoSearchService.class.getName());
+
+    private final TodoRepository todoRepository;
+    private final TodoWriter todoWriter;
+
+    // Replaced as a whole when the rebuild completes
+    private volatile ConcurrentMap<String, InvertedIndex> indexes = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    // Ids of changed todos per user, not yet reindexed
+    private final ConcurrentMap<String, Set<Integer>> changed = new ConcurrentHashMap<>();
+
+    public TodoSearchService(TodoRepository todoRepository, TodoWriter todoWriter, MeterRegistry meterRegistry) {
+        this.todoRepository = todoRepository;
+        this.todoWriter = todoWriter;
+        Gauge.builder("todo.search.indexed", this, service -> service.indexes.values().stream()
+                        .mapToInt(InvertedIndex::size).sum())
+                .description("Todos in the search indexes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Finds the user's todos whose descriptions contain every word of a query,
+     * as a whole word or as the start of one, best matches first.
+     *
+     * @param username the owner of the todos
+     * @param query the words to look for
+     * @param limit the maximum number of todos to return, capped at {@value #MAX_LIMIT}
+     * @return the matching todos, best first
+     */
+    public List<TodoSummary> search(String username, String query, int limit) {
+        todoWriter.awaitWrites(username);
+        reindexChanged(username);
+        InvertedIndex index = indexes.get(username);
+        if (index == null) {
+            return List.of();
+        }
+        return index.search(query, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * @return true once the indexes have been built from the database
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Marks a committed change for reindexing at the owner's next search.
+     *
+     * @param event the change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTodoChanged(TodoChangedEvent event) {
+        changed.computeIfAbsent(event.username(), key -> ConcurrentHashMap.newKeySet()).add(event.id());
+    }
+
+    /**
+     * Starts building the indexes once the application is ready to serve requests.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRebuild() {
+        Thread.ofVirtual().name("todo-search-rebuild").start(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "Cannot build the todo search index", e);
+            }
+        });
+    }
+
+    /**
+     * Builds the indexes of all users from the database and swaps them in.
+     * Changes committed meanwhile stay marked and are reindexed at the next search.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        ConcurrentMap<String, InvertedIndex> rebuilt = new ConcurrentHashMap<>();
+        int count = 0;
+        int after = 0;
+        while (true) {
+            List<Todo> batch = todoRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(REBUILD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (Todo todo : batch) {
+                rebuilt.computeIfAbsent(todo.getUsername(), key -> new InvertedIndex()).put(toSummary(todo));
+            }
+            count += batch.size();
+            after = batch.get(batch.size() - 1).getId();
+        }
+        indexes = rebuilt;
+        ready = true;
+        logger.info("Indexed " + count + " todos of " + rebuilt.size() + " users for search in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Reads the user's changed todos and updates their index.
+     *
+     * @param username the owner of the todos
+     */
+    private void reindexChanged(String username) {
+        Set<Integer> userChanged = changed.get(username);
+        if (userChanged == null || userChanged.isEmpty()) {
+            return;
+        }
+        InvertedIndex index = indexes.computeIfAbsent(username, key -> new InvertedIndex());
+        // One reindex per user at a time, so an older read of a todo never overwrites a newer one
+        index.reindexLock.lock();
+        try {
+            Set<Integer> ids = new HashSet<>(userChanged);
+            // Until the rebuild is swapped in, keep the marks: the rebuild may have read older states
+            if (ready) {
+                userChanged.removeAll(ids);
+            }
+
+            Map<Integer, TodoSummary> found = new HashMap<>();
+            for (TodoSummary todo : todoRepository.findSummariesByIds(username, ids)) {
+                found.put(todo.getId(), todo);
+            }
+            for (Integer id : ids) {
+                TodoSummary todo = found.get(id);
+                if (todo == null) {
+                    index.remove(id);
+                } else {
+                    index.put(todo);
+                }
+            }
+        } finally {
+            index.reindexLock.unlock();
+        }
+    }
+
+    private static TodoSummary toSummary(Todo todo) {
+        return new TodoSummary(todo.getId(), todo.getDescription(), todo.getTargetDate(), todo.isDone());
+    }
+}
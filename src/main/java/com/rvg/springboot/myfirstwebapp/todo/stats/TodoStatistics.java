@@ -0,0 +1,16 @@
+package com.rvg.springboot.myfirstwebapp.todo.stats;
+
+import java.time.LocalDate;
+
+/**
+ * Counts of one user's todos, as shown on the dashboard.
+ *
+ * @param total the number of todos
+ * @param done the number of todos that are done
+ * @param open the number of todos that are not done
+ * @param overdue the open todos whose target date has passed
+ * @param dueThisWeek the open todos due today or in the next six days
+ * @param date the day the counts refer to
+ */
+public record TodoStatistics(long total, long done, long open, long overdue, long dueThisWeek, LocalDate date) {
+}
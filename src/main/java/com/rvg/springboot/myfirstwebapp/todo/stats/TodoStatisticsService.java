@@ -0,0 +1,319 @@
+package com.rvg.springboot.myfirstwebapp.todo.stats;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoChangedEvent;
+import com.rvg.springboot.myfirstwebapp.todo.TodoCount;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+import com.rvg.springboot.myfirstwebapp.todo.TodoSummary;
+import com.rvg.springboot.myfirstwebapp.todo.TodoWriter;
+import com.rvg.springboot.myfirstwebapp.todo.stats.UserStatistics.TodoState;
+import com.rvg.springboot.myfirstwebapp.todo.store.TodoStoreConfiguration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Per-user todo counts (total, done, overdue, due this week), kept in memory and
+ * updated incrementally, so reading them does not depend on the number of todos.
+ *
+ * The counters are loaded once when the application is ready, walking the todo table
+ * in primary key batches on a background thread. After that, changes arrive as
+ * TodoChangedEvents, whichever code path made them; the event only marks the todo.
+ * When its owner next reads the counts, the marked todos are read by id and each one
+ * moves its count from its previous state to its new one. Overdue and due-this-week
+ * counts follow the calendar: on the first read of a new day they are recomputed from
+ * the per-date counts of open todos, without reading the database.
+ *
+ * Every todo.stats.reconcile-interval, the counters are compared with one aggregate
+ * query over the table. Changes committed while the query runs may be counted by it
+ * but not applied yet, so users with such changes are compared at a later run, and a
+ * difference is only corrected when the next run finds the same one again; it is then
+ * added to the counters. Corrected users are counted in the todo.stats.drift metric.
+ *
+ * Methods:
+ * - getStatistics(String username): Returns the counts of a user's todos.
+ * - isReady(): Tells whether the counters have been loaded from the database.
+ * - onTodoChanged(TodoChangedEvent event): Marks a changed todo.
+ * - reconcile(): Corrects the counters from the database.
+ */
+@Service
+@ConditionalOnExpression(TodoStoreConfiguration.DATABASE)
+public class TodoStatisticsService {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final Logger logger = Logger.getLogger(TodoStatisticsService.class.getName());
+
+    private final TodoRepository todoRepository;
+    private final TodoWriter todoWriter;
+    private final Duration reconcileInterval;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Replaced as a whole when the load completes
+    private volatile ConcurrentMap<String, UserStatistics> users = new ConcurrentHashMap<>();
+    private volatile LocalDate today = LocalDate.now(zone);
+    private volatile boolean ready;
+
+    // Ids of changed todos per user, not yet applied
+    private final ConcurrentMap<String, Set<Integer>> changed = new ConcurrentHashMap<>();
+
+    // Changes and reads share the read lock; a new day and reconciliation take the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Counter drift;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("todo-statistics").daemon().factory());
+
+    public TodoStatisticsService(TodoRepository todoRepository, TodoWriter todoWriter, MeterRegistry meterRegistry,
+            @Value("${todo.stats.reconcile-interval:1h}") Duration reconcileInterval) {
+        this.todoRepository = todoRepository;
+        this.todoWriter = todoWriter;
+        this.reconcileInterval = reconcileInterval;
+        this.drift = Counter.builder("todo.stats.drift")
+                .description("Users whose todo counts were corrected by reconciliation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the counts of a user's todos. The user's own changes are visible,
+     * including queued write-behind edits.
+     *
+     * @param username the owner of the todos
+     * @return the counts for today
+     */
+    public TodoStatistics getStatistics(String username) {
+        todoWriter.awaitWrites(username);
+        rollOver();
+        applyChanges(username);
+        lock.readLock().lock();
+        try {
+            UserStatistics stats = users.get(username);
+            return stats == null ? new TodoStatistics(0, 0, 0, 0, 0, today) : stats.snapshot(today);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return true once the counters have been loaded from the database
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Marks a committed change; the todo is read at its owner's next read of the counts.
+     *
+     * @param event the change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTodoChanged(TodoChangedEvent event) {
+        changed.computeIfAbsent(event.username(), key -> ConcurrentHashMap.newKeySet()).add(event.id());
+    }
+
+    /**
+     * Starts loading the counters once the application is ready, and schedules reconciliation.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(this::load);
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                reconcile();
+            } catch (RuntimeException e) {
+                // Thrown out of a periodic task, it would cancel all future runs
+                logger.log(Level.SEVERE, "Cannot reconcile the todo statistics", e);
+            }
+        }, reconcileInterval.toMillis(), reconcileInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Compares the counters of every user with the database and corrects differences
+     * found by two runs in a row. The database is counted before the lock is taken;
+     * reads and changes are only held back while pending changes are applied and the
+     * counters are compared.
+     */
+    public void reconcile() {
+        if (!ready) {
+            return;
+        }
+        long start = System.nanoTime();
+        int drifted = 0;
+        LocalDate now = LocalDate.now(zone);
+        Map<String, UserStatistics> expected = new HashMap<>();
+        for (TodoCount count : todoRepository.countByUsernameAndTargetDateAndDone()) {
+            expected.computeIfAbsent(count.username(), key -> new UserStatistics())
+                    .count(new TodoState(count.targetDate(), count.done()), count.count(), now);
+        }
+        lock.writeLock().lock();
+        try {
+            for (String username : changed.keySet()) {
+                applyChanges(username);
+            }
+            for (String username : expected.keySet()) {
+                users.computeIfAbsent(username, key -> new UserStatistics());
+            }
+            for (Map.Entry<String, UserStatistics> entry : users.entrySet()) {
+                UserStatistics stats = entry.getValue();
+                stats.recount(now);
+                Set<Integer> userChanged = changed.get(entry.getKey());
+                if (userChanged != null && !userChanged.isEmpty()) {
+                    // Changed meanwhile: the query may count changes not applied yet
+                    stats.suspectedDrift = null;
+                    continue;
+                }
+                UserStatistics difference = expected.getOrDefault(entry.getKey(), new UserStatistics()).minus(stats);
+                if (difference.isZero()) {
+                    stats.suspectedDrift = null;
+                } else if (stats.suspectedDrift != null && stats.suspectedDrift.sameCounts(difference)) {
+                    logger.warning("Todo statistics of " + entry.getKey() + " drifted by " + difference.snapshot(now)
+                            + "; corrected");
+                    stats.add(difference);
+                    stats.suspectedDrift = null;
+                    drifted++;
+                } else {
+                    // A change committed around the query may not be marked or counted yet; confirm at the next run
+                    stats.suspectedDrift = difference;
+                }
+            }
+            today = now;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        drift.increment(drifted);
+        logger.fine("Reconciled todo statistics in " + (System.nanoTime() - start) / 1_000_000 + " ms, "
+                + drifted + " users corrected");
+    }
+
+    /**
+     * Loads the counters of all users from the database and swaps them in. Changes
+     * committed meanwhile stay marked and are applied afterwards.
+     */
+    private void load() {
+        try {
+            long start = System.nanoTime();
+            LocalDate loadDay = LocalDate.now(zone);
+            ConcurrentMap<String, UserStatistics> loaded = new ConcurrentHashMap<>();
+            int count = 0;
+            int after = 0;
+            while (true) {
+                List<Todo> batch = todoRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(BATCH_SIZE));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (Todo todo : batch) {
+                    loaded.computeIfAbsent(todo.getUsername(), key -> new UserStatistics())
+                            .apply(todo.getId(), new TodoState(todo.getTargetDate(), todo.isDone()), loadDay);
+                }
+                count += batch.size();
+                after = batch.get(batch.size() - 1).getId();
+            }
+            lock.writeLock().lock();
+            try {
+                users = loaded;
+                today = loadDay;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Counted " + count + " todos of " + loaded.size() + " users for statistics in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Cannot load the todo statistics; retrying", e);
+            executor.schedule(this::load, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Reads the user's changed todos and applies them to the counters.
+     *
+     * @param username the owner of the todos
+     */
+    private void applyChanges(String username) {
+        Set<Integer> userChanged = changed.get(username);
+        if (!ready || userChanged == null || userChanged.isEmpty()) {
+            return;
+        }
+        // Read lock first, then the user's lock: reconcile() takes them in the same order
+        lock.readLock().lock();
+        try {
+            UserStatistics stats = users.computeIfAbsent(username, key -> new UserStatistics());
+            stats.applyLock.lock();
+            try {
+                Set<Integer> ids = new HashSet<>(userChanged);
+                userChanged.removeAll(ids);
+                try {
+                    Map<Integer, TodoSummary> found = new HashMap<>();
+                    for (TodoSummary todo : todoRepository.findSummariesByIds(username, ids)) {
+                        found.put(todo.getId(), todo);
+                    }
+                    for (Integer id : ids) {
+                        TodoSummary todo = found.get(id);
+                        stats.apply(id, todo == null ? null : new TodoState(todo.getTargetDate(), todo.isDone()),
+                                today);
+                    }
+                } catch (RuntimeException e) {
+                    // Applying a todo twice is harmless: its previous state is then its current one
+                    userChanged.addAll(ids);
+                    throw e;
+                }
+            } finally {
+                stats.applyLock.unlock();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recomputes the date-dependent counters of all users once the day has changed.
+     */
+    private void rollOver() {
+        LocalDate now = LocalDate.now(zone);
+        if (now.equals(today)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!now.equals(today)) {
+                users.values().forEach(stats -> stats.recount(now));
+                today = now;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.rvg.springboot.myfirstwebapp.todo.stats;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * The counters of one user, with the last known state of each of the user's todos.
+ *
+ * Counters are LongAdders: concurrent changes add to separate cells instead of
+ * contending for one value, and only reading a count sums the cells. Open todos are
+ * also counted per target date, so the date-dependent counters (overdue, due this
+ * week) can be recomputed when the day changes without reading any todo.
+ *
+ * Changes are applied under the read lock of TodoStatisticsService, so several can
+ * run at once; {@link #recount(LocalDate)} and {@link #add(UserStatistics)} need its
+ * write lock.
+ */
+final class UserStatistics {
+
+    /**
+     * The fields of a todo that the counters depend on.
+     *
+     * @param targetDate the target date, may be null
+     * @param done the status
+     */
+    record TodoState(LocalDate targetDate, boolean done) {
+    }
+
+    final LongAdder total = new LongAdder();
+    final LongAdder done = new LongAdder();
+    final LongAdder overdue = new LongAdder();
+    final LongAdder dueThisWeek = new LongAdder();
+
+    // Open todos per target date; open todos without a date are only in total
+    private final ConcurrentMap<LocalDate, LongAdder> openByDate = new ConcurrentHashMap<>();
+
+    // Last known state of each todo, to turn a change into increments and decrements
+    private final ConcurrentMap<Integer, TodoState> states = new ConcurrentHashMap<>();
+
+    // One application of changes per user at a time, so an older read never overwrites a newer one
+    final ReentrantLock applyLock = new ReentrantLock();
+
+    // Difference to the database found by the last reconciliation, not yet confirmed
+    UserStatistics suspectedDrift;
+
+    /**
+     * Records the new state of a todo, moving its count from where its previous
+     * state was counted.
+     *
+     * @param id the id of the todo
+     * @param state the new state, or null if the todo was deleted
+     * @param today the current day
+     */
+    void apply(int id, TodoState state, LocalDate today) {
+        TodoState previous = state == null ? states.remove(id) : states.put(id, state);
+        if (Objects.equals(previous, state)) {
+            return;
+        }
+        if (previous != null) {
+            count(previous, -1, today);
+        }
+        if (state != null) {
+            count(state, 1, today);
+        }
+    }
+
+    /**
+     * Adds todos sharing a state to the counters.
+     *
+     * @param state the state of the todos
+     * @param count the number of todos, negative to remove them
+     * @param today the current day
+     */
+    void count(TodoState state, long count, LocalDate today) {
+        total.add(count);
+        if (state.done()) {
+            done.add(count);
+            return;
+        }
+        LocalDate date = state.targetDate();
+        if (date == null) {
+            return;
+        }
+        openByDate.computeIfAbsent(date, key -> new LongAdder()).add(count);
+        if (date.isBefore(today)) {
+            overdue.add(count);
+        } else if (!date.isAfter(today.plusDays(6))) {
+            dueThisWeek.add(count);
+        }
+    }
+
+    /**
+     * Recomputes the overdue and due-this-week counters for a new day from the
+     * counts per target date, and drops dates no open todo has any more.
+     *
+     * @param today the new day
+     */
+    void recount(LocalDate today) {
+        openByDate.values().removeIf(count -> count.sum() == 0);
+        long overdueCount = 0;
+        long dueThisWeekCount = 0;
+        for (Map.Entry<LocalDate, LongAdder> entry : openByDate.entrySet()) {
+            if (entry.getKey().isBefore(today)) {
+                overdueCount += entry.getValue().sum();
+            } else if (!entry.getKey().isAfter(today.plusDays(6))) {
+                dueThisWeekCount += entry.getValue().sum();
+            }
+        }
+        set(overdue, overdueCount);
+        set(dueThisWeek, dueThisWeekCount);
+    }
+
+    /**
+     * @param other the counters to compare with
+     * @return true if both have the same counts, per target date included
+     */
+    boolean sameCounts(UserStatistics other) {
+        return total.sum() == other.total.sum() && done.sum() == other.done.sum()
+                && overdue.sum() == other.overdue.sum() && dueThisWeek.sum() == other.dueThisWeek.sum()
+                && openCounts().equals(other.openCounts());
+    }
+
+    /**
+     * @param other the counters to subtract
+     * @return new counters holding the differences of the counts; todo states are not included
+     */
+    UserStatistics minus(UserStatistics other) {
+        UserStatistics difference = new UserStatistics();
+        difference.add(this, 1);
+        difference.add(other, -1);
+        return difference;
+    }
+
+    /**
+     * Adds the counts of other counters, such as a difference found by reconciliation.
+     * The todo states are left as they are.
+     *
+     * @param other the counters to add
+     */
+    void add(UserStatistics other) {
+        add(other, 1);
+    }
+
+    /**
+     * @return true if every count is zero
+     */
+    boolean isZero() {
+        return sameCounts(new UserStatistics());
+    }
+
+    /**
+     * @param today the day the counters refer to
+     * @return the current counts
+     */
+    TodoStatistics snapshot(LocalDate today) {
+        long totalCount = total.sum();
+        long doneCount = done.sum();
+        return new TodoStatistics(totalCount, doneCount, totalCount - doneCount, overdue.sum(), dueThisWeek.sum(),
+                today);
+    }
+
+    private Map<LocalDate, Long> openCounts() {
+        return openByDate.entrySet().stream()
+                .filter(entry -> entry.getValue().sum() != 0)
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+    }
+
+    private void add(UserStatistics other, int sign) {
+        total.add(sign * other.total.sum());
+        done.add(sign * other.done.sum());
+        overdue.add(sign * other.overdue.sum());
+        dueThisWeek.add(sign * other.dueThisWeek.sum());
+        other.openCounts().forEach((date, count) -> openByDate.computeIfAbsent(date, key -> new LongAdder())
+                .add(sign * count));
+    }
+
+    private static void set(LongAdder adder, long value) {
+        adder.reset();
+        adder.add(value);
+    }
+}
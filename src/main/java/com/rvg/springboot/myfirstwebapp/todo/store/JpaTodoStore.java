@@ -0,0 +1,89 @@
+package com.rvg.springboot.myfirstwebapp.todo.store;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoPage;
+import com.rvg.springboot.myfirstwebapp.todo.TodoQueryService;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+import com.rvg.springboot.myfirstwebapp.todo.TodoUpdateService;
+import com.rvg.springboot.myfirstwebapp.todo.TodoWriter;
+
+/**
+ * TodoStore backed by the database.
+ *
+ * Reads go through the cached TodoQueryService: keyset pages, per-user versions and
+ * single todos. Changes go through the TodoWriter, so they are written right away or
+ * queued by write-behind, and updates are conditional on the version either way (see
+ * TodoUpdateService and WriteBehindTodoWriter).
+ * Every change is announced as a TodoChangedEvent, so the caches, search index and
+ * statistics follow as usual.
+ */
+public class JpaTodoStore implements TodoStore {
+
+    private final TodoRepository todoRepository;
+
+    private final TodoQueryService todoQueryService;
+
+    private final TodoWriter todoWriter;
+
+    public JpaTodoStore(TodoRepository todoRepository, TodoQueryService todoQueryService, TodoWriter todoWriter) {
+        this.todoRepository = todoRepository;
+        this.todoQueryService = todoQueryService;
+        this.todoWriter = todoWriter;
+    }
+
+    @Override
+    public List<Todo> findByUsername(String username) {
+        todoWriter.awaitWrites(username);
+        return todoRepository.findByUsername(username);
+    }
+
+    @Override
+    public TodoPage findPage(String username, String after, String before, int size) {
+        return todoQueryService.findPage(username, after, before, size);
+    }
+
+    @Override
+    public long getVersion(String username) {
+        return todoQueryService.getVersion(username);
+    }
+
+    @Override
+    public Todo findById(int id) {
+        return todoQueryService.findById(id);
+    }
+
+    @Override
+    public Todo addTodo(String username, String description, LocalDate targetDate, boolean done) {
+        Todo todo = new Todo(0, username, description, targetDate, done);
+        todoWriter.create(todo);
+        return todo;
+    }
+
+    @Override
+    public void updateTodo(Todo todo) {
+        todoWriter.awaitWrite(todo.getId());
+        todoRepository.save(todo);
+    }
+
+    @Override
+    public TodoUpdateService.Result updateIfVersion(int id, String username, int expectedVersion, String description,
+            LocalDate targetDate, boolean done) {
+        Todo todo = new Todo(id, username, description, targetDate, done);
+        todo.setVersion(expectedVersion);
+        return todoWriter.update(todo);
+    }
+
+    @Override
+    public void deleteById(int id) {
+        todoWriter.awaitWrite(id);
+        todoRepository.deleteById(id);
+    }
+
+    @Override
+    public void deleteById(int id, String username) {
+        todoWriter.delete(id, username);
+    }
+}
@@ -0,0 +1,293 @@
+package com.rvg.springboot.myfirstwebapp.todo.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+
+/**
+ * Binary format of the LogTodoStore files.
+ *
+ * A record is framed as [int length][int CRC32 of the body][body], and its body is a
+ * type byte followed by the todo (PUT) or its id (DELETE). Records are idempotent (a PUT
+ * carries the whole todo), so replaying a record twice gives the same state.
+ *
+ * The log is a sequence of batches, one per group commit, each framed as [int BATCH]
+ * [int length][int CRC32 of the records][records]. A batch is written with one write
+ * that is not durable until the fsync after it, and a crash can persist any of its pages
+ * in any order, so a batch is applied entirely or not at all: one whose frame is cut short
+ * or whose checksum does not match ends the readable log. At the very end of the log,
+ * that is what a crash during a commit leaves behind. The next batch is only written
+ * once the previous one is on disk, so if a complete batch can still be found after it
+ * (see {@link #findBatch(byte[], int)}), the log is damaged.
+ *
+ * A snapshot is [int MAGIC][int next id][int count] followed by count PUT records.
+ */
+final class LogRecords {
+
+    static final int MAGIC = 0x544f444f;
+    static final int BATCH = 0x42415443;
+
+    // Length of the frame of a batch: the BATCH marker, the length and the checksum
+    private static final int BATCH_HEADER = 12;
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+
+    // Stored in place of the epoch day of a missing target date
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private LogRecords() {
+    }
+
+    /**
+     * A decoded log record.
+     *
+     * @param type PUT or DELETE
+     * @param id the id of the todo
+     * @param todo the todo for a PUT, null for a DELETE
+     * @param size the length of the framed record in bytes
+     */
+    record Entry(byte type, int id, Todo todo, int size) {
+    }
+
+    /**
+     * A decoded batch of log records.
+     *
+     * @param entries the records, in log order
+     * @param size the length of the framed batch in bytes
+     */
+    record Batch(List<Entry> entries, int size) {
+    }
+
+    /**
+     * @param todo the new state of a todo
+     * @return the framed PUT record
+     */
+    static byte[] put(Todo todo) {
+        return frame(body -> {
+            body.writeByte(PUT);
+            writeTodo(body, todo);
+        });
+    }
+
+    /**
+     * @param id the id of a deleted todo
+     * @return the framed DELETE record
+     */
+    static byte[] delete(int id) {
+        return frame(body -> {
+            body.writeByte(DELETE);
+            body.writeInt(id);
+        });
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @param input the log, positioned at the start of a record
+     * @return the record, or null at the end of the valid log
+     * @throws IOException if the log cannot be read
+     */
+    static Entry read(DataInputStream input) throws IOException {
+        byte[] body;
+        int length;
+        int checksum;
+        try {
+            length = input.readInt();
+            checksum = input.readInt();
+            if (length <= 0 || length > 16 * 1024 * 1024) {
+                return null;
+            }
+            body = input.readNBytes(length);
+            if (body.length < length) {
+                return null;
+            }
+        } catch (EOFException e) {
+            return null;
+        }
+        if (checksum(body) != checksum) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte type = in.readByte();
+        if (type == PUT) {
+            Todo todo = readTodo(in);
+            return new Entry(PUT, todo.getId(), todo, length + 8);
+        }
+        if (type == DELETE) {
+            return new Entry(DELETE, in.readInt(), null, length + 8);
+        }
+        return null;
+    }
+
+    /**
+     * Frames records as one batch, to be written with one write and one fsync.
+     *
+     * @param records the framed records, concatenated
+     * @return the framed batch
+     */
+    static byte[] batch(byte[] records) {
+        return ByteBuffer.allocate(BATCH_HEADER + records.length)
+                .putInt(BATCH)
+                .putInt(records.length)
+                .putInt(checksum(records))
+                .put(records)
+                .array();
+    }
+
+    /**
+     * Reads the next batch of the log.
+     *
+     * @param input the log, positioned at the start of a batch
+     * @return the batch, or null at the end of the valid log
+     * @throws IOException if the log cannot be read
+     */
+    static Batch readBatch(DataInputStream input) throws IOException {
+        byte[] records;
+        int length;
+        int checksum;
+        try {
+            if (input.readInt() != BATCH) {
+                return null;
+            }
+            length = input.readInt();
+            checksum = input.readInt();
+            if (length <= 0) {
+                return null;
+            }
+            records = input.readNBytes(length);
+            if (records.length < length) {
+                return null;
+            }
+        } catch (EOFException e) {
+            return null;
+        }
+        if (checksum(records) != checksum) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(records));
+        List<Entry> entries = new ArrayList<>();
+        int read = 0;
+        while (read < length) {
+            Entry entry = read(in);
+            if (entry == null) {
+                return null;
+            }
+            entries.add(entry);
+            read += entry.size();
+        }
+        return new Batch(entries, length + BATCH_HEADER);
+    }
+
+    /**
+     * Looks for a complete batch anywhere in some bytes: a BATCH marker with a plausible
+     * length and a matching checksum, at any offset.
+     *
+     * @param bytes the bytes to search, typically what follows an unreadable batch
+     * @param from the first offset to try
+     * @return the offset of the first complete batch, or -1 if there is none
+     */
+    static int findBatch(byte[] bytes, int from) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        CRC32 crc = new CRC32();
+        for (int offset = from; offset + BATCH_HEADER < bytes.length; offset++) {
+            if (buffer.getInt(offset) != BATCH) {
+                continue;
+            }
+            int length = buffer.getInt(offset + 4);
+            if (length <= 0 || length > bytes.length - offset - BATCH_HEADER) {
+                continue;
+            }
+            crc.reset();
+            crc.update(bytes, offset + BATCH_HEADER, length);
+            if ((int) crc.getValue() == buffer.getInt(offset + 8)) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private static void writeTodo(DataOutput output, Todo todo) throws IOException {
+        output.writeInt(todo.getId());
+        writeString(output, todo.getUsername());
+        writeString(output, todo.getDescription());
+        output.writeLong(todo.getTargetDate() == null ? NO_DATE : todo.getTargetDate().toEpochDay());
+        output.writeBoolean(todo.isDone());
+        output.writeInt(todo.getVersion());
+    }
+
+    private static Todo readTodo(DataInput input) throws IOException {
+        int id = input.readInt();
+        String username = readString(input);
+        String description = readString(input);
+        long epochDay = input.readLong();
+        boolean done = input.readBoolean();
+        Todo todo = new Todo(id, username, description, epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay),
+                done);
+        todo.setVersion(input.readInt());
+        return todo;
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    // Length-prefixed UTF-8, without the 64 KB limit of writeUTF
+    private static void writeString(DataOutput output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInput input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] frame(BodyWriter writer) {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+            writer.write(new DataOutputStream(body));
+            byte[] bytes = body.toByteArray();
+            ByteArrayOutputStream framed = new ByteArrayOutputStream(bytes.length + 8);
+            DataOutputStream output = new DataOutputStream(framed);
+            output.writeInt(bytes.length);
+            output.writeInt(checksum(bytes));
+            output.write(bytes);
+            return framed.toByteArray();
+        } catch (IOException e) {
+            // Writing to a byte array does not fail
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface BodyWriter {
+        void write(DataOutputStream body) throws IOException;
+    }
+}
@@ -0,0 +1,500 @@
+package com.rvg.springboot.myfirstwebapp.todo.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoUpdateService;
+
+/**
+ * TodoStore that serves every read from memory and makes every write durable in an
+ * append-only log on local disk, for single-node deployments without a database server.
+ *
+ * All todos are held in a map by id, with an index of ids per user, as in TodoService.
+ * A write is encoded as a log record (see {@link LogRecords}) and handed to a single
+ * committer thread, which appends everything queued with one FileChannel write and one
+ * fsync (group commit), then applies the batch to memory in log order and releases the
+ * writers. A write thus returns only once it is on disk, and concurrent writers share
+ * the cost of the fsync instead of paying one each.
+ *
+ * When the log grows beyond compactAfterBytes, the committer writes all todos to a new
+ * snapshot file, renames it over the old one and empties the log. On startup the
+ * snapshot is loaded and the log replayed, so recovery time is proportional to the
+ * snapshot size plus at most compactAfterBytes of log. Each group commit is framed as one
+ * batch, which is replayed entirely or not at all: a batch torn by a crash during its
+ * commit, with any of its pages missing, ends the replay and is cut off; none of its
+ * writers had returned. An unreadable batch followed by complete ones is damage, not a
+ * crash: the store refuses to open rather than drop the committed batches after it.
+ * A crash between the rename and emptying the log is
+ * harmless: its records are already in the snapshot, and replaying them again gives the
+ * same state.
+ *
+ * Todos are copied in and out, so callers cannot change the stored state by mutating
+ * the objects they pass or receive.
+ *
+ * Writes to an existing todo hold a lock for its id (one of a fixed set of striped
+ * locks) until they are committed, so a conditional update checks the version against
+ * the result of every earlier write to that todo. Writes to different todos do not wait
+ * for each other and still share fsyncs.
+ *
+ * Methods:
+ * - findByUsername(String username), findById(int id): Read from memory.
+ * - addTodo(...), updateTodo(Todo todo), updateIfVersion(...), deleteById(...): Append to the log and wait for the fsync.
+ * - close(): Writes what is queued and closes the log.
+ */
+public class LogTodoStore implements TodoStore, Closeable {
+
+    static final String LOG_FILE = "todos.log";
+    static final String SNAPSHOT_FILE = "todos.snapshot";
+
+    // Records written with one write and one fsync at most
+    private static final int MAX_BATCH = 1024;
+
+    // Number of striped locks that serialize the writes to one todo
+    private static final int TODO_LOCKS = 64;
+
+    private final Logger logger = Logger.getLogger(LogTodoStore.class.getName());
+
+    private final Path directory;
+    private final long compactAfterBytes;
+    private final FileChannel log;
+
+    private final ConcurrentMap<Integer, Todo> todosById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, NavigableSet<Integer>> idsByUsername = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final ReentrantLock[] todoLocks = new ReentrantLock[TODO_LOCKS];
+
+    private final BlockingQueue<Write> queue = new LinkedBlockingQueue<>();
+    private final Thread committer;
+    private volatile boolean closed;
+
+    /**
+     * A record waiting to be committed.
+     *
+     * @param bytes the framed record
+     * @param entry the decoded record, applied to memory once it is on disk; null to stop the committer
+     * @param committed completed once the record is durable and applied
+     */
+    private record Write(byte[] bytes, LogRecords.Entry entry, CompletableFuture<Void> committed) {
+    }
+
+    /**
+     * Opens the store, recovering the todos from the snapshot and the log in the directory.
+     *
+     * @param directory the directory of the files; created if needed
+     * @param compactAfterBytes the log size from which the todos are written to a new snapshot
+     * @throws IOException if the files cannot be read, or the snapshot or log is damaged
+     */
+    public LogTodoStore(Path directory, long compactAfterBytes) throws IOException {
+        this.directory = directory;
+        this.compactAfterBytes = compactAfterBytes;
+        Files.createDirectories(directory);
+        for (int i = 0; i < todoLocks.length; i++) {
+            todoLocks[i] = new ReentrantLock();
+        }
+
+        long start = System.nanoTime();
+        int snapshotTodos = loadSnapshot();
+        this.log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        int replayed = replayLog();
+        logger.info("Recovered " + todosById.size() + " todos from " + snapshotTodos + " snapshot entries and "
+                + replayed + " log records in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        this.committer = Thread.ofPlatform().name("todo-store-log").daemon().start(this::commitLoop);
+    }
+
+    @Override
+    public List<Todo> findByUsername(String username) {
+        NavigableSet<Integer> ids = idsByUsername.get(username);
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        List<Todo> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Todo todo = todosById.get(id);
+            if (todo != null && todo.getUsername().equals(username)) {
+                result.add(copy(todo));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Todo findById(int id) {
+        Todo todo = todosById.get(id);
+        return todo == null ? null : copy(todo);
+    }
+
+    @Override
+    public Todo addTodo(String username, String description, LocalDate targetDate, boolean done) {
+        Todo todo = new Todo(nextId.getAndIncrement(), username, description, targetDate, done);
+        commitPut(todo);
+        return todo;
+    }
+
+    @Override
+    public void updateTodo(Todo todo) {
+        ReentrantLock lock = lockFor(todo.getId());
+        lock.lock();
+        try {
+            commitPut(todo);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public TodoUpdateService.Result updateIfVersion(int id, String username, int expectedVersion, String description,
+            LocalDate targetDate, boolean done) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Todo current = todosById.get(id);
+            if (current == null || !current.getUsername().equals(username)) {
+                return TodoUpdateService.Result.NOT_FOUND;
+            }
+            if (current.getVersion() != expectedVersion) {
+                return TodoUpdateService.Result.CONFLICT;
+            }
+            Todo updated = new Todo(id, username, description, targetDate, done);
+            updated.setVersion(expectedVersion + 1);
+            commitPut(updated);
+            return TodoUpdateService.Result.UPDATED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(int id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            if (todosById.containsKey(id)) {
+                commitDelete(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(int id, String username) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Todo current = todosById.get(id);
+            if (current != null && current.getUsername().equals(username)) {
+                commitDelete(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Commits what is queued, stops the committer and closes the log.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.add(new Write(null, null, new CompletableFuture<>()));
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+
+    private void commitPut(Todo todo) {
+        byte[] bytes = LogRecords.put(todo);
+        commit(bytes, new LogRecords.Entry(LogRecords.PUT, todo.getId(), copy(todo), bytes.length));
+    }
+
+    private void commitDelete(int id) {
+        byte[] bytes = LogRecords.delete(id);
+        commit(bytes, new LogRecords.Entry(LogRecords.DELETE, id, null, bytes.length));
+    }
+
+    /**
+     * Queues a record and waits until it is durable and applied.
+     *
+     * @param bytes the framed record
+     * @param entry the record to apply to memory
+     */
+    private void commit(byte[] bytes, LogRecords.Entry entry) {
+        if (closed) {
+            throw new IllegalStateException("The todo store is closed");
+        }
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        queue.add(new Write(bytes, entry, committed));
+        try {
+            committed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for the todo log"));
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io
+                    ? new UncheckedIOException("Cannot write the todo log", io)
+                    : new IllegalStateException("Cannot write the todo log", e.getCause());
+        }
+    }
+
+    /**
+     * Runs on the committer thread: writes queued records in batches until closed.
+     */
+    private void commitLoop() {
+        List<Write> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            boolean stop = batch.removeIf(write -> write.entry() == null);
+            if (!batch.isEmpty()) {
+                commitBatch(batch);
+            }
+            batch.clear();
+            if (stop) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Appends a batch with one write and one fsync, then applies it and releases the writers.
+     * If the write fails, the log is cut back to where the batch started and every writer
+     * of the batch gets the error.
+     *
+     * @param batch the queued writes
+     */
+    private void commitBatch(List<Write> batch) {
+        long start;
+        try {
+            start = log.position();
+        } catch (IOException e) {
+            batch.forEach(write -> write.committed().completeExceptionally(e));
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            for (Write write : batch) {
+                bytes.write(write.bytes());
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(LogRecords.batch(bytes.toByteArray()));
+            while (buffer.hasRemaining()) {
+                log.write(buffer);
+            }
+            log.force(false);
+        } catch (IOException e) {
+            try {
+                log.truncate(start);
+                log.position(start);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            batch.forEach(write -> write.committed().completeExceptionally(e));
+            return;
+        }
+        for (Write write : batch) {
+            apply(write.entry());
+            write.committed().complete(null);
+        }
+
+        try {
+            if (log.size() >= compactAfterBytes) {
+                compact();
+            }
+        } catch (IOException e) {
+            // The log stays valid; compaction is tried again after the next batch
+            logger.log(Level.WARNING, "Cannot compact the todo log", e);
+        }
+    }
+
+    /**
+     * Writes all todos to a new snapshot, then empties the log. Runs on the committer
+     * thread, so no record is applied meanwhile and the snapshot matches the log exactly.
+     */
+    private void compact() throws IOException {
+        long start = System.nanoTime();
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        List<Todo> todos = new ArrayList<>(todosById.values());
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+            DataOutputStream output = new DataOutputStream(stream);
+            output.writeInt(LogRecords.MAGIC);
+            output.writeInt(nextId.get());
+            output.writeInt(todos.size());
+            for (Todo todo : todos) {
+                output.write(LogRecords.put(todo));
+            }
+            output.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+        log.truncate(0);
+        log.force(true);
+        logger.info("Compacted the todo log into a snapshot of " + todos.size() + " todos in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Loads the snapshot, if there is one.
+     *
+     * @return the number of todos in the snapshot
+     * @throws IOException if the snapshot cannot be read or is damaged
+     */
+    private int loadSnapshot() throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(snapshot)) {
+            return 0;
+        }
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshot), 64 * 1024))) {
+            if (input.readInt() != LogRecords.MAGIC) {
+                throw new IOException(snapshot + " is not a todo snapshot");
+            }
+            int snapshotNextId = input.readInt();
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                LogRecords.Entry entry = LogRecords.read(input);
+                if (entry == null || entry.type() != LogRecords.PUT) {
+                    // Snapshots are renamed into place once complete, so this is damage, not a crash
+                    throw new IOException(snapshot + " is damaged at todo " + i + " of " + count);
+                }
+                apply(entry);
+            }
+            nextId.accumulateAndGet(snapshotNextId, Math::max);
+            return count;
+        }
+    }
+
+    /**
+     * Replays the log on top of the snapshot and cuts off a torn batch at its end.
+     *
+     * @return the number of records replayed
+     * @throws IOException if the log cannot be read, or has complete batches after an unreadable one
+     */
+    private int replayLog() throws IOException {
+        int records = 0;
+        long valid = 0;
+        log.position(0);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(log), 64 * 1024));
+        LogRecords.Batch batch;
+        while ((batch = LogRecords.readBatch(input)) != null) {
+            batch.entries().forEach(this::apply);
+            records += batch.entries().size();
+            valid += batch.size();
+        }
+        if (valid < log.size()) {
+            byte[] rest = new byte[(int) (log.size() - valid)];
+            ByteBuffer buffer = ByteBuffer.wrap(rest);
+            while (buffer.hasRemaining() && log.read(buffer, valid + buffer.position()) >= 0) {
+                // Read until the end of the log
+            }
+            int found = LogRecords.findBatch(rest, 1);
+            if (found >= 0) {
+                throw new IOException("The todo log " + directory.resolve(LOG_FILE) + " has an unreadable batch at byte "
+                        + valid + " followed by a complete one at byte " + (valid + found)
+                        + "; refusing to drop the records after it");
+            }
+            logger.warning("Cut " + (log.size() - valid) + " bytes of an incomplete batch off the end of the todo log");
+            log.truncate(valid);
+            log.force(true);
+        }
+        log.position(valid);
+        return records;
+    }
+
+    /**
+     * Applies a record to memory, and keeps the next id above every id seen.
+     * Runs on the committer thread, or during recovery.
+     *
+     * @param entry the record
+     */
+    private void apply(LogRecords.Entry entry) {
+        nextId.accumulateAndGet(entry.id() + 1, Math::max);
+        if (entry.type() == LogRecords.PUT) {
+            Todo todo = entry.todo();
+            Todo previous = todosById.put(todo.getId(), todo);
+            if (previous != null && !previous.getUsername().equals(todo.getUsername())) {
+                unindex(previous);
+            }
+            idsByUsername.computeIfAbsent(todo.getUsername(), key -> new ConcurrentSkipListSet<>()).add(todo.getId());
+        } else {
+            Todo previous = todosById.remove(entry.id());
+            if (previous != null) {
+                unindex(previous);
+            }
+        }
+    }
+
+    // A ReentrantLock rather than synchronized: writers wait for the fsync while holding it,
+    // which would pin the carrier of a virtual thread
+    private ReentrantLock lockFor(int id) {
+        return todoLocks[Math.floorMod(id, todoLocks.length)];
+    }
+
+    private void unindex(Todo todo) {
+        idsByUsername.computeIfPresent(todo.getUsername(), (key, ids) -> {
+            ids.remove(todo.getId());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // Makes the rename of the snapshot durable; not every platform can open a directory
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Cannot sync the todo store directory", e);
+        }
+    }
+
+    private static Todo copy(Todo todo) {
+        Todo copy = new Todo(todo.getId(), todo.getUsername(), todo.getDescription(), todo.getTargetDate(),
+                todo.isDone());
+        copy.setVersion(todo.getVersion());
+        return copy;
+    }
+}
@@ -0,0 +1,168 @@
+package com.rvg.springboot.myfirstwebapp.todo.store;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoCursor;
+import com.rvg.springboot.myfirstwebapp.todo.TodoPage;
+import com.rvg.springboot.myfirstwebapp.todo.TodoQueryService;
+import com.rvg.springboot.myfirstwebapp.todo.TodoSummary;
+import com.rvg.springboot.myfirstwebapp.todo.TodoUpdateService;
+
+/**
+ * Storage backend for Todo items: the operations the todo pages need, whatever keeps the todos.
+ *
+ * Implementations:
+ * - TodoService: in memory only; the todos are lost on restart.
+ * - JpaTodoStore: the database, through the cached TodoQueryService and the TodoWriter.
+ * - LogTodoStore: in memory, made durable by an append-only log on local disk.
+ *
+ * TodoStoreConfiguration creates the one selected by todo.store (memory, jpa or log), and
+ * TodoController serves the pages from it. Implementations are safe for concurrent use.
+ *
+ * Methods:
+ * - findByUsername(String username): Finds the Todo items of a user.
+ * - findPage(String username, String after, String before, int size): Finds one page of a user's Todo items.
+ * - getVersion(String username): Returns the version of a user's Todo items, if the store keeps one.
+ * - findById(int id): Finds a Todo item by its ID.
+ * - addTodo(String username, String description, LocalDate targetDate, boolean done): Adds a new Todo item.
+ * - updateTodo(Todo todo): Replaces a Todo item.
+ * - updateIfVersion(int id, String username, int expectedVersion, ...): Changes a user's Todo item if it still has the expected version.
+ * - deleteById(int id): Deletes a Todo item by its ID.
+ * - deleteById(int id, String username): Deletes a user's Todo item.
+ */
+public interface TodoStore {
+
+    /**
+     * Returned by {@link #getVersion(String)} by stores that do not version the todos of a user.
+     */
+    long NO_VERSION = -1;
+
+    /**
+     * Finds the Todo items of a user.
+     *
+     * @param username the owner of the Todo items
+     * @return the Todo items of the user, in no guaranteed order
+     */
+    List<Todo> findByUsername(String username);
+
+    /**
+     * Finds one page of a user's Todo items, ordered by target date and ID, with cursors
+     * as described in TodoQueryService.findPage. Malformed cursors are treated as missing.
+     *
+     * This default sorts all of the user's items in memory, which suits stores that hold
+     * them in memory anyway.
+     *
+     * @param username the owner of the Todo items
+     * @param after the encoded cursor the page starts after, may be null
+     * @param before the encoded cursor the page ends before, may be null
+     * @param size the requested page size, clamped to 1..TodoQueryService.MAX_PAGE_SIZE
+     * @return the requested page
+     */
+    default TodoPage findPage(String username, String after, String before, int size) {
+        int pageSize = Math.max(1, Math.min(size, TodoQueryService.MAX_PAGE_SIZE));
+        Comparator<TodoCursor> order = Comparator
+                .comparing(TodoCursor::targetDate, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingInt(TodoCursor::id);
+        List<TodoSummary> todos = findByUsername(username).stream()
+                .map(todo -> new TodoSummary(todo.getId(), todo.getDescription(), todo.getTargetDate(), todo.isDone()))
+                .sorted(Comparator.comparing(TodoCursor::of, order))
+                .toList();
+
+        TodoCursor beforeCursor = TodoCursor.decode(before);
+        TodoCursor afterCursor = beforeCursor == null ? TodoCursor.decode(after) : null;
+        int from;
+        int to;
+        if (beforeCursor != null) {
+            to = (int) todos.stream().filter(todo -> order.compare(TodoCursor.of(todo), beforeCursor) < 0).count();
+            from = Math.max(0, to - pageSize);
+        } else {
+            from = afterCursor == null ? 0
+                    : (int) todos.stream().filter(todo -> order.compare(TodoCursor.of(todo), afterCursor) <= 0).count();
+            to = Math.min(todos.size(), from + pageSize);
+        }
+        String previousCursor = null;
+        if (from > 0) {
+            // Past the end, the previous page ends with the last todo
+            TodoSummary last = todos.get(from - 1);
+            previousCursor = from < todos.size() ? TodoCursor.of(todos.get(from)).encode()
+                    : TodoCursor.of(last).next().encode();
+        }
+        return new TodoPage(new ArrayList<>(todos.subList(from, to)), pageSize, previousCursor,
+                from < to && to < todos.size() ? TodoCursor.of(todos.get(to - 1)).encode() : null);
+    }
+
+    /**
+     * Returns the current version of a user's Todo items. The version changes whenever one
+     * of them is added, updated or deleted, and no two users share one, so it can serve as
+     * an HTTP entity tag and as the key of rendered pages.
+     *
+     * @param username the owner of the Todo items
+     * @return the current version, or {@link #NO_VERSION} if the store does not keep versions
+     */
+    default long getVersion(String username) {
+        return NO_VERSION;
+    }
+
+    /**
+     * Finds a Todo item by its ID.
+     *
+     * @param id the ID of the Todo item
+     * @return the Todo item, or null if there is none with this ID
+     */
+    Todo findById(int id);
+
+    /**
+     * Adds a new Todo item with a new ID.
+     *
+     * @param username the owner of the Todo item
+     * @param description the description of the Todo item
+     * @param targetDate the target date of the Todo item
+     * @param done the status of the Todo item
+     * @return the added Todo item, with its ID; 0 if the store assigns the ID later, as the
+     *         database store does with write-behind
+     */
+    Todo addTodo(String username, String description, LocalDate targetDate, boolean done);
+
+    /**
+     * Replaces the Todo item with the same ID.
+     *
+     * @param todo the new state of the Todo item
+     */
+    void updateTodo(Todo todo);
+
+    /**
+     * Changes a user's Todo item, if it still has the version the caller read. The check and
+     * the change are one atomic step, so of two concurrent updates from the same version only
+     * one succeeds, and an update racing a delete never brings the item back.
+     * On success the item's version is incremented by one.
+     *
+     * @param id the ID of the Todo item
+     * @param username the owner of the Todo item
+     * @param expectedVersion the version the caller read
+     * @param description the new description
+     * @param targetDate the new target date
+     * @param done the new status
+     * @return UPDATED, NOT_FOUND if the user has no item with this ID, or CONFLICT if its version changed
+     */
+    TodoUpdateService.Result updateIfVersion(int id, String username, int expectedVersion, String description,
+            LocalDate targetDate, boolean done);
+
+    /**
+     * Deletes a Todo item. Deleting an ID that does not exist does nothing.
+     *
+     * @param id the ID of the Todo item
+     */
+    void deleteById(int id);
+
+    /**
+     * Deletes a user's Todo item. Items of other users are left alone.
+     *
+     * @param id the ID of the Todo item
+     * @param username the user who deletes it
+     */
+    void deleteById(int id, String username);
+}
@@ -0,0 +1,94 @@
+package com.rvg.springboot.myfirstwebapp.todo.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.unit.DataSize;
+
+import com.rvg.springboot.myfirstwebapp.todo.TodoQueryService;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+import com.rvg.springboot.myfirstwebapp.todo.TodoService;
+import com.rvg.springboot.myfirstwebapp.todo.TodoWriter;
+
+/**
+ * Configuration class that creates the {@link TodoStore} selected by todo.store.
+ *
+ * - jpa (default): JpaTodoStore, the database through TodoQueryService and the TodoWriter.
+ * - memory: TodoService, nothing survives a restart.
+ * - log: LogTodoStore in todo.store.log.directory, compacted once its log exceeds todo.store.log.compact-after.
+ *
+ * Whichever it is, the todo pages are served by TodoController from the store.
+ *
+ * The other features read the todo table directly: the JSON API, search, statistics,
+ * reminders, import/export and the archive are only created with the jpa store (see
+ * {@link #DATABASE}), so they never show a different set of todos than the pages. With
+ * memory or log, startup fails if write-behind, archival or partitioning is switched on.
+ *
+ * Methods:
+ * - jpaTodoStore(TodoRepository todoRepository, TodoQueryService todoQueryService, TodoWriter todoWriter): The database store.
+ * - memoryTodoStore(Environment environment): The in-memory store.
+ * - logTodoStore(Path directory, DataSize compactAfter, Environment environment): The log-structured store; closed with the context.
+ */
+@Configuration
+public class TodoStoreConfiguration {
+
+    /**
+     * Condition of the beans that read or write the todo table directly: true when the
+     * pages keep their todos in the database too.
+     */
+    public static final String DATABASE = "'${todo.store:jpa}' == 'jpa'";
+
+    @Bean
+    @ConditionalOnProperty(name = "todo.store", havingValue = "jpa", matchIfMissing = true)
+    public TodoStore jpaTodoStore(TodoRepository todoRepository, TodoQueryService todoQueryService,
+            TodoWriter todoWriter) {
+        return new JpaTodoStore(todoRepository, todoQueryService, todoWriter);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "todo.store", havingValue = "memory")
+    public TodoStore memoryTodoStore(Environment environment) {
+        requireDatabaseFeaturesOff("memory", environment);
+        return new TodoService();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "todo.store", havingValue = "log")
+    public TodoStore logTodoStore(@Value("${todo.store.log.directory:data}") Path directory,
+            @Value("${todo.store.log.compact-after:16MB}") DataSize compactAfter, Environment environment)
+            throws IOException {
+        requireDatabaseFeaturesOff("log", environment);
+        return new LogTodoStore(directory, compactAfter.toBytes());
+    }
+
+    /**
+     * Refuses to start a store other than the database with features switched on that
+     * only work on the database.
+     *
+     * @param store the selected store
+     * @param environment the configuration
+     */
+    private static void requireDatabaseFeaturesOff(String store, Environment environment) {
+        List<String> enabled = new ArrayList<>();
+        if (environment.getProperty("todo.write-behind.enabled", Boolean.class, false)) {
+            enabled.add("todo.write-behind.enabled");
+        }
+        if (environment.getProperty("todo.archive.enabled", Boolean.class, false)) {
+            enabled.add("todo.archive.enabled");
+        }
+        if (!environment.getProperty("todo.cluster.nodes", "").isBlank()) {
+            enabled.add("todo.cluster.nodes");
+        }
+        if (!enabled.isEmpty()) {
+            throw new IllegalStateException("todo.store=" + store + " keeps the todos outside the database, which "
+                    + "these settings need: " + String.join(", ", enabled) + "; use todo.store=jpa or switch them off");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.rvg.springboot.myfirstwebapp.todo.store;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ModelAttribute;
+
+/**
+ * Tells the pages whether the features that only work on the database are there, so the
+ * navigation and the welcome page leave out what the selected store does not offer.
+ *
+ * Methods:
+ * - isDatabaseStore(): The databaseStore model attribute of every page.
+ */
+@ControllerAdvice
+public class TodoStoreControllerAdvice {
+
+    private final boolean databaseStore;
+
+    public TodoStoreControllerAdvice(@Value("${todo.store:jpa}") String store) {
+        this.databaseStore = "jpa".equals(store);
+    }
+
+    @ModelAttribute("databaseStore")
+    public boolean isDatabaseStore() {
+        return databaseStore;
+    }
+}
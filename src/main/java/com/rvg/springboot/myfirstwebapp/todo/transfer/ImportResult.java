@@ -0,0 +1,13 @@
+package com.rvg.springboot.myfirstwebapp.todo.transfer;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import.
+ *
+ * @param imported the number of todos that were saved
+ * @param rejected the number of records that were skipped because they were malformed or invalid
+ * @param errors descriptions of the first rejected records
+ */
+public record ImportResult(int imported, int rejected, List<String> errors) {
+}
@@ -0,0 +1,140 @@
+package com.rvg.springboot.myfirstwebapp.todo.transfer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+import com.rvg.springboot.myfirstwebapp.todo.TodoSummary;
+import com.rvg.springboot.myfirstwebapp.todo.TodoWriter;
+import com.rvg.springboot.myfirstwebapp.todo.store.TodoStoreConfiguration;
+
+/**
+ * Streams a user's todos out as NDJSON, CSV or a JSON array.
+ *
+ * Rows are read through a database cursor as read-only summaries and written to the
+ * output as they arrive, so neither the result set nor the response is ever held in
+ * memory as a whole.
+ */
+@Service
+@ConditionalOnExpression(TodoStoreConfiguration.DATABASE)
+public class TodoExporter {
+
+    private final TodoRepository todoRepository;
+    private final TodoWriter todoWriter;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public TodoExporter(TodoRepository todoRepository, TodoWriter todoWriter, ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager) {
+        this.todoRepository = todoRepository;
+        this.todoWriter = todoWriter;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes all todos of a user, ordered by target date, to the output.
+     *
+     * @param username the owner of the todos
+     * @param format the output format
+     * @param output the stream to write to; it is flushed but not closed
+     * @throws IOException if writing fails
+     */
+    public void exportTodos(String username, TodoFormat format, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        try {
+            if (format == TodoFormat.CSV) {
+                writeCsv(username, writer);
+            } else {
+                writeNdjson(username, writer);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Writes all todos of a user, ordered by target date, to the output as one JSON array.
+     *
+     * @param username the owner of the todos
+     * @param output the stream to write to; it is flushed but not closed
+     * @throws IOException if writing fails
+     */
+    public void exportJsonArray(String username, OutputStream output) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartArray();
+        try {
+            forEachTodo(username, todo -> {
+                try {
+                    generator.writeObject(new TodoRecord(todo.getId(), todo.getDescription(), todo.getTargetDate(), todo.isDone()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.writeEndArray();
+        generator.close();
+    }
+
+    private void writeNdjson(String username, Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(new SerializedString("\n"));
+        forEachTodo(username, todo -> {
+            try {
+                generator.writeObject(new TodoRecord(todo.getId(), todo.getDescription(), todo.getTargetDate(), todo.isDone()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.writeRaw('\n');
+        generator.close();
+    }
+
+    private void writeCsv(String username, Writer writer) throws IOException {
+        writer.write("id,description,targetDate,done\r\n");
+        forEachTodo(username, todo -> {
+            try {
+                writer.write(Integer.toString(todo.getId()));
+                writer.write(',');
+                writer.write(CsvReader.escape(todo.getDescription()));
+                writer.write(',');
+                writer.write(String.valueOf(todo.getTargetDate()));
+                writer.write(',');
+                writer.write(Boolean.toString(todo.isDone()));
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void forEachTodo(String username, Consumer<TodoSummary> action) {
+        todoWriter.awaitWrites(username);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<TodoSummary> todos = todoRepository.streamByUsername(username)) {
+                todos.forEach(action);
+            }
+        });
+    }
+}
@@ -0,0 +1,61 @@
+package com.rvg.springboot.myfirstwebapp.todo.transfer;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formats supported by the bulk import and export of todos.
+ *
+ * - NDJSON: one JSON object per line, e.g. {"description":"...","targetDate":"2025-01-31","done":false}
+ * - CSV: a header line naming the columns (id, description, targetDate, done), then one record per line
+ */
+public enum TodoFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    TodoFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Finds the format for a request content type.
+     *
+     * @param contentType the content type of the request
+     * @return the matching format, or null if the content type is not supported
+     */
+    public static TodoFormat fromMediaType(MediaType contentType) {
+        for (TodoFormat format : values()) {
+            if (MediaType.parseMediaType(format.mediaType).isCompatibleWith(contentType)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the format for a name such as "csv" or "ndjson".
+     *
+     * @param name the name of the format
+     * @return the matching format, or null if the name is not supported
+     */
+    public static TodoFormat fromName(String name) {
+        for (TodoFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,196 @@
+package com.rvg.springboot.myfirstwebapp.todo.transfer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+import com.rvg.springboot.myfirstwebapp.todo.store.TodoStoreConfiguration;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Streams todos from an NDJSON or CSV payload into the database.
+ *
+ * The input is parsed one record at a time and saved in chunks of the JDBC batch
+ * size, each chunk in its own transaction. Together with the pooled id sequence and
+ * ordered inserts, every chunk is written as one JDBC batch, and neither the parser
+ * nor the persistence context ever holds more than one chunk, so memory use stays
+ * constant whatever the size of the payload.
+ */
+@Service
+@ConditionalOnExpression(TodoStoreConfiguration.DATABASE)
+public class TodoImporter {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final TodoRepository todoRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+
+    public TodoImporter(TodoRepository todoRepository, ObjectMapper objectMapper, Validator validator,
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.todoRepository = todoRepository;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports todos for a user. Malformed or invalid records are skipped and reported;
+     * all other records are saved as new todos owned by the user. An unterminated quote
+     * in a CSV payload makes the rest of the payload one malformed record.
+     *
+     * @param username the owner of the imported todos
+     * @param reader the payload
+     * @param format the format of the payload
+     * @return the number of imported and rejected records
+     * @throws IOException if the payload cannot be read
+     */
+    public ImportResult importTodos(String username, Reader reader, TodoFormat format) throws IOException {
+        Importer importer = new Importer(username);
+        BufferedReader input = new BufferedReader(reader);
+        if (format == TodoFormat.CSV) {
+            readCsv(input, importer);
+        } else {
+            readNdjson(input, importer);
+        }
+        importer.flush();
+        return new ImportResult(importer.imported, importer.rejected, importer.errors);
+    }
+
+    private void readNdjson(BufferedReader input, Importer importer) throws IOException {
+        String line;
+        int lineNumber = 0;
+        while ((line = input.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                TodoRecord record = objectMapper.readValue(line, TodoRecord.class);
+                if (record == null) {
+                    importer.reject(lineNumber, "Expected a todo object but found null");
+                } else {
+                    importer.add(lineNumber, record);
+                }
+            } catch (JsonProcessingException e) {
+                importer.reject(lineNumber, e.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader input, Importer importer) throws IOException {
+        CsvReader csv = new CsvReader(input);
+        List<String> header;
+        try {
+            header = csv.readRecord();
+        } catch (CsvReader.MalformedCsvException e) {
+            importer.reject(1, e.getMessage());
+            return;
+        }
+        if (header == null) {
+            return;
+        }
+        int description = header.indexOf("description");
+        int targetDate = header.indexOf("targetDate");
+        int done = header.indexOf("done");
+        if (description < 0 || targetDate < 0) {
+            importer.reject(1, "Header must name the description and targetDate columns");
+            return;
+        }
+
+        int recordNumber = 1;
+        while (true) {
+            List<String> fields;
+            try {
+                fields = csv.readRecord();
+            } catch (CsvReader.MalformedCsvException e) {
+                // The malformed record runs to the end of the input
+                importer.reject(recordNumber + 1, e.getMessage());
+                return;
+            }
+            if (fields == null) {
+                return;
+            }
+            recordNumber++;
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            if (fields.size() != header.size()) {
+                importer.reject(recordNumber, "Expected " + header.size() + " fields but found " + fields.size());
+                continue;
+            }
+            try {
+                importer.add(recordNumber, new TodoRecord(null, fields.get(description),
+                        LocalDate.parse(fields.get(targetDate)),
+                        done >= 0 && Boolean.parseBoolean(fields.get(done))));
+            } catch (DateTimeParseException e) {
+                importer.reject(recordNumber, "Invalid targetDate: " + fields.get(targetDate));
+            }
+        }
+    }
+
+    /**
+     * Collects valid records into chunks and saves each full chunk.
+     */
+    private class Importer {
+
+        private final String username;
+        private final List<Todo> chunk = new ArrayList<>(batchSize);
+        private final List<String> errors = new ArrayList<>();
+        private int imported;
+        private int rejected;
+
+        Importer(String username) {
+            this.username = username;
+        }
+
+        void add(int recordNumber, TodoRecord record) {
+            if (record.targetDate() == null) {
+                reject(recordNumber, "targetDate is required");
+                return;
+            }
+            Todo todo = new Todo(0, username, record.description(), record.targetDate(), record.done());
+            Set<ConstraintViolation<Todo>> violations = validator.validate(todo);
+            if (!violations.isEmpty()) {
+                reject(recordNumber, violations.iterator().next().getMessage());
+                return;
+            }
+            chunk.add(todo);
+            if (chunk.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(int recordNumber, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Record " + recordNumber + ": " + message);
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            todoRepository.saveAll(chunk);
+            imported += chunk.size();
+            chunk.clear();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.rvg.springboot.myfirstwebapp.todo.transfer;
+
+import java.time.LocalDate;
+
+/**
+ * A todo as it is written to and read from import and export files.
+ * The id is only informative: imported todos always get new ids.
+ *
+ * @param id the id of the todo when exported, may be null on import
+ * @param description the description of the todo
+ * @param targetDate the target date of the todo
+ * @param done whether the todo is completed
+ */
+public record TodoRecord(Integer id, String description, LocalDate targetDate, boolean done) {
+}
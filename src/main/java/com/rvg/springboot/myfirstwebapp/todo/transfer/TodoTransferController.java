@@ -0,0 +1,98 @@
+package com.rvg.springboot.myfirstwebapp.todo.transfer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.rvg.springboot.myfirstwebapp.todo.store.TodoStoreConfiguration;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * This controller handles bulk import and export of the logged-in user's todos.
+ *
+ * Methods:
+ * - importTodos(MediaType contentType, HttpServletRequest request): Streams an NDJSON or CSV request body into new todos.
+ * - exportTodos(String format): Streams all todos out as NDJSON or CSV.
+ *
+ * Example, with the session cookie of a logged-in user in cookies.txt:
+ * curl -b cookies.txt -H 'Content-Type: application/x-ndjson' --data-binary @todos.ndjson localhost:8080/import-todos
+ * curl -b cookies.txt 'localhost:8080/export-todos?format=csv'
+ */
+@RestController
+@ConditionalOnExpression(TodoStoreConfiguration.DATABASE)
+public class TodoTransferController {
+
+    private final TodoImporter todoImporter;
+    private final TodoExporter todoExporter;
+
+    public TodoTransferController(TodoImporter todoImporter, TodoExporter todoExporter) {
+        this.todoImporter = todoImporter;
+        this.todoExporter = todoExporter;
+    }
+
+    /**
+     * Imports todos for the logged-in user from the request body. The body is parsed
+     * while it is being received, so it is never buffered as a whole.
+     *
+     * @param contentType the content type of the request, application/x-ndjson or text/csv
+     * @param request the request whose body holds the todos
+     * @return the number of imported and rejected records, or 415 for other content types
+     * @throws IOException if the request body cannot be read
+     */
+    @RequestMapping(value = "import-todos", method = RequestMethod.POST)
+    public ResponseEntity<ImportResult> importTodos(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            HttpServletRequest request) throws IOException {
+        TodoFormat format = TodoFormat.fromMediaType(contentType);
+        if (format == null) {
+            return ResponseEntity.status(415).build();
+        }
+
+        String username = getLoggedInUserName();
+        InputStreamReader reader = new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8);
+        return ResponseEntity.ok(todoImporter.importTodos(username, reader, format));
+    }
+
+    /**
+     * Exports all todos of the logged-in user, ordered by target date.
+     *
+     * @param format the output format, "ndjson" (default) or "csv"
+     * @return the streamed export, or 400 for an unknown format
+     */
+    @RequestMapping(value = "export-todos", method = RequestMethod.GET)
+    public ResponseEntity<StreamingResponseBody> exportTodos(@RequestParam(defaultValue = "ndjson") String format) {
+        TodoFormat todoFormat = TodoFormat.fromName(format);
+        if (todoFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String username = getLoggedInUserName();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(todoFormat.getMediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"todos." + todoFormat.getExtension() + "\"")
+                .body(output -> todoExporter.exportTodos(username, todoFormat, output));
+    }
+
+    /**
+     * Retrieves the username of the currently authenticated user from the security context.
+     *
+     * @return the username of the currently authenticated user
+     */
+    private String getLoggedInUserName() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication.getName();
+    }
+}
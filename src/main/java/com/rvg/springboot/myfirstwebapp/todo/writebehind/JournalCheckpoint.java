@@ -0,0 +1,38 @@
+package com.rvg.springboot.myfirstwebapp.todo.writebehind;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * How far a write-behind journal has been committed to the database.
+ *
+ * Written in the same transaction as each flushed batch, so after a crash the journal
+ * knows exactly which of its segments are already in the database and must not be
+ * replayed. There is one row per journal directory.
+ */
+@Entity
+public class JournalCheckpoint {
+
+    // The absolute path of the journal directory
+    @Id
+    private String journal;
+
+    // Every segment numbered below this one has been committed
+    private long committedBefore;
+
+    // Default constructor
+    protected JournalCheckpoint() {}
+
+    public JournalCheckpoint(String journal, long committedBefore) {
+        this.journal = journal;
+        this.committedBefore = committedBefore;
+    }
+
+    public String getJournal() {
+        return journal;
+    }
+
+    public long getCommittedBefore() {
+        return committedBefore;
+    }
+}
@@ -0,0 +1,10 @@
+package com.rvg.springboot.myfirstwebapp.todo.writebehind;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * JournalCheckpointRepository stores how far each write-behind journal has been
+ * committed. Only the WriteBehindTodoWriter uses it.
+ */
+public interface JournalCheckpointRepository extends JpaRepository<JournalCheckpoint, String> {
+}
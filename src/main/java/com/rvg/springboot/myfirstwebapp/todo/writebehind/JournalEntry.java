@@ -0,0 +1,57 @@
+package com.rvg.springboot.myfirstwebapp.todo.writebehind;
+
+import java.time.LocalDate;
+
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+
+/**
+ * One queued change to a todo, as kept in memory and written to the journal.
+ *
+ * @param op the kind of change
+ * @param id the id of the todo; 0 for todos that are still to be created
+ * @param username the owner of the todo
+ * @param description the new description, unused for deletes
+ * @param targetDate the new target date, unused for deletes
+ * @param done the new status, unused for deletes
+ * @param version for updates, the version the todo must still have in the database when the
+ *        update is written; null to write it whatever the version
+ */
+public record JournalEntry(Op op, int id, String username, String description, LocalDate targetDate, boolean done,
+        Integer version) {
+
+    /**
+     * The kind of change.
+     */
+    public enum Op {
+        CREATE, UPDATE, DELETE
+    }
+
+    static JournalEntry create(Todo todo) {
+        return new JournalEntry(Op.CREATE, 0, todo.getUsername(), todo.getDescription(), todo.getTargetDate(),
+                todo.isDone(), null);
+    }
+
+    static JournalEntry update(Todo todo, int version) {
+        return new JournalEntry(Op.UPDATE, todo.getId(), todo.getUsername(), todo.getDescription(),
+                todo.getTargetDate(), todo.isDone(), version);
+    }
+
+    static JournalEntry delete(int id, String username) {
+        return new JournalEntry(Op.DELETE, id, username, null, null, false, null);
+    }
+
+    /**
+     * Copies the new state into a todo. The owner is never changed.
+     *
+     * @param todo the todo to change, owned by this entry's user
+     */
+    void applyTo(Todo todo) {
+        todo.setDescription(description);
+        todo.setTargetDate(targetDate);
+        todo.setDone(done);
+    }
+
+    Todo toNewTodo() {
+        return new Todo(0, username, description, targetDate, done);
+    }
+}
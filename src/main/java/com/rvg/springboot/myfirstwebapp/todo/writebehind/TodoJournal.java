@@ -0,0 +1,238 @@
+package com.rvg.springboot.myfirstwebapp.todo.writebehind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Append-only journal of queued todo changes, kept in segment files in one directory.
+ *
+ * Every change is appended as one JSON line and forced to disk before the user's
+ * request returns. Forcing is shared (group commit): a thread that finds its bytes
+ * already forced by another thread does not force again, so concurrent writers pay
+ * for about one fsync per burst. When queued changes are flushed to the database,
+ * the journal moves on to a new segment; the older segments are deleted once the
+ * flush has committed. Each flush records the number of the segment it moved on to
+ * (a JournalCheckpoint) in its own transaction, so after a crash only the segments
+ * that were not committed are replayed, even if committed ones were not deleted yet.
+ *
+ * Changes the database rejects are appended to a dead letter file next to the segments,
+ * where they are kept for an operator and never replayed.
+ *
+ * {@link #append(JournalEntry)}, {@link #rotate()} and {@link #recover(long)} must be
+ * called under the writer's lock, so the journal order matches the queue order.
+ */
+class TodoJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    static final String DEAD_LETTER_FILE = "dead-letter.log";
+
+    private final Logger logger = Logger.getLogger(TodoJournal.class.getName());
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+
+    private final Object forceLock = new Object();
+
+    // Written under forceLock (and the writer's lock)
+    private FileChannel channel;
+    private long segmentNumber;
+
+    // Bytes appended over the lifetime of the journal, and how many of them are on disk
+    private volatile long appended;
+    private long forced;
+
+    TodoJournal(Path directory, ObjectMapper objectMapper) throws IOException {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Reads the entries of all segments that were not committed, oldest first, and opens
+     * a new segment. Committed segments are deleted. A torn last line of the newest
+     * segment, left by a crash in the middle of an append, is cut off; it was never
+     * acknowledged. An unreadable line anywhere else fails recovery, because the entries
+     * in and after it were acknowledged and must not be lost.
+     *
+     * @param committedBefore the checkpoint: every segment numbered below it is committed
+     * @return the entries that have not reached the database
+     * @throws IOException if the segments cannot be read, or one of them is damaged
+     */
+    List<JournalEntry> recover(long committedBefore) throws IOException {
+        List<JournalEntry> entries = new ArrayList<>();
+        // New segments must never be numbered below the checkpoint, or they would be skipped
+        segmentNumber = Math.max(0, committedBefore - 1);
+        List<Path> segments = segments();
+        for (Path segment : segments) {
+            segmentNumber = Math.max(segmentNumber, segmentNumber(segment));
+            if (segmentNumber(segment) < committedBefore) {
+                Files.deleteIfExists(segment);
+                continue;
+            }
+            boolean newest = segment.equals(segments.get(segments.size() - 1));
+            byte[] bytes = Files.readAllBytes(segment);
+            int start = 0;
+            while (start < bytes.length) {
+                int end = start;
+                while (end < bytes.length && bytes[end] != '\n') {
+                    end++;
+                }
+                try {
+                    entries.add(objectMapper.readValue(bytes, start, end - start, JournalEntry.class));
+                } catch (JsonProcessingException e) {
+                    if (!newest || end < bytes.length - 1) {
+                        throw new IOException("The write-behind journal " + segment + " has an unreadable entry at byte "
+                                + start + "; refusing to drop the entries in and after it", e);
+                    }
+                    logger.warning("Cut a torn entry of " + (bytes.length - start) + " bytes off the end of " + segment);
+                    try (FileChannel torn = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                        torn.truncate(start);
+                        torn.force(true);
+                    }
+                }
+                start = end + 1;
+            }
+        }
+        openSegment(segmentNumber + 1);
+        return entries;
+    }
+
+    /**
+     * Appends an entry to the current segment. The entry is not durable until
+     * {@link #sync(long)} returns for the returned position.
+     *
+     * @param entry the entry to append
+     * @return the journal position just after the entry
+     * @throws IOException if the entry cannot be written
+     */
+    long append(JournalEntry entry) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(entry);
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        appended += json.length + 1;
+        return appended;
+    }
+
+    /**
+     * Makes sure everything up to a journal position is on disk.
+     *
+     * @param position a position returned by {@link #append(JournalEntry)}
+     * @throws IOException if the segment cannot be forced
+     */
+    void sync(long position) throws IOException {
+        synchronized (forceLock) {
+            if (forced >= position) {
+                return;
+            }
+            long target = appended;
+            channel.force(false);
+            forced = target;
+        }
+    }
+
+    /**
+     * Forces and closes the current segment and starts a new one. Entries appended
+     * from now on belong to the next flush.
+     *
+     * @return the number of the new segment; all entries of the flush are in segments below it
+     * @throws IOException if the segments cannot be switched
+     */
+    long rotate() throws IOException {
+        synchronized (forceLock) {
+            channel.force(false);
+            forced = appended;
+            channel.close();
+            openSegment(segmentNumber + 1);
+            return segmentNumber;
+        }
+    }
+
+    /**
+     * Appends an entry that can never be written to the dead letter file, durably.
+     *
+     * @param entry the rejected entry
+     * @throws IOException if the file cannot be written
+     */
+    void deadLetter(JournalEntry entry) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(entry);
+        try (FileChannel deadLetters = FileChannel.open(directory.resolve(DEAD_LETTER_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+            while (buffer.hasRemaining()) {
+                deadLetters.write(buffer);
+            }
+            deadLetters.force(false);
+        }
+    }
+
+    /**
+     * The key of this journal's checkpoint.
+     *
+     * @return the absolute path of the journal directory
+     */
+    String name() {
+        return directory.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Deletes all segments except the current one. Call only once every entry in
+     * them has been committed to the database.
+     *
+     * @throws IOException if the directory cannot be listed
+     */
+    void deleteClosedSegments() throws IOException {
+        long current;
+        synchronized (forceLock) {
+            current = segmentNumber;
+        }
+        for (Path segment : segments()) {
+            if (segmentNumber(segment) < current) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (forceLock) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    private void openSegment(long number) throws IOException {
+        Path segment = directory.resolve(SEGMENT_PREFIX + String.format("%020d", number) + SEGMENT_SUFFIX);
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        segmentNumber = number;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
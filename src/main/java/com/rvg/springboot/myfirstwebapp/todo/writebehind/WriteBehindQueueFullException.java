@@ -0,0 +1,17 @@
+package com.rvg.springboot.myfirstwebapp.todo.writebehind;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a change is rejected because the write-behind queue is full and cannot be
+ * flushed, for example while the database is unavailable. Answered with 503, so the
+ * user can try again later.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class WriteBehindQueueFullException extends RuntimeException {
+
+    public WriteBehindQueueFullException(int capacity) {
+        super("The write-behind queue holds " + capacity + " changes that cannot be written yet");
+    }
+}
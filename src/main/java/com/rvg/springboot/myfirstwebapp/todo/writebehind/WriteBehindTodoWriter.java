@@ -0,0 +1,564 @@
+package com.rvg.springboot.myfirstwebapp.todo.writebehind;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+import com.rvg.springboot.myfirstwebapp.todo.TodoUpdateService;
+import com.rvg.springboot.myfirstwebapp.todo.TodoWriter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolationException;
+
+/**
+ * TodoWriter that queues changes and writes them to the database in batches.
+ *
+ * A change is journaled durably (see {@link TodoJournal}) and queued; the request then
+ * returns without touching the database. Changes to the same todo are coalesced, so
+ * several updates become one write and an update followed by a delete becomes the delete.
+ * A queued delete is final: later changes to the todo are answered as if it were gone.
+ * The queue is flushed by a background thread when it holds todo.write-behind.batch-size
+ * changes or when todo.write-behind.max-delay has passed. A flush loads the todos to
+ * change with one query, applies all changes and commits them in one transaction, which
+ * Hibernate sends as JDBC batches. If the queue reaches todo.write-behind.capacity,
+ * the writing request flushes it itself, which slows writers down to the database's pace;
+ * if the queue is still full after that, the change is rejected (WriteBehindQueueFullException).
+ *
+ * Reads call {@link #awaitWrites(String)} or {@link #awaitWrite(int)} first; if the user
+ * or todo has unflushed changes, the queue is flushed before the read, so users always
+ * see their own writes. A flush that fails there is logged and the read goes on.
+ *
+ * Updates are conditional on the version the user edited, as on the direct path. The
+ * version is checked when the update is queued: against the database if nothing is
+ * queued for the todo, and otherwise against the queued change. Since every read writes
+ * the queue first, nobody has read the version a queued update will produce, so a second
+ * edit of a todo with a queued update is a conflict. The queued update carries the version
+ * it was checked against, and is dropped at the flush if the todo was changed by another
+ * path meanwhile. Updates and deletes are only queued for the todo's owner.
+ *
+ * When a flush fails, every change of the batch is tried on its own in a transaction
+ * that is rolled back. Changes the database or validation rejects can never be written:
+ * they are logged, appended to the journal's dead letter file and counted, and the rest
+ * of the batch is written without them. Changes that fail for other reasons, such as an
+ * unavailable database, are put back in the queue and stay in the journal. After a crash, the journal
+ * is replayed into the queue on startup. Each flush commits a JournalCheckpoint along
+ * with its batch, so the replay skips exactly the changes that were committed: no
+ * change is lost and none is applied twice.
+ *
+ * Metrics: todo.write-behind.pending (queued changes), todo.write-behind.flush (flush
+ * latency), todo.write-behind.coalesced (changes merged into an earlier one) and
+ * todo.write-behind.dead-lettered (changes that could not be written).
+ *
+ * Never initialized lazily, so the journal is replayed at startup, not on the first write.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnProperty(name = "todo.write-behind.enabled", havingValue = "true")
+public class WriteBehindTodoWriter implements TodoWriter {
+
+    private final Logger logger = Logger.getLogger(WriteBehindTodoWriter.class.getName());
+
+    private final TodoRepository todoRepository;
+    private final JournalCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transaction;
+    private final TodoJournal journal;
+    private final int batchSize;
+    private final int capacity;
+
+    // Guards the queue and journal appends, so both see changes in the same order
+    private final ReentrantLock queueLock = new ReentrantLock();
+    // Held for a whole flush, so flushes never overlap
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // Guarded by queueLock
+    private List<JournalEntry> creates = new ArrayList<>();
+    private Map<Integer, JournalEntry> changes = new LinkedHashMap<>();
+
+    // Changes not yet committed, queued or in a running flush, per user and per todo
+    private final ConcurrentMap<String, Integer> unflushedByUser = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Integer> unflushedById = new ConcurrentHashMap<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    // Number of committed flushes, to tell whether the database changed since it was read
+    private final AtomicLong flushes = new AtomicLong();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("todo-write-behind").daemon().factory());
+
+    private final Timer flushTimer;
+    private final Counter coalesced;
+    private final Counter deadLettered;
+
+    public WriteBehindTodoWriter(TodoRepository todoRepository, JournalCheckpointRepository checkpointRepository,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${todo.write-behind.batch-size:500}") int batchSize,
+            @Value("${todo.write-behind.max-delay:200ms}") Duration maxDelay,
+            @Value("${todo.write-behind.capacity:10000}") int capacity,
+            @Value("${todo.write-behind.journal-dir:journal}") String journalDirectory) throws IOException {
+        this.todoRepository = todoRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+        this.journal = new TodoJournal(Path.of(journalDirectory), objectMapper);
+
+        Gauge.builder("todo.write-behind.pending", pending, AtomicInteger::get)
+                .description("Todo changes waiting to be written to the database")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("todo.write-behind.flush")
+                .description("Time to write one batch of queued todo changes")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("todo.write-behind.coalesced")
+                .description("Todo changes merged into an earlier queued change")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("todo.write-behind.dead-lettered")
+                .description("Queued todo changes the database rejected, set aside in the dead letter file")
+                .register(meterRegistry);
+
+        long committedBefore = checkpointRepository.findById(journal.name())
+                .map(JournalCheckpoint::getCommittedBefore)
+                .orElse(0L);
+        List<JournalEntry> recovered = journal.recover(committedBefore);
+        recovered.forEach(this::queue);
+        if (!recovered.isEmpty()) {
+            logger.info("Recovered " + recovered.size() + " todo changes from the write-behind journal");
+        }
+
+        flusher.scheduleWithFixedDelay(this::flushQuietly, maxDelay.toMillis(), maxDelay.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void create(Todo todo) {
+        reserveCapacity();
+        long position;
+        queueLock.lock();
+        try {
+            position = append(JournalEntry.create(todo));
+        } finally {
+            queueLock.unlock();
+        }
+        afterAppend(position);
+    }
+
+    @Override
+    public TodoUpdateService.Result update(Todo todo) {
+        return enqueueChange(todo.getId(), todo.getUsername(), todo.getVersion(),
+                databaseVersion -> JournalEntry.update(todo, databaseVersion));
+    }
+
+    /**
+     * Queues the deletion of a todo, if the user owns it and it is not deleted already.
+     */
+    @Override
+    public void delete(int id, String username) {
+        enqueueChange(id, username, null, databaseVersion -> JournalEntry.delete(id, username));
+    }
+
+    @Override
+    public void awaitWrites(String username) {
+        if (unflushedByUser.containsKey(username)) {
+            flushQuietly();
+        }
+    }
+
+    @Override
+    public void awaitWrite(int id) {
+        if (unflushedById.containsKey(id)) {
+            flushQuietly();
+        }
+    }
+
+    /**
+     * Flushes the remaining changes and closes the journal.
+     */
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flusher.shutdown();
+        flushQuietly();
+        journal.close();
+    }
+
+    /**
+     * Journals and queues a change to an existing todo, once its owner and version are
+     * checked against the queued change to the todo or, if there is none, the database.
+     * If the todo is part of a running flush, the flush is waited for first.
+     *
+     * @param id the id of the todo
+     * @param username the user who makes the change
+     * @param expectedVersion the version the user edited, or null if the change does not depend on it
+     * @param change makes the change, given the version the todo must have in the database when it is written
+     * @return UPDATED if the change was queued, NOT_FOUND if the user has no todo with this id
+     *         (or its deletion is queued), or CONFLICT if it has another version
+     * @throws WriteBehindQueueFullException if the queue is full and cannot be flushed
+     */
+    private TodoUpdateService.Result enqueueChange(int id, String username, Integer expectedVersion,
+            Function<Integer, JournalEntry> change) {
+        reserveCapacity();
+        while (true) {
+            long flushed = flushes.get();
+            Todo current = null;
+            if (!unflushedById.containsKey(id)) {
+                current = todoRepository.findById(id).orElse(null);
+                if (current == null || !current.getUsername().equals(username)) {
+                    return TodoUpdateService.Result.NOT_FOUND;
+                }
+                if (expectedVersion != null && current.getVersion() != expectedVersion) {
+                    return TodoUpdateService.Result.CONFLICT;
+                }
+            }
+
+            long position = -1;
+            boolean flushing;
+            queueLock.lock();
+            try {
+                JournalEntry queued = changes.get(id);
+                flushing = queued == null && unflushedById.containsKey(id);
+                if (queued != null) {
+                    if (queued.op() == JournalEntry.Op.DELETE || !queued.username().equals(username)) {
+                        return TodoUpdateService.Result.NOT_FOUND;
+                    }
+                    // The queued update will raise the version by one; nobody can have read that version yet
+                    if (expectedVersion != null
+                            && (queued.version() == null || expectedVersion != queued.version() + 1)) {
+                        return TodoUpdateService.Result.CONFLICT;
+                    }
+                    position = append(change.apply(queued.version()));
+                } else if (current != null && !flushing && flushes.get() == flushed) {
+                    position = append(change.apply(current.getVersion()));
+                }
+            } finally {
+                queueLock.unlock();
+            }
+
+            if (position >= 0) {
+                afterAppend(position);
+                return TodoUpdateService.Result.UPDATED;
+            }
+            // Changed since it was read, or being written: check again once the flush is done
+            if (flushing) {
+                flushQuietly();
+            }
+        }
+    }
+
+    /**
+     * Rejects a change if the queue is full, after trying to write the queue out.
+     *
+     * @throws WriteBehindQueueFullException if the queue is full and cannot be flushed
+     */
+    private void reserveCapacity() {
+        if (pending.get() >= capacity) {
+            flushQuietly();
+            if (pending.get() >= capacity) {
+                throw new WriteBehindQueueFullException(capacity);
+            }
+        }
+    }
+
+    /**
+     * Journals a change and queues it. Must be called under queueLock.
+     *
+     * @param entry the change
+     * @return the journal position to sync before the change is durable
+     */
+    private long append(JournalEntry entry) {
+        try {
+            long position = journal.append(entry);
+            queue(entry);
+            return position;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot journal todo change", e);
+        }
+    }
+
+    /**
+     * Waits until an appended change is durable, and starts a flush if a batch is full.
+     *
+     * @param position the journal position returned by {@link #append(JournalEntry)}
+     */
+    private void afterAppend(long position) {
+        try {
+            journal.sync(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot journal todo change", e);
+        }
+
+        if (pending.get() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Adds a change to the queue, coalescing it with a queued change to the same todo.
+     * A queued delete is kept: a change after it is dropped. Must be called under queueLock.
+     *
+     * @param entry the change
+     */
+    private void queue(JournalEntry entry) {
+        JournalEntry previous = null;
+        if (entry.op() == JournalEntry.Op.CREATE) {
+            creates.add(entry);
+        } else {
+            previous = changes.get(entry.id());
+            if (previous != null && previous.op() == JournalEntry.Op.DELETE) {
+                coalesced.increment();
+                return;
+            }
+            changes.put(entry.id(), entry);
+        }
+
+        track(entry, 1);
+        if (previous == null) {
+            pending.incrementAndGet();
+        } else {
+            track(previous, -1);
+            coalesced.increment();
+        }
+    }
+
+    /**
+     * Writes all queued changes to the database in one transaction.
+     */
+    private void flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            List<JournalEntry> batchCreates;
+            Map<Integer, JournalEntry> batchChanges;
+            long committedBefore;
+            queueLock.lock();
+            try {
+                if (creates.isEmpty() && changes.isEmpty()) {
+                    return;
+                }
+                batchCreates = creates;
+                batchChanges = changes;
+                creates = new ArrayList<>();
+                changes = new LinkedHashMap<>();
+                pending.set(0);
+                committedBefore = journal.rotate();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot rotate the write-behind journal", e);
+            } finally {
+                queueLock.unlock();
+            }
+
+            try {
+                commit(batchCreates, batchChanges, committedBefore);
+            } catch (RuntimeException e) {
+                // A change that can never be written would fail every flush: write the others without it
+                List<JournalEntry> rejected = findRejected(batchCreates, batchChanges.values());
+                if (rejected.isEmpty()) {
+                    requeue(batchCreates, batchChanges);
+                    throw e;
+                }
+                deadLetter(rejected, batchCreates, batchChanges);
+                try {
+                    commit(batchCreates, batchChanges, committedBefore);
+                } catch (RuntimeException retry) {
+                    requeue(batchCreates, batchChanges);
+                    throw retry;
+                }
+            }
+            flushes.incrementAndGet();
+            forget(batchCreates);
+            forget(batchChanges.values());
+
+            try {
+                journal.deleteClosedSegments();
+            } catch (IOException e) {
+                // The changes are committed; stale segments are only replayed after a crash
+                logger.log(Level.WARNING, "Cannot delete flushed write-behind journal segments", e);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Cannot flush queued todo changes; they will be retried", e);
+        }
+    }
+
+    /**
+     * Writes one batch of changes and moves the journal checkpoint past it, in one transaction.
+     */
+    private void commit(List<JournalEntry> batchCreates, Map<Integer, JournalEntry> batchChanges,
+            long committedBefore) {
+        flushTimer.record(() -> transaction.executeWithoutResult(status -> {
+            write(batchCreates, batchChanges);
+            checkpointRepository.save(new JournalCheckpoint(journal.name(), committedBefore));
+        }));
+    }
+
+    /**
+     * Applies one batch of changes. Updates and deletes of todos that no longer exist,
+     * or that belong to another user than the one who made the change, are dropped.
+     */
+    private void write(List<JournalEntry> batchCreates, Map<Integer, JournalEntry> batchChanges) {
+        List<Todo> deleted = new ArrayList<>();
+        for (Todo todo : todoRepository.findAllById(batchChanges.keySet())) {
+            JournalEntry change = batchChanges.get(todo.getId());
+            if (!todo.getUsername().equals(change.username())) {
+                logger.warning("Dropping a queued " + change.op() + " of todo " + todo.getId() + " by "
+                        + change.username() + ", who does not own it");
+            } else if (change.op() == JournalEntry.Op.DELETE) {
+                deleted.add(todo);
+            } else if (change.version() != null && change.version() != todo.getVersion()) {
+                logger.warning("Dropping a queued update of todo " + todo.getId() + " by " + change.username()
+                        + ": it was changed meanwhile");
+            } else {
+                // Managed entity: the new state is written by dirty checking at commit
+                change.applyTo(todo);
+            }
+        }
+        todoRepository.deleteAll(deleted);
+        todoRepository.saveAll(batchCreates.stream().map(JournalEntry::toNewTodo).toList());
+    }
+
+    /**
+     * Tries every change of a failed batch on its own, in a transaction that is rolled back.
+     *
+     * @return the changes the database or validation rejects, which can never be written
+     */
+    private List<JournalEntry> findRejected(List<JournalEntry> batchCreates, Collection<JournalEntry> batchChanges) {
+        List<JournalEntry> rejected = new ArrayList<>();
+        List<JournalEntry> entries = new ArrayList<>(batchCreates);
+        entries.addAll(batchChanges);
+        for (JournalEntry entry : entries) {
+            try {
+                transaction.executeWithoutResult(status -> {
+                    status.setRollbackOnly();
+                    if (entry.op() == JournalEntry.Op.CREATE) {
+                        write(List.of(entry), Map.of());
+                    } else {
+                        write(List.of(), Map.of(entry.id(), entry));
+                    }
+                    todoRepository.flush();
+                });
+            } catch (RuntimeException e) {
+                if (isRejection(e)) {
+                    rejected.add(entry);
+                }
+            }
+        }
+        return rejected;
+    }
+
+    private static boolean isRejection(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException || cause instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes rejected changes out of a batch and sets them aside in the dead letter file.
+     */
+    private void deadLetter(List<JournalEntry> rejected, List<JournalEntry> batchCreates,
+            Map<Integer, JournalEntry> batchChanges) {
+        for (JournalEntry entry : rejected) {
+            if (entry.op() == JournalEntry.Op.CREATE) {
+                batchCreates.remove(entry);
+            } else {
+                batchChanges.remove(entry.id());
+            }
+            track(entry, -1);
+            deadLettered.increment();
+            logger.severe("Dropping a queued todo change the database rejects: " + entry);
+            try {
+                journal.deadLetter(entry);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Cannot append to the write-behind dead letter file", e);
+            }
+        }
+    }
+
+    /**
+     * Puts the changes of a failed flush back in front of the queue. Changes queued
+     * since then are newer and win over the put back ones, except over a delete.
+     */
+    private void requeue(List<JournalEntry> batchCreates, Map<Integer, JournalEntry> batchChanges) {
+        queueLock.lock();
+        try {
+            batchCreates.addAll(creates);
+            creates = batchCreates;
+            for (JournalEntry newer : changes.values()) {
+                JournalEntry older = batchChanges.get(newer.id());
+                if (older != null && older.op() == JournalEntry.Op.DELETE) {
+                    track(newer, -1);
+                    coalesced.increment();
+                    continue;
+                }
+                batchChanges.put(newer.id(), newer);
+                if (older != null) {
+                    track(older, -1);
+                    coalesced.increment();
+                }
+            }
+            changes = batchChanges;
+            pending.set(creates.size() + changes.size());
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private void forget(Iterable<JournalEntry> flushed) {
+        for (JournalEntry entry : flushed) {
+            track(entry, -1);
+        }
+    }
+
+    /**
+     * Counts a queued change for its user and todo, or stops counting it.
+     *
+     * @param entry the change
+     * @param delta 1 when the change is queued, -1 when it is committed or replaced
+     */
+    private void track(JournalEntry entry, int delta) {
+        unflushedByUser.merge(entry.username(), delta, (count, change) -> count + change == 0 ? null : count + change);
+        if (entry.op() != JournalEntry.Op.CREATE) {
+            unflushedById.merge(entry.id(), delta, (count, change) -> count + change == 0 ? null : count + change);
+        }
+    }
+}
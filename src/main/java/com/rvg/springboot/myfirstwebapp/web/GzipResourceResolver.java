@@ -0,0 +1,116 @@
+package com.rvg.springboot.myfirstwebapp.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resource resolver that serves gzip compressed variants of text resources to
+ * clients that accept them.
+ *
+ * Spring's EncodedResourceResolver only finds variants that sit next to the
+ * resource as ".gz" files, which webjars do not ship. This resolver compresses the
+ * resource itself instead. Used behind a CachingResourceResolver, which caches
+ * resolved resources per path and accepted encoding, each resource is compressed
+ * once and then served from memory.
+ */
+public class GzipResourceResolver extends AbstractResourceResolver {
+
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of("css", "js", "map", "svg", "json", "txt", "html");
+
+    @Override
+    protected Resource resolveResourceInternal(@Nullable HttpServletRequest request, String requestPath,
+            List<? extends Resource> locations, ResourceResolverChain chain) {
+        Resource resource = chain.resolveResource(request, requestPath, locations);
+        if (resource == null || request == null || !acceptsGzip(request) || !isCompressible(resource)) {
+            return resource;
+        }
+
+        try {
+            byte[] compressed = compress(resource);
+            if (compressed.length >= resource.contentLength()) {
+                return resource;
+            }
+            return new GzippedResource(resource, compressed);
+        } catch (IOException e) {
+            logger.debug("Serving " + resource + " uncompressed", e);
+            return resource;
+        }
+    }
+
+    @Override
+    protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations,
+            ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+    }
+
+    private static boolean isCompressible(Resource resource) {
+        String extension = StringUtils.getFilenameExtension(resource.getFilename());
+        return extension != null && COMPRESSIBLE_EXTENSIONS.contains(extension.toLowerCase(Locale.ROOT));
+    }
+
+    private static byte[] compress(Resource resource) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = resource.getInputStream(); OutputStream out = new GZIPOutputStream(bytes)) {
+            in.transferTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A gzip compressed copy of a resource, served with "Content-Encoding: gzip".
+     * It keeps the filename and last-modified time of the original, so the media type
+     * and conditional requests are handled as for the original.
+     */
+    static final class GzippedResource extends ByteArrayResource implements HttpResource {
+
+        private final Resource original;
+
+        GzippedResource(Resource original, byte[] compressed) {
+            super(compressed, original.getDescription() + " (gzip)");
+            this.original = original;
+        }
+
+        @Override
+        public String getFilename() {
+            return original.getFilename();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return original.lastModified();
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            if (original instanceof HttpResource httpResource) {
+                headers.putAll(httpResource.getResponseHeaders());
+            }
+            headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            return headers;
+        }
+    }
+}
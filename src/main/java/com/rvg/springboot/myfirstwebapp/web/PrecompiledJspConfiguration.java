@@ -0,0 +1,114 @@
+package com.rvg.springboot.myfirstwebapp.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.ServletContextInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import jakarta.servlet.ServletException;
+
+/**
+ * Configuration class for serving JSPs that were compiled at build time.
+ *
+ * The production Maven profile translates and compiles every JSP with Jasper's JspC
+ * and writes the resulting servlets and their URL mappings to
+ * META-INF/precompiled-jsp.xml, in web.xml form. Spring Boot's embedded Tomcat does not
+ * read web.xml files, so this class registers the listed servlets itself. A view such
+ * as /WEB-INF/jsp/listTodos.jsp then maps exactly to its compiled servlet, which takes
+ * precedence over Jasper's *.jsp servlet: no page is translated or compiled at runtime.
+ *
+ * Enabled by todo.jsp.precompiled=true (set by the production Spring profile). Without
+ * the generated file, JSPs are compiled on their first request as usual.
+ *
+ * Methods:
+ * - precompiledJspServlets(): Registers the compiled JSP servlets with the servlet context.
+ */
+@Configuration
+@ConditionalOnProperty(name = "todo.jsp.precompiled", havingValue = "true")
+public class PrecompiledJspConfiguration {
+
+    static final String SERVLETS = "META-INF/precompiled-jsp.xml";
+
+    private final Logger logger = Logger.getLogger(PrecompiledJspConfiguration.class.getName());
+
+    /**
+     * Registers the servlets listed in {@value #SERVLETS} under their JSP paths.
+     *
+     * @return the initializer adding the servlets when the servlet context starts
+     */
+    @Bean
+    public ServletContextInitializer precompiledJspServlets() {
+        return servletContext -> {
+            ClassPathResource resource = new ClassPathResource(SERVLETS);
+            if (!resource.exists()) {
+                logger.warning(SERVLETS + " not found; JSPs are compiled on their first request."
+                        + " Build with the production Maven profile to precompile them.");
+                return;
+            }
+            Map<String, String> mappings;
+            try {
+                mappings = readMappings(resource);
+            } catch (IOException e) {
+                throw new ServletException("Cannot read " + SERVLETS, e);
+            }
+            mappings.forEach((servletClass, urlPattern) ->
+                    servletContext.addServlet(servletClass, servletClass).addMapping(urlPattern));
+            logger.info("Registered " + mappings.size() + " precompiled JSPs");
+        };
+    }
+
+    /**
+     * Reads the servlet classes and their URL patterns from a web.xml file.
+     *
+     * @param resource the file
+     * @return the URL pattern of each servlet class
+     * @throws IOException if the file cannot be read or parsed
+     */
+    private static Map<String, String> readMappings(ClassPathResource resource) throws IOException {
+        Document document;
+        try (InputStream input = resource.getInputStream()) {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            document = factory.newDocumentBuilder().parse(input);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Cannot parse " + SERVLETS, e);
+        }
+
+        Map<String, String> classesByName = new HashMap<>();
+        NodeList servlets = document.getElementsByTagName("servlet");
+        for (int i = 0; i < servlets.getLength(); i++) {
+            Element servlet = (Element) servlets.item(i);
+            classesByName.put(text(servlet, "servlet-name"), text(servlet, "servlet-class"));
+        }
+        Map<String, String> mappings = new HashMap<>();
+        NodeList servletMappings = document.getElementsByTagName("servlet-mapping");
+        for (int i = 0; i < servletMappings.getLength(); i++) {
+            Element mapping = (Element) servletMappings.item(i);
+            String servletClass = classesByName.get(text(mapping, "servlet-name"));
+            if (servletClass != null) {
+                mappings.put(servletClass, text(mapping, "url-pattern"));
+            }
+        }
+        return mappings;
+    }
+
+    private static String text(Element parent, String tagName) {
+        return parent.getElementsByTagName(tagName).item(0).getTextContent().trim();
+    }
+}
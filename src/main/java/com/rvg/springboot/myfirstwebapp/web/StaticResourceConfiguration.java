@@ -0,0 +1,54 @@
+package com.rvg.springboot.myfirstwebapp.web;
+
+import java.time.Duration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+/**
+ * Configuration class for serving the webjar assets (Bootstrap, jQuery, the datepicker).
+ *
+ * Asset URLs are fingerprinted with a hash of the file content, for example
+ * /webjars/bootstrap/5.2.3/css/bootstrap.min-&lt;hash&gt;.css, so a URL always refers
+ * to the same bytes and browsers may keep the file for a year without revalidating.
+ * The JSPs write asset URLs with {@code <c:url>}, which the ResourceUrlEncodingFilter
+ * rewrites to the fingerprinted form. Text assets are sent gzip compressed to clients
+ * that accept it.
+ *
+ * Methods:
+ * - addResourceHandlers(ResourceHandlerRegistry registry): Serves /webjars/** through the fingerprinting resource chain.
+ * - resourceUrlEncodingFilter(): Rewrites asset URLs in rendered pages to their fingerprinted form.
+ */
+@Configuration
+public class StaticResourceConfiguration implements WebMvcConfigurer {
+
+    // Fingerprinted assets never change, so they may be cached for as long as HTTP allows
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/webjars/**")
+                .addResourceLocations("classpath:/META-INF/resources/webjars/")
+                .setCacheControl(IMMUTABLE)
+                // Caches resolved (and compressed) resources per path and accepted encoding
+                .resourceChain(true)
+                .addResolver(new GzipResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    /**
+     * Rewrites resource URLs passed through HttpServletResponse.encodeURL, as
+     * {@code <c:url>} does, to their fingerprinted form.
+     *
+     * @return the filter
+     */
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+}
@@ -0,0 +1,47 @@
+<%@ include file="/WEB-INF/jsp/fragments/header.jspf" %>
+  <%@ include file="/WEB-INF/jsp/fragments/nav.jspf" %>
+
+    <div class="container">
+      <h1>Archived Todos</h1>
+      <p>Done and long overdue todos are moved here. You have ${total} archived todos.</p>
+
+      <c:choose>
+        <c:when test="${empty todos}">
+          <p>No archived todos.</p>
+        </c:when>
+        <c:otherwise>
+          <table class="table">
+            <thead>
+              <tr>
+                <th>Description</th>
+                <th>Target Date</th>
+                <th>Is it Done?</th>
+                <th>Archived</th>
+              </tr>
+            </thead>
+            <tbody>
+              <c:forEach items="${todos}" var="todo">
+                <tr>
+                  <td><c:out value="${todo.description}"/></td>
+                  <td>${todo.targetDate}</td>
+                  <td>${todo.done}</td>
+                  <td>${todo.archivedAt}</td>
+                </tr>
+              </c:forEach>
+            </tbody>
+          </table>
+        </c:otherwise>
+      </c:choose>
+      <nav class="mb-3">
+        <ul class="pagination">
+          <li class="page-item ${hasPrevious ? '' : 'disabled'}">
+            <a class="page-link" href="archived-todos?size=${size}&page=${page - 1}">Previous</a>
+          </li>
+          <li class="page-item ${hasNext ? '' : 'disabled'}">
+            <a class="page-link" href="archived-todos?size=${size}&page=${page + 1}">Next</a>
+          </li>
+        </ul>
+      </nav>
+      <a href="list-todos" class="btn btn-secondary">All Todos</a>
+    </div>
+    <%@ include file="/WEB-INF/jsp/fragments/footer.jspf" %>
@@ -1,10 +1,12 @@
+<%@ page session="false" %>
 <%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
+<%@ taglib prefix="todo" uri="/WEB-INF/todo.tld" %>
 
     <!DOCTYPE html>
     <html lang="en">
 
     <head>
-        <link href="webjars/bootstrap/5.2.3/css/bootstrap.min.css" rel="stylesheet" />
+        <link href="<c:url value="/webjars/bootstrap/5.2.3/css/bootstrap.min.css"/>" rel="stylesheet" />
         <meta charset="UTF-8" />
         <meta name="viewport" content="width=device-width, initial-scale=1.0" />
         <title>List Todos Page</title>
@@ -15,34 +17,82 @@
             <div class="container">
                 <div>
                     <h1>Your Todos</h1>
-                    <table class="table">
-                        <thead>
-                            <tr>
-                                <th>Description</th>
-                                <th>Target Date</th>
-                                <th>Is it Done?</th>
-                                <th></th>
-                                <th></th>
-                            </tr>
-                        </thead>
-                        <tbody>
-                            <c:forEach items="${todos}" var="todo">
+                    <div id="todo-updates" class="alert alert-info d-none">
+                        Todos were added elsewhere. <a href="list-todos" class="alert-link">Show the latest list</a>
+                    </div>
+                    <todo:cache key="${fragmentKey}">
+                        <table class="table">
+                            <thead>
                                 <tr>
-                                    <td>${todo.description}</td>
-                                    <td>${todo.targetDate}</td>
-                                    <td>${todo.done}</td>
-                                    <td>
-                                        <a href="delete-todo?id=${todo.id}" class="btn btn-warning">Delete</a>
-                                    </td>
-                                    <td>
-                                        <a href="update-todo?id=${todo.id}" class="btn btn-success">Update</a>
-                                    </td>
+                                    <th>Description</th>
+                                    <th>Target Date</th>
+                                    <th>Is it Done?</th>
+                                    <th></th>
+                                    <th></th>
                                 </tr>
-                            </c:forEach>
-                        </tbody>
-                    </table>
+                            </thead>
+                            <tbody>
+                                <c:forEach items="${todos}" var="todo">
+                                    <tr data-todo-id="${todo.id}">
+                                        <td class="todo-description">${todo.description}</td>
+                                        <td class="todo-target-date">${todo.targetDate}</td>
+                                        <td class="todo-done">${todo.done}</td>
+                                        <td>
+                                            <a href="delete-todo?id=${todo.id}" class="btn btn-warning">Delete</a>
+                                        </td>
+                                        <td>
+                                            <a href="update-todo?id=${todo.id}" class="btn btn-success">Update</a>
+                                        </td>
+                                    </tr>
+                                </c:forEach>
+                            </tbody>
+                        </table>
+                        <nav class="mb-3">
+                            <ul class="pagination">
+                                <li class="page-item ${page.hasPrevious ? '' : 'disabled'}">
+                                    <a class="page-link" href="list-todos?size=${page.size}&before=${page.previousCursor}">Previous</a>
+                                </li>
+                                <li class="page-item ${page.hasNext ? '' : 'disabled'}">
+                                    <a class="page-link" href="list-todos?size=${page.size}&after=${page.nextCursor}">Next</a>
+                                </li>
+                            </ul>
+                        </nav>
+                    </todo:cache>
                     <a href="add-todo" class="btn btn-success">Add Todo</a>
                 </div>
             </div>
             
+            <%-- The change stream is part of the JSON API, which needs the database store --%>
+            <c:if test="${databaseStore}">
+                <script>
+                    // Applies changes made on other devices to this page, instead of reloading it
+                    (function () {
+                        if (!window.EventSource) {
+                            return;
+                        }
+                        var notice = document.getElementById('todo-updates');
+                        var events = new EventSource('<c:url value="/api/todos/events"/>');
+                        events.addEventListener('todo', function (message) {
+                            var change = JSON.parse(message.data);
+                            var row = document.querySelector('tr[data-todo-id="' + change.id + '"]');
+                            if (!row) {
+                                if (change.type === 'created') {
+                                    notice.classList.remove('d-none');
+                                }
+                                return;
+                            }
+                            if (change.type === 'deleted') {
+                                row.remove();
+                                return;
+                            }
+                            row.querySelector('.todo-description').textContent = change.todo.description;
+                            row.querySelector('.todo-target-date').textContent = change.todo.targetDate;
+                            row.querySelector('.todo-done').textContent = change.todo.done;
+                        });
+                        events.addEventListener('reset', function () {
+                            notice.classList.remove('d-none');
+                        });
+                    })();
+                </script>
+            </c:if>
             <%@ include file="/WEB-INF/jsp/fragments/footer.jspf" %>
\ No newline at end of file
@@ -0,0 +1,58 @@
+<%@ include file="/WEB-INF/jsp/fragments/header.jspf" %>
+  <%@ include file="/WEB-INF/jsp/fragments/nav.jspf" %>
+
+    <div class="container">
+      <h1>Search Todos</h1>
+
+      <form method="get" action="search-todos" class="row g-3 mb-3">
+        <div class="col-auto">
+          <input type="search" name="q" value="<c:out value="${q}"/>" placeholder="Words or word beginnings"
+            class="form-control" autofocus />
+        </div>
+        <div class="col-auto">
+          <input type="submit" class="btn btn-primary" value="Search" />
+        </div>
+      </form>
+
+      <c:if test="${!searchReady}">
+        <div class="alert alert-info">The search index is still being built; some todos may be missing.</div>
+      </c:if>
+
+      <c:if test="${not empty q}">
+        <c:choose>
+          <c:when test="${empty todos}">
+            <p>No todos match <strong><c:out value="${q}"/></strong>.</p>
+          </c:when>
+          <c:otherwise>
+            <table class="table">
+              <thead>
+                <tr>
+                  <th>Description</th>
+                  <th>Target Date</th>
+                  <th>Is it Done?</th>
+                  <th></th>
+                  <th></th>
+                </tr>
+              </thead>
+              <tbody>
+                <c:forEach items="${todos}" var="todo">
+                  <tr>
+                    <td><c:out value="${todo.description}"/></td>
+                    <td>${todo.targetDate}</td>
+                    <td>${todo.done}</td>
+                    <td>
+                      <a href="delete-todo?id=${todo.id}" class="btn btn-warning">Delete</a>
+                    </td>
+                    <td>
+                      <a href="update-todo?id=${todo.id}" class="btn btn-success">Update</a>
+                    </td>
+                  </tr>
+                </c:forEach>
+              </tbody>
+            </table>
+          </c:otherwise>
+        </c:choose>
+      </c:if>
+      <a href="list-todos" class="btn btn-secondary">All Todos</a>
+    </div>
+    <%@ include file="/WEB-INF/jsp/fragments/footer.jspf" %>
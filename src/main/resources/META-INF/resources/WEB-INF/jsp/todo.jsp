@@ -5,9 +5,10 @@
       <h1>Enter Todo Details</h1>
 
       <form:form method="post" cssClass="row g-3" modelAttribute="todo">
+        <form:errors path="" element="div" cssClass="text-warning" />
         <fieldset class="mb-3">
           <form:label path="description" cssClass="form-label">Description</form:label>
-          <form:input type="text" path="description" required="required" cssClass="form-control" style="width: 50%;" />
+          <form:input type="text" path="description" required="required" maxlength="255" cssClass="form-control" style="width: 50%;" />
           <form:errors path="description" cssClass="text-warning" />
         </fieldset>
         <fieldset class="mb-3">
@@ -18,6 +19,7 @@
 
         <form:input type="hidden" path="done" />
         <form:input type="hidden" path="id" />
+        <form:input type="hidden" path="version" />
         <input type="submit" class="btn btn-success" value="Add Todo" style="width: 15%;" />
       </form:form>
     </div>
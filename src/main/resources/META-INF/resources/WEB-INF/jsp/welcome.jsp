@@ -3,5 +3,19 @@
     <div class="container">
         <h1> Welcome ${name} </h1>
         <a href="list-todos">Manage</a> your todos.
+
+        <c:if test="${stats != null}">
+          <c:if test="${!statsReady}">
+            <div class="alert alert-info mt-3">Your todos are still being counted; the numbers may be incomplete.</div>
+          </c:if>
+          <table class="table mt-3 w-auto">
+            <tbody>
+              <tr><th>Todos</th><td>${stats.total()}</td></tr>
+              <tr><th>Done</th><td>${stats.done()}</td></tr>
+              <tr><th>Overdue</th><td>${stats.overdue()}</td></tr>
+              <tr><th>Due this week</th><td>${stats.dueThisWeek()}</td></tr>
+            </tbody>
+          </table>
+        </c:if>
     </div>
-    <%@ include file="/WEB-INF/jsp/fragments/footer.jspf" %>
\ No newline at end of file
+    <%@ include file="/WEB-INF/jsp/fragments/footer.jspf" %>
@@ -1,11 +1,11 @@
-INSERT INTO todo (id, username, description, target_date, done)
-VALUES (1001, 'rvg', 'Learn SQL', CURRENT_DATE(), 'false');
+INSERT INTO todo (id, username, description, target_date, done, version)
+VALUES (1001, 'rvg', 'Learn SQL', CURRENT_DATE(), 'false', 0);
 
-INSERT INTO todo (id, username, description, target_date, done)
-VALUES (1002, 'rvg', 'Learn Spring', CURRENT_DATE(), 'false');
+INSERT INTO todo (id, username, description, target_date, done, version)
+VALUES (1002, 'rvg', 'Learn Spring', CURRENT_DATE(), 'false', 0);
 
-INSERT INTO todo (id, username, description, target_date, done)
-VALUES (1003, 'rvg', 'Learn Spring Boot', CURRENT_DATE(), 'false');
+INSERT INTO todo (id, username, description, target_date, done, version)
+VALUES (1003, 'rvg', 'Learn Spring Boot', CURRENT_DATE(), 'false', 0);
 
-INSERT INTO todo (id, username, description, target_date, done)
-VALUES (1004, 'rvg', 'Learn Java', CURRENT_DATE(), 'false');
\ No newline at end of file
+INSERT INTO todo (id, username, description, target_date, done, version)
+VALUES (1004, 'rvg', 'Learn Java', CURRENT_DATE(), 'false', 0);
\ No newline at end of file
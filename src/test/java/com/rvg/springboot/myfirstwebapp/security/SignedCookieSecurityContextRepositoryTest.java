@@ -0,0 +1,126 @@
+package com.rvg.springboot.myfirstwebapp.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.authentication.logout.SecurityContextLogoutHandler;
+
+import jakarta.servlet.http.Cookie;
+
+class SignedCookieSecurityContextRepositoryTest {
+
+	private static final String KEY = "test-signing-key";
+
+	private final SignedCookieSecurityContextRepository repository = new SignedCookieSecurityContextRepository(KEY,
+			Duration.ofMinutes(30));
+
+	@Test
+	void cookieWrittenAtLoginAuthenticatesLaterRequests() {
+		String cookie = login(repository);
+
+		Authentication authentication = load(repository, cookie).getAuthentication();
+		assertNotNull(authentication);
+		assertEquals("rvg", authentication.getName());
+		assertEquals(AuthorityUtils.authorityListToSet(AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN")),
+				AuthorityUtils.authorityListToSet(authentication.getAuthorities()));
+	}
+
+	@Test
+	void tamperedPayloadIsRejected() {
+		String cookie = login(repository);
+		String signature = cookie.substring(cookie.indexOf('.') + 1);
+		String payload = "mallory\n" + (System.currentTimeMillis() / 1000 + 3600) + "\nROLE_ADMIN";
+		String forged = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + '.' + signature;
+
+		assertRejected(repository, forged);
+	}
+
+	@Test
+	void tamperedSignatureIsRejected() {
+		String cookie = login(repository);
+		int dot = cookie.indexOf('.');
+		char first = cookie.charAt(dot + 1);
+		String forged = cookie.substring(0, dot + 1) + (first == 'A' ? 'B' : 'A') + cookie.substring(dot + 2);
+
+		assertRejected(repository, forged);
+		assertRejected(repository, cookie.substring(0, dot));
+		assertRejected(repository, cookie.substring(0, dot + 1) + "not*base64");
+	}
+
+	@Test
+	void expiredCookieIsRejected() {
+		SignedCookieSecurityContextRepository expired = new SignedCookieSecurityContextRepository(KEY,
+				Duration.ofSeconds(-60));
+
+		assertRejected(expired, login(expired));
+	}
+
+	@Test
+	void cookieSignedWithAnotherKeyIsRejected() {
+		SignedCookieSecurityContextRepository other = new SignedCookieSecurityContextRepository("another-key",
+				Duration.ofMinutes(30));
+
+		assertRejected(repository, login(other));
+	}
+
+	@Test
+	void logoutClearsTheCookie() {
+		String cookie = login(repository);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setCookies(new Cookie(SignedCookieSecurityContextRepository.COOKIE_NAME, cookie));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		SecurityContextLogoutHandler logoutHandler = new SecurityContextLogoutHandler();
+		logoutHandler.setSecurityContextRepository(repository);
+
+		logoutHandler.logout(request, response, load(repository, cookie).getAuthentication());
+
+		Cookie cleared = response.getCookie(SignedCookieSecurityContextRepository.COOKIE_NAME);
+		assertNotNull(cleared);
+		assertEquals("", cleared.getValue());
+		assertEquals(0, cleared.getMaxAge());
+	}
+
+	/**
+	 * Saves the context of an authenticated user and returns the cookie written for it.
+	 */
+	private static String login(SignedCookieSecurityContextRepository repository) {
+		Authentication authentication = UsernamePasswordAuthenticationToken.authenticated("rvg", null,
+				AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		repository.saveContext(new SecurityContextImpl(authentication), new MockHttpServletRequest(), response);
+		Cookie cookie = response.getCookie(SignedCookieSecurityContextRepository.COOKIE_NAME);
+		assertNotNull(cookie);
+		assertTrue(cookie.isHttpOnly());
+		return cookie.getValue();
+	}
+
+	private static SecurityContext load(SignedCookieSecurityContextRepository repository, String cookie) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setCookies(new Cookie(SignedCookieSecurityContextRepository.COOKIE_NAME, cookie));
+		return repository.loadDeferredContext(request).get();
+	}
+
+	private static void assertRejected(SignedCookieSecurityContextRepository repository, String cookie) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setCookies(new Cookie(SignedCookieSecurityContextRepository.COOKIE_NAME, cookie));
+		assertFalse(repository.containsContext(request));
+		assertNull(repository.loadDeferredContext(request).get().getAuthentication());
+		assertTrue(repository.loadDeferredContext(request).isGenerated());
+	}
+}
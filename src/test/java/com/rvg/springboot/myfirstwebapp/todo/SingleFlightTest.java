@@ -0,0 +1,94 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SingleFlightTest {
+
+	@Test
+	void concurrentReadsOfAKeyShareOneQueryAndAreCountedAsCoalesced() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		SingleFlight<String, List<String>> reads = new SingleFlight<>(registry, "findByUsername");
+		AtomicInteger queries = new AtomicInteger();
+		CountDownLatch queryStarted = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> result = List.of("todo");
+
+		List<Future<List<String>>> callers = new ArrayList<>();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			callers.add(executor.submit(() -> reads.execute("rvg", () -> {
+				queries.incrementAndGet();
+				queryStarted.countDown();
+				await(release);
+				return result;
+			})));
+			queryStarted.await();
+			for (int i = 0; i < 9; i++) {
+				callers.add(executor.submit(() -> reads.execute("rvg", () -> {
+					queries.incrementAndGet();
+					return List.of();
+				})));
+			}
+			// Let the callers reach the running query before it ends
+			while (registry.get("todo.reads").tag("outcome", "coalesced").counter().count() < 9) {
+				Thread.sleep(1);
+			}
+			release.countDown();
+			for (Future<List<String>> caller : callers) {
+				assertSame(result, caller.get(5, TimeUnit.SECONDS));
+			}
+		}
+		assertEquals(1, queries.get());
+		assertEquals(1, registry.get("todo.reads").tag("outcome", "queried").counter().count());
+
+		// Once the query has ended, the next read queries again
+		assertEquals(List.of(), reads.execute("rvg", List::of));
+		assertEquals(2, registry.get("todo.reads").tag("outcome", "queried").counter().count());
+	}
+
+	@Test
+	void aFailedQueryFailsTheCallersThatJoinedIt() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		SingleFlight<Integer, String> reads = new SingleFlight<>(registry, "findById");
+		CountDownLatch queryStarted = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			Future<String> first = executor.submit(() -> reads.execute(1, () -> {
+				queryStarted.countDown();
+				await(release);
+				throw new IllegalStateException("database down");
+			}));
+			queryStarted.await();
+			Future<String> joined = executor.submit(() -> reads.execute(1, () -> "not queried"));
+			while (registry.get("todo.reads").tag("outcome", "coalesced").counter().count() < 1) {
+				Thread.sleep(1);
+			}
+			release.countDown();
+			assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+			Exception failure = assertThrows(Exception.class, () -> joined.get(5, TimeUnit.SECONDS));
+			assertEquals("database down", failure.getCause().getMessage());
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
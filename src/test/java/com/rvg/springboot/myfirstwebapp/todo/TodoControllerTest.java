@@ -0,0 +1,107 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TodoControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TodoRepository todoRepository;
+
+	@Test
+	void unchangedTodosAreNotModified() throws Exception {
+		String etag = etag("rvg");
+
+		mockMvc.perform(as("rvg", get("/list-todos")).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag));
+		// Every page of the user shares the version
+		mockMvc.perform(as("rvg", get("/list-todos").param("size", "1")).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void everyChangeGivesANewETag() throws Exception {
+		String initial = etag("ric");
+		Set<String> etags = new HashSet<>(Set.of(initial));
+
+		mockMvc.perform(as("ric", post("/add-todo"))
+				.param("description", "Changes the version")
+				.param("targetDate", "2026-06-01"))
+				.andExpect(status().is3xxRedirection());
+		assertTrue(etags.add(etag("ric")));
+		List<Todo> added = todoRepository.findByUsername("ric").stream()
+				.filter(todo -> todo.getDescription().equals("Changes the version"))
+				.toList();
+		assertEquals(1, added.size());
+		Todo todo = added.get(0);
+
+		mockMvc.perform(as("ric", post("/update-todo"))
+				.param("id", Integer.toString(todo.getId()))
+				.param("version", Integer.toString(todo.getVersion()))
+				.param("description", "Changes the version again")
+				.param("targetDate", "2026-06-01")
+				.param("done", "true"))
+				.andExpect(status().is3xxRedirection());
+		assertTrue(etags.add(etag("ric")));
+
+		mockMvc.perform(as("ric", get("/delete-todo").param("id", Integer.toString(todo.getId()))))
+				.andExpect(status().is3xxRedirection());
+		assertTrue(etags.add(etag("ric")));
+
+		// The page from before the changes is stale
+		mockMvc.perform(as("ric", get("/list-todos")).header(HttpHeaders.IF_NONE_MATCH, initial))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void oneUsersETagNeverMatchesAnotherUsersPage() throws Exception {
+		String rvg = etag("rvg");
+
+		mockMvc.perform(as("ric", get("/list-todos")).header(HttpHeaders.IF_NONE_MATCH, rvg))
+				.andExpect(status().isOk());
+		assertNotEquals(rvg, etag("ric"));
+	}
+
+	/**
+	 * Lists the user's todos and returns the ETag of the page.
+	 */
+	private String etag(String username) throws Exception {
+		String etag = mockMvc.perform(as(username, get("/list-todos")))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotNull(etag);
+		return etag;
+	}
+
+	private static MockHttpServletRequestBuilder as(String username, MockHttpServletRequestBuilder request) {
+		String password = username.equals("rvg") ? "asdf" : "qwerty";
+		return request.header(HttpHeaders.AUTHORIZATION, "Basic "
+				+ Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8)));
+	}
+}
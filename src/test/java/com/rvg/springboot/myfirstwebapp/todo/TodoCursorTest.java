@@ -0,0 +1,28 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+class TodoCursorTest {
+
+	@Test
+	void encodedCursorDecodesToTheSamePosition() {
+		TodoCursor cursor = new TodoCursor(LocalDate.of(2025, 3, 1), 1002);
+
+		assertEquals("2025-03-01_1002", cursor.encode());
+		assertEquals(cursor, TodoCursor.decode(cursor.encode()));
+		assertEquals(new TodoCursor(LocalDate.of(2025, 3, 1), 1003), cursor.next());
+	}
+
+	@Test
+	void malformedCursorsDecodeAsMissing() {
+		for (String value : new String[] { null, "", "2025-03-01", "_1002", "2025-03-01_", "2025-03-01_x",
+				"2025-13-01_1002", "yesterday_1002", "2025-03-01_99999999999" }) {
+			assertNull(TodoCursor.decode(value), value);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Walks the same list through the keyset pages of the database (TodoQueryService) and
+ * through the in-memory default of TodoStore.findPage (TodoService), which must agree.
+ */
+// Not transactional: pages are read in their own read-only transactions
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TodoPagingTest {
+
+	private static final String USER = "pager";
+
+	// Several todos share a target date, so the id decides their order
+	private static final LocalDate[] TARGET_DATES = { LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 1),
+			LocalDate.of(2026, 1, 1), LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 1), LocalDate.of(2026, 3, 1),
+			LocalDate.of(2026, 4, 1) };
+
+	@Autowired
+	private TodoRepository todoRepository;
+
+	@AfterEach
+	void deleteTodos() {
+		todoRepository.deleteAll(todoRepository.findByUsername(USER));
+	}
+
+	@Test
+	void databasePagesFollowTargetDateAndId() {
+		// Saved in reverse, so todos with the same target date are not in id order by accident
+		List<Todo> saved = new ArrayList<>();
+		for (int i = TARGET_DATES.length - 1; i >= 0; i--) {
+			saved.add(todoRepository.save(new Todo(0, USER, "Paged todo " + i, TARGET_DATES[i], false)));
+		}
+		TodoQueryService todoQueryService = new TodoQueryService(todoRepository,
+				new DirectTodoWriter(todoRepository, null), new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+
+		assertPaging(inListOrder(saved), todoQueryService::findPage);
+	}
+
+	@Test
+	void inMemoryPagesFollowTargetDateAndId() {
+		TodoService todoService = new TodoService();
+		// Added out of order, so the list order is not the insertion order
+		List<Todo> added = new ArrayList<>();
+		for (int i : new int[] { 6, 2, 0, 4, 1, 5, 3 }) {
+			added.add(todoService.addTodo(USER, "Paged todo " + i, TARGET_DATES[i], false));
+		}
+
+		assertPaging(inListOrder(added), todoService::findPage);
+	}
+
+	/**
+	 * Checks pages of three over seven todos, given in list order.
+	 */
+	private static void assertPaging(List<TodoCursor> todos, PageFinder pages) {
+		TodoPage first = pages.find(USER, null, null, 3);
+		assertTodos(todos.subList(0, 3), first);
+		assertNull(first.getPreviousCursor());
+		assertEquals(todos.get(2).encode(), first.getNextCursor());
+
+		TodoPage middle = pages.find(USER, first.getNextCursor(), null, 3);
+		assertTodos(todos.subList(3, 6), middle);
+		assertEquals(todos.get(3).encode(), middle.getPreviousCursor());
+		assertEquals(todos.get(5).encode(), middle.getNextCursor());
+
+		TodoPage last = pages.find(USER, middle.getNextCursor(), null, 3);
+		assertTodos(todos.subList(6, 7), last);
+		assertEquals(todos.get(6).encode(), last.getPreviousCursor());
+		assertNull(last.getNextCursor());
+
+		// Going back from the middle page ends just before it
+		TodoPage back = pages.find(USER, null, middle.getPreviousCursor(), 3);
+		assertTodos(todos.subList(0, 3), back);
+		assertNull(back.getPreviousCursor());
+		assertEquals(todos.get(2).encode(), back.getNextCursor());
+
+		// Going back from the last page gives the three todos before it, not the middle page
+		TodoPage beforeLast = pages.find(USER, null, last.getPreviousCursor(), 3);
+		assertTodos(todos.subList(3, 6), beforeLast);
+		assertEquals(todos.get(3).encode(), beforeLast.getPreviousCursor());
+
+		// A cursor past the last todo gives an empty page that leads back to the end of the list
+		TodoPage pastTheEnd = pages.find(USER, todos.get(6).encode(), null, 3);
+		assertTodos(List.of(), pastTheEnd);
+		assertNull(pastTheEnd.getNextCursor());
+		assertTodos(todos.subList(4, 7), pages.find(USER, null, pastTheEnd.getPreviousCursor(), 3));
+
+		// A cursor between two todos with the same target date splits them by id
+		TodoPage split = pages.find(USER, todos.get(0).encode(), null, 3);
+		assertTodos(todos.subList(1, 4), split);
+
+		// Malformed cursors are ignored; a before cursor wins over an after cursor
+		assertTodos(todos.subList(0, 3), pages.find(USER, "not-a-cursor", null, 3));
+		assertTodos(todos.subList(3, 6), pages.find(USER, first.getNextCursor(), "2026-02-30_1", 3));
+		assertTodos(todos.subList(0, 3), pages.find(USER, first.getNextCursor(), middle.getPreviousCursor(), 3));
+
+		// The size is clamped to at least one todo
+		TodoPage single = pages.find(USER, null, null, 0);
+		assertEquals(1, single.getSize());
+		assertTodos(todos.subList(0, 1), single);
+		assertEquals(TodoQueryService.MAX_PAGE_SIZE, pages.find(USER, null, null, 1000).getSize());
+
+		// Another user's todos are never listed
+		TodoPage other = pages.find("nobody", null, null, 3);
+		assertTodos(List.of(), other);
+		assertFalse(other.isHasNext());
+	}
+
+	private static void assertTodos(List<TodoCursor> expected, TodoPage page) {
+		assertEquals(expected.stream().map(TodoCursor::id).toList(),
+				page.getTodos().stream().map(TodoSummary::getId).toList());
+	}
+
+	private static List<TodoCursor> inListOrder(List<Todo> todos) {
+		return todos.stream()
+				.map(todo -> new TodoCursor(todo.getTargetDate(), todo.getId()))
+				.sorted(Comparator.comparing(TodoCursor::targetDate).thenComparingInt(TodoCursor::id))
+				.toList();
+	}
+
+	@FunctionalInterface
+	private interface PageFinder {
+		TodoPage find(String username, String after, String before, int size);
+	}
+}
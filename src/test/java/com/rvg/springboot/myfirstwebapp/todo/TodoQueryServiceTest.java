@@ -0,0 +1,95 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Not transactional: reads run on other threads and must see committed changes
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TodoQueryServiceTest {
+
+	private static final String USER = "reader";
+
+	@Autowired
+	private TodoRepository todoRepository;
+
+	@AfterEach
+	void deleteTodos() {
+		todoRepository.deleteAll(todoRepository.findByUsername(USER));
+	}
+
+	@Test
+	void readThatJoinsAQueryFromBeforeAChangeIsNotCached() throws Exception {
+		Todo saved = todoRepository.save(new Todo(0, USER, "Before the change", LocalDate.of(2026, 1, 1), false));
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		CountDownLatch staleRead = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicBoolean blockNextRead = new AtomicBoolean(true);
+		// The first findById reads the todo, then waits before returning it
+		TodoRepository blockingRepository = (TodoRepository) Proxy.newProxyInstance(TodoRepository.class.getClassLoader(),
+				new Class<?>[] { TodoRepository.class }, (proxy, method, args) -> {
+					Object result;
+					try {
+						result = method.invoke(todoRepository, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+					if (method.getName().equals("findById") && blockNextRead.compareAndSet(true, false)) {
+						staleRead.countDown();
+						release.await();
+					}
+					return result;
+				});
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			TodoQueryService[] service = new TodoQueryService[1];
+			Future<?>[] joined = new Future<?>[1];
+			// A read that arrives while the change is being announced joins the query from before it
+			SingleFlight<Integer, Todo> todoReads = new SingleFlight<>(registry, "findById") {
+				@Override
+				public void forget(Integer key) {
+					joined[0] = executor.submit(() -> service[0].findById(key));
+					while (registry.get("todo.reads").tag("outcome", "coalesced").counter().count() < 1) {
+						Thread.onSpinWait();
+					}
+					super.forget(key);
+				}
+			};
+			service[0] = new TodoQueryService(blockingRepository, new DirectTodoWriter(todoRepository, null), registry,
+					100, Duration.ofMinutes(10), todoReads);
+
+			Future<Todo> first = executor.submit(() -> service[0].findById(saved.getId()));
+			staleRead.await();
+			Todo changed = todoRepository.findById(saved.getId()).orElseThrow();
+			changed.setDescription("After the change");
+			todoRepository.save(changed);
+			service[0].onTodoChanged(new TodoChangedEvent(TodoChangedEvent.Type.UPDATED, saved.getId(), USER));
+			release.countDown();
+
+			// Both reads ran concurrently with the change and may return the old state...
+			assertEquals("Before the change", first.get(5, TimeUnit.SECONDS).getDescription());
+			joined[0].get(5, TimeUnit.SECONDS);
+			// ...but neither may leave it in the cache
+			assertEquals("After the change", service[0].findById(saved.getId()).getDescription());
+		}
+	}
+}
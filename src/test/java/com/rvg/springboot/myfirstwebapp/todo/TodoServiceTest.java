@@ -0,0 +1,118 @@
+package com.rvg.springboot.myfirstwebapp.todo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TodoServiceTest {
+
+	@Test
+	void concurrentAddsGetUniqueIdsAndAreIndexedByUser() throws InterruptedException {
+		TodoService todoService = new TodoService();
+		int threads = 16;
+		int todosPerThread = 500;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++) {
+			String username = "user" + (t % 4);
+			executor.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				for (int i = 0; i < todosPerThread; i++) {
+					todoService.addTodo(username, "Concurrent todo " + i, LocalDate.now(), false);
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+		Set<Integer> ids = new HashSet<>();
+		for (int u = 0; u < 4; u++) {
+			List<Todo> todos = todoService.findByUsername("USER" + u);
+			assertEquals(4 * todosPerThread, todos.size());
+			todos.forEach(todo -> ids.add(todo.getId()));
+		}
+		assertEquals(threads * todosPerThread, ids.size());
+	}
+
+	@Test
+	void updateMovesTodoBetweenUsersAndDeleteRemovesIt() {
+		TodoService todoService = new TodoService();
+		Todo todo = todoService.findByUsername("rvg").get(0);
+
+		todoService.updateTodo(new Todo(todo.getId(), "ric", "Moved to another user", todo.getTargetDate(), true));
+
+		assertEquals(3, todoService.findByUsername("rvg").size());
+		assertEquals("ric", todoService.findById(todo.getId()).getUsername());
+		assertEquals(1, todoService.findByUsername("ric").size());
+
+		todoService.deleteById(todo.getId());
+
+		assertNull(todoService.findById(todo.getId()));
+		assertTrue(todoService.findByUsername("ric").isEmpty());
+	}
+
+	@Test
+	void updateIfVersionChecksTheOwnerAndTheVersion() {
+		TodoService todoService = new TodoService();
+		Todo todo = todoService.addTodo("rvg", "Edited in two tabs", LocalDate.of(2026, 5, 1), false);
+
+		assertEquals(TodoUpdateService.Result.UPDATED,
+				todoService.updateIfVersion(todo.getId(), "rvg", 0, "Edited in the first tab", todo.getTargetDate(), true));
+		assertEquals(TodoUpdateService.Result.CONFLICT,
+				todoService.updateIfVersion(todo.getId(), "rvg", 0, "Edited in the second tab", todo.getTargetDate(), false));
+		assertEquals(TodoUpdateService.Result.NOT_FOUND,
+				todoService.updateIfVersion(todo.getId(), "ric", 1, "Taken over", todo.getTargetDate(), false));
+		assertEquals(TodoUpdateService.Result.NOT_FOUND,
+				todoService.updateIfVersion(Integer.MAX_VALUE, "rvg", 0, "Never added", todo.getTargetDate(), false));
+
+		Todo updated = todoService.findById(todo.getId());
+		assertEquals("Edited in the first tab", updated.getDescription());
+		assertEquals("rvg", updated.getUsername());
+		assertTrue(updated.isDone());
+		assertEquals(1, updated.getVersion());
+	}
+
+	@Test
+	void updateIfVersionLetsOnlyOneOfConcurrentUpdatesWin() throws Exception {
+		TodoService todoService = new TodoService();
+		Todo todo = todoService.addTodo("rvg", "Edited in many tabs", LocalDate.of(2026, 5, 1), false);
+		List<Future<TodoUpdateService.Result>> results = new ArrayList<>();
+		try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+			for (int i = 0; i < 8; i++) {
+				int n = i;
+				results.add(executor.submit(() -> todoService.updateIfVersion(todo.getId(), "rvg", 0,
+						"Edited in tab " + n, todo.getTargetDate(), false)));
+			}
+		}
+
+		int updated = 0;
+		for (Future<TodoUpdateService.Result> result : results) {
+			if (result.get() == TodoUpdateService.Result.UPDATED) {
+				updated++;
+			} else {
+				assertEquals(TodoUpdateService.Result.CONFLICT, result.get());
+			}
+		}
+		assertEquals(1, updated);
+		assertEquals(1, todoService.findById(todo.getId()).getVersion());
+	}
+
+}
@@ -0,0 +1,133 @@
+package com.rvg.springboot.myfirstwebapp.todo.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.rvg.springboot.myfirstwebapp.todo.DirectTodoWriter;
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+import com.rvg.springboot.myfirstwebapp.todo.TodoSummary;
+import com.rvg.springboot.myfirstwebapp.todo.TodoUpdateService;
+import com.rvg.springboot.myfirstwebapp.todo.search.TodoSearchService;
+import com.rvg.springboot.myfirstwebapp.todo.stats.TodoStatistics;
+import com.rvg.springboot.myfirstwebapp.todo.stats.TodoStatisticsService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Not transactional: archive() commits its own batches, and search and statistics
+// only hear of changes once they are committed
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ TodoArchiveService.class, TodoSearchService.class, TodoStatisticsService.class, DirectTodoWriter.class,
+		TodoUpdateService.class, TodoArchiveServiceTest.Metrics.class })
+@TestPropertySource(properties = { "todo.archive.batch-size=2", "todo.archive.batch-delay=0ms" })
+class TodoArchiveServiceTest {
+
+	private static final String USER = "archivist";
+
+	@TestConfiguration
+	static class Metrics {
+
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private TodoArchiveService todoArchiveService;
+
+	@Autowired
+	private TodoRepository todoRepository;
+
+	@Autowired
+	private ArchivedTodoRepository archivedTodoRepository;
+
+	@Autowired
+	private TodoSearchService todoSearchService;
+
+	@Autowired
+	private TodoStatisticsService todoStatisticsService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@AfterEach
+	void deleteTodos() {
+		todoRepository.deleteAll(todoRepository.findByUsername(USER));
+		archivedTodoRepository.deleteAll();
+	}
+
+	@Test
+	void archivesDoneAndStaleTodosAndDropsThemFromSearchAndStatistics() throws InterruptedException {
+		LocalDate today = LocalDate.now();
+		Todo doneLongAgo = save("Archive done long ago", today.minusDays(40), true);
+		Todo stale = save("Archive stale but open", today.minusDays(400), false);
+		Todo openLongAgo = save("Archive open long ago", today.minusDays(40), false);
+		Todo doneRecently = save("Archive done recently", today.minusDays(10), true);
+		Todo upcoming = save("Archive still upcoming", today.plusDays(10), false);
+		todoSearchService.rebuild();
+		todoStatisticsService.start();
+		for (int i = 0; i < 100 && !todoStatisticsService.isReady(); i++) {
+			Thread.sleep(100);
+		}
+		assertEquals(5, todoSearchService.search(USER, "archive", 10).size());
+		assertEquals(5, todoStatisticsService.getStatistics(USER).total());
+
+		todoArchiveService.archive();
+
+		assertEquals(Set.of(openLongAgo.getId(), doneRecently.getId(), upcoming.getId()),
+				todoRepository.findByUsername(USER).stream().map(Todo::getId).collect(Collectors.toSet()));
+		List<ArchivedTodo> archived = todoArchiveService.findArchived(USER, 0, 10).getContent();
+		assertEquals(List.of(doneLongAgo.getId(), stale.getId()), archived.stream().map(ArchivedTodo::getId).toList());
+		assertEquals("Archive stale but open", archived.get(1).getDescription());
+		assertEquals(2, todoArchiveService.countArchived(USER));
+
+		assertEquals(Set.of(openLongAgo.getId(), doneRecently.getId(), upcoming.getId()),
+				todoSearchService.search(USER, "archive", 10).stream().map(TodoSummary::getId)
+						.collect(Collectors.toSet()));
+		TodoStatistics statistics = todoStatisticsService.getStatistics(USER);
+		assertEquals(3, statistics.total());
+		assertEquals(1, statistics.done());
+	}
+
+	@Test
+	void failedBatchLeavesBothTablesUnchanged() {
+		LocalDate today = LocalDate.now();
+		Todo doneLongAgo = save("Archive done long ago", today.minusDays(40), true);
+		// Fails after the batch is copied and deleted, before its transaction commits
+		TodoArchiveService failing = new TodoArchiveService(todoRepository, archivedTodoRepository, event -> {
+			throw new IllegalStateException("listener failed");
+		}, transactionManager, new SimpleMeterRegistry(), false, Duration.ofHours(1), Duration.ofDays(30),
+				Duration.ofDays(365), 500, Duration.ZERO);
+
+		assertThrows(IllegalStateException.class, failing::archive);
+
+		assertTrue(todoRepository.findById(doneLongAgo.getId()).isPresent());
+		assertEquals(0, archivedTodoRepository.count());
+	}
+
+	private Todo save(String description, LocalDate targetDate, boolean done) {
+		return todoRepository.save(new Todo(0, USER, description, targetDate, done));
+	}
+}
@@ -0,0 +1,170 @@
+package com.rvg.springboot.myfirstwebapp.todo.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.rvg.springboot.myfirstwebapp.MyfirstwebappApplication;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+
+/**
+ * Runs a partitioned deployment of several application instances in this JVM, each
+ * with its own in-memory database, and checks that users' todos live on their owner
+ * only, whichever node the requests reach, also after a node joins, and that users
+ * can neither call the cluster endpoints nor forge a forwarded request.
+ */
+class ClusterIntegrationTest {
+
+	private static final Map<String, String> PASSWORDS = Map.of("rvg", "asdf", "ric", "qwerty");
+
+	private static final String CLUSTER_KEY = "cluster-test-secret";
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+	@AfterEach
+	void stopNodes() {
+		nodes.forEach(ConfigurableApplicationContext::close);
+	}
+
+	@Test
+	void todosLiveOnTheirOwnerAndMoveWhenANodeJoins() throws Exception {
+		List<String> urls = new ArrayList<>(List.of(url(freePort()), url(freePort())));
+		start(urls.get(0), urls);
+		start(urls.get(1), urls);
+
+		// Every request goes to a node in turn, so about half of them are proxied
+		for (int i = 0; i < 20; i++) {
+			for (String user : PASSWORDS.keySet()) {
+				String body = "{\"description\":\"Todo number " + i + " of " + user + "\",\"targetDate\":\"2026-06-01\",\"done\":false}";
+				HttpResponse<String> created = send(user, "POST", urls.get(i % 2) + "/api/todos", body);
+				assertEquals(201, created.statusCode(), created.body());
+			}
+		}
+		assertPlacement(urls);
+
+		// A user login does not open the cluster endpoints
+		HttpResponse<String> denied = send("rvg", "POST", urls.get(0) + "/api/cluster/import?username=ric",
+				"[{\"description\":\"Injected todo\",\"targetDate\":\"2026-06-01\",\"done\":false}]");
+		assertEquals(401, denied.statusCode(), denied.body());
+		// A forged forwarded marker does not keep a node from routing to the owner
+		for (String node : urls) {
+			HttpRequest forged = request("rvg", "GET", node + "/api/todos/stats", null)
+					.header("X-Todo-Forwarded", node).build();
+			HttpResponse<String> stats = client.send(forged, HttpResponse.BodyHandlers.ofString());
+			assertTrue(stats.body().contains("\"total\":20"), stats.body());
+		}
+
+		// A third node joins; the ring is chosen so that it takes over at least one user
+		String joining;
+		do {
+			joining = url(freePort());
+		} while (!takesOverAUser(urls, joining));
+		urls.add(joining);
+		start(joining, urls);
+		String nodeList = "[\"" + String.join("\",\"", urls) + "\"]";
+		for (String node : urls.subList(0, 2)) {
+			HttpResponse<String> started = sendAsCluster("PUT", node + "/api/cluster/nodes", nodeList);
+			assertEquals(202, started.statusCode(), started.body());
+		}
+		for (String node : urls.subList(0, 2)) {
+			// The move runs in the background
+			HttpResponse<String> state;
+			do {
+				Thread.sleep(50);
+				state = sendAsCluster("GET", node + "/api/cluster/rebalance", null);
+			} while (state.body().contains("\"running\":true"));
+			assertTrue(state.body().contains("\"failed\":[]"), state.body());
+		}
+		assertPlacement(urls);
+	}
+
+	/**
+	 * Checks that each user's 20 todos are all in the database of the user's owner, and
+	 * that every node answers for every user.
+	 */
+	private void assertPlacement(List<String> urls) throws Exception {
+		ConsistentHashRing ring = new ConsistentHashRing(urls);
+		for (String user : PASSWORDS.keySet()) {
+			for (int node = 0; node < urls.size(); node++) {
+				int stored = nodes.get(node).getBean(TodoRepository.class).findByUsername(user).size();
+				assertEquals(ring.ownerOf(user).equals(urls.get(node)) ? 20 : 0, stored, user + " on " + urls.get(node));
+
+				HttpResponse<String> stats = send(user, "GET", urls.get(node) + "/api/todos/stats", null);
+				assertEquals(200, stats.statusCode());
+				assertTrue(stats.body().contains("\"total\":20"), stats.body());
+			}
+		}
+	}
+
+	private static boolean takesOverAUser(List<String> urls, String joining) {
+		List<String> joined = new ArrayList<>(urls);
+		joined.add(joining);
+		ConsistentHashRing ring = new ConsistentHashRing(joined);
+		return PASSWORDS.keySet().stream().anyMatch(user -> ring.ownerOf(user).equals(joining));
+	}
+
+	private void start(String url, List<String> urls) {
+		int port = URI.create(url).getPort();
+		// Command line arguments, which take precedence over application.properties
+		nodes.add(new SpringApplicationBuilder(MyfirstwebappApplication.class).run(
+				"--server.port=" + port,
+				"--spring.datasource.url=jdbc:h2:mem:node" + port,
+				// The sample todos of data.sql would be loaded on every node
+				"--spring.sql.init.mode=never",
+				"--todo.security.stateless=true",
+				"--todo.security.remember-me.key=cluster-test-key",
+				"--todo.reminders.enabled=false",
+				"--todo.cluster.key=" + CLUSTER_KEY,
+				"--todo.cluster.self=" + url,
+				"--todo.cluster.nodes=" + String.join(",", urls)));
+	}
+
+	private HttpResponse<String> send(String user, String method, String url, String body)
+			throws IOException, InterruptedException {
+		return client.send(request(user, method, url, body).build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private HttpResponse<String> sendAsCluster(String method, String url, String body)
+			throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+				.header("X-Todo-Cluster-Key", CLUSTER_KEY)
+				.header("Content-Type", "application/json")
+				.method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static HttpRequest.Builder request(String user, String method, String url, String body) {
+		String credentials = user + ":" + PASSWORDS.get(user);
+		return HttpRequest.newBuilder(URI.create(url))
+				.header("Authorization", "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)))
+				.header("Content-Type", "application/json")
+				.method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+	}
+
+	private static String url(int port) {
+		return "http://localhost:" + port;
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
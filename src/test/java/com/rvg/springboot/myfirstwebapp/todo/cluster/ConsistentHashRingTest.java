@@ -0,0 +1,45 @@
+package com.rvg.springboot.myfirstwebapp.todo.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ConsistentHashRingTest {
+
+	private static final int USERS = 30_000;
+
+	@Test
+	void spreadsUsersEvenlyAndIgnoresTheOrderOfTheNodes() {
+		ConsistentHashRing ring = new ConsistentHashRing(List.of("http://a:8080", "http://b:8080", "http://c:8080"));
+		ConsistentHashRing reordered = new ConsistentHashRing(List.of("http://c:8080", "http://a:8080", "http://b:8080"));
+		Map<String, Integer> counts = new HashMap<>();
+		for (int i = 0; i < USERS; i++) {
+			String owner = ring.ownerOf("user" + i);
+			assertEquals(owner, reordered.ownerOf("user" + i));
+			counts.merge(owner, 1, Integer::sum);
+		}
+		assertEquals(3, counts.size());
+		// Each node's share stays within 20% of a third
+		counts.values().forEach(count -> assertTrue(Math.abs(count - USERS / 3) < USERS / 15, counts.toString()));
+	}
+
+	@Test
+	void aJoiningNodeTakesItsShareFromTheOthersAndNothingElseMoves() {
+		ConsistentHashRing before = new ConsistentHashRing(List.of("http://a:8080", "http://b:8080", "http://c:8080"));
+		ConsistentHashRing after = new ConsistentHashRing(List.of("http://a:8080", "http://b:8080", "http://c:8080", "http://d:8080"));
+		int moved = 0;
+		for (int i = 0; i < USERS; i++) {
+			String owner = after.ownerOf("user" + i);
+			if (!owner.equals(before.ownerOf("user" + i))) {
+				assertEquals("http://d:8080", owner);
+				moved++;
+			}
+		}
+		assertTrue(Math.abs(moved - USERS / 4) < USERS / 20, moved + " users moved");
+	}
+}
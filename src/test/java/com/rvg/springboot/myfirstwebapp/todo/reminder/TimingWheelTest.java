@@ -0,0 +1,48 @@
+package com.rvg.springboot.myfirstwebapp.todo.reminder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+	@Test
+	void timersExpireOnTheirTickAcrossSeveralTurnsOfTheWheel() {
+		// 8 buckets of 10 ms: one turn is 80 ms
+		TimingWheel<Integer, String> wheel = new TimingWheel<>(10, 8, 0);
+		wheel.schedule(1, 25, "a");
+		wheel.schedule(2, 80, "b");
+		wheel.schedule(3, 250, "c");
+		wheel.schedule(4, 30, "d");
+
+		assertTrue(wheel.advance(20).isEmpty());
+		assertEquals(List.of("a", "d"), wheel.advance(30));
+		assertEquals(List.of("b"), wheel.advance(249));
+		assertEquals(1, wheel.size());
+		assertEquals(List.of("c"), wheel.advance(250));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void reschedulingReplacesAndCancellingRemovesTimers() {
+		TimingWheel<Integer, String> wheel = new TimingWheel<>(10, 8, 0);
+		wheel.schedule(1, 50, "first");
+		wheel.schedule(2, 50, "other");
+		wheel.schedule(1, 500, "moved");
+		assertEquals("moved", wheel.get(1));
+
+		assertTrue(wheel.cancel(2));
+		assertFalse(wheel.cancel(2));
+		assertNull(wheel.get(2));
+		assertTrue(wheel.advance(499).isEmpty());
+
+		// A deadline in the past expires at the next advance
+		wheel.schedule(3, 100, "late");
+		assertEquals(List.of("late", "moved"), wheel.advance(500));
+	}
+}
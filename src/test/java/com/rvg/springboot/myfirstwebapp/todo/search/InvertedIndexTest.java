@@ -0,0 +1,57 @@
+package com.rvg.springboot.myfirstwebapp.todo.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.rvg.springboot.myfirstwebapp.todo.TodoSummary;
+
+class InvertedIndexTest {
+
+	private static TodoSummary todo(int id, String description) {
+		return new TodoSummary(id, description, LocalDate.of(2026, 1, 1).plusDays(id), false);
+	}
+
+	private static List<Integer> ids(List<TodoSummary> todos) {
+		return todos.stream().map(TodoSummary::getId).toList();
+	}
+
+	@Test
+	void matchesEveryWordAsWordOrPrefixAndRanksRareWordsFirst() {
+		InvertedIndex index = new InvertedIndex();
+		index.put(todo(1, "Learn Spring Boot"));
+		index.put(todo(2, "Learn Spring Security"));
+		index.put(todo(3, "Learn Java"));
+		index.put(todo(4, "Learn Springfield history"));
+
+		assertEquals(List.of(3), ids(index.search("learn java", 10)));
+		assertEquals(List.of(2), ids(index.search("SPRING, sec", 10)));
+		// Exact matches of the word rank above todos that only contain a longer word
+		assertEquals(List.of(1, 2, 4), ids(index.search("spring", 10)));
+		assertEquals(List.of(1, 2), ids(index.search("spring", 2)));
+		assertTrue(index.search("kotlin", 10).isEmpty());
+		assertTrue(index.search("  ", 10).isEmpty());
+	}
+
+	@Test
+	void updatesAndRemovalsReplaceThePostings() {
+		InvertedIndex index = new InvertedIndex();
+		for (int id = 100; id > 0; id--) {
+			index.put(todo(id, "Todo number " + id));
+		}
+		index.put(todo(7, "Renamed todo"));
+		index.remove(8);
+
+		assertEquals(99, index.size());
+		assertEquals(List.of(7), ids(index.search("renamed", 10)));
+		// "7" still matches 70 to 79 as a prefix, but no longer todo 7 itself
+		assertEquals(List.of(70, 71, 72, 73, 74, 75, 76, 77, 78, 79), ids(index.search("number 7", 100)));
+		assertEquals(List.of(80, 81, 82, 83, 84, 85, 86, 87, 88, 89), ids(index.search("number 8", 100)));
+		assertEquals(List.of(9), ids(index.search("number 9", 1)));
+		assertEquals(98, index.search("number", 100).size());
+	}
+}
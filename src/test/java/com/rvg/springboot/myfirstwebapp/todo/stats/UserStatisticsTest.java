@@ -0,0 +1,58 @@
+package com.rvg.springboot.myfirstwebapp.todo.stats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import com.rvg.springboot.myfirstwebapp.todo.stats.UserStatistics.TodoState;
+
+class UserStatisticsTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+	@Test
+	void changesMoveCountsBetweenStatesAndNewDaysRecountFromTheDates() {
+		UserStatistics stats = new UserStatistics();
+		stats.apply(1, new TodoState(TODAY.minusDays(1), false), TODAY);
+		stats.apply(2, new TodoState(TODAY, false), TODAY);
+		stats.apply(3, new TodoState(TODAY.plusDays(6), false), TODAY);
+		stats.apply(4, new TodoState(TODAY.plusDays(7), false), TODAY);
+		stats.apply(5, new TodoState(TODAY.plusDays(2), true), TODAY);
+		assertEquals(new TodoStatistics(5, 1, 4, 1, 2, TODAY), stats.snapshot(TODAY));
+
+		// Marking done, moving a date, repeating a state and deleting
+		stats.apply(1, new TodoState(TODAY.minusDays(1), true), TODAY);
+		stats.apply(4, new TodoState(TODAY.plusDays(1), false), TODAY);
+		stats.apply(4, new TodoState(TODAY.plusDays(1), false), TODAY);
+		stats.apply(5, null, TODAY);
+		assertEquals(new TodoStatistics(4, 1, 3, 0, 3, TODAY), stats.snapshot(TODAY));
+
+		LocalDate later = TODAY.plusDays(2);
+		stats.recount(later);
+		assertEquals(new TodoStatistics(4, 1, 3, 2, 1, later), stats.snapshot(later));
+	}
+
+	@Test
+	void differencesToCountedTodosCanBeAddedBack() {
+		UserStatistics stats = new UserStatistics();
+		stats.apply(1, new TodoState(TODAY, false), TODAY);
+		stats.apply(2, new TodoState(TODAY, false), TODAY);
+
+		UserStatistics counted = new UserStatistics();
+		counted.count(new TodoState(TODAY, false), 2, TODAY);
+		assertTrue(stats.sameCounts(counted));
+
+		counted.count(new TodoState(TODAY.minusDays(3), false), 1, TODAY);
+		assertFalse(stats.sameCounts(counted));
+		UserStatistics difference = counted.minus(stats);
+		assertFalse(difference.isZero());
+		stats.add(difference);
+		assertTrue(stats.sameCounts(counted));
+		assertTrue(counted.minus(stats).isZero());
+		assertEquals(new TodoStatistics(3, 0, 3, 1, 2, TODAY), stats.snapshot(TODAY));
+	}
+}
@@ -0,0 +1,117 @@
+package com.rvg.springboot.myfirstwebapp.todo.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.rvg.springboot.myfirstwebapp.todo.DirectTodoWriter;
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoQueryService;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+import com.rvg.springboot.myfirstwebapp.todo.TodoUpdateService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Not transactional: every update commits its own transaction, and the caches only
+// hear of it once it is committed
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ TodoQueryService.class, TodoUpdateService.class, DirectTodoWriter.class, JpaTodoStoreTest.Metrics.class })
+class JpaTodoStoreTest {
+
+	private static final String USER = "editor";
+
+	@TestConfiguration
+	static class Metrics {
+
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private TodoRepository todoRepository;
+
+	@Autowired
+	private TodoQueryService todoQueryService;
+
+	@Autowired
+	private DirectTodoWriter todoWriter;
+
+	private JpaTodoStore store;
+
+	@BeforeEach
+	void createStore() {
+		store = new JpaTodoStore(todoRepository, todoQueryService, todoWriter);
+	}
+
+	@AfterEach
+	void deleteTodos() {
+		todoRepository.deleteAll(todoRepository.findByUsername(USER));
+	}
+
+	@Test
+	void updateIfVersionChecksTheOwnerAndTheVersion() {
+		Todo todo = store.addTodo(USER, "Edited in two tabs", LocalDate.of(2026, 5, 1), false);
+		// Read through the cache, which the update must invalidate
+		assertEquals(0, store.findById(todo.getId()).getVersion());
+
+		assertEquals(TodoUpdateService.Result.UPDATED,
+				store.updateIfVersion(todo.getId(), USER, 0, "Edited in the first tab", todo.getTargetDate(), true));
+		assertEquals(TodoUpdateService.Result.CONFLICT,
+				store.updateIfVersion(todo.getId(), USER, 0, "Edited in the second tab", todo.getTargetDate(), false));
+		assertEquals(TodoUpdateService.Result.NOT_FOUND,
+				store.updateIfVersion(todo.getId(), "intruder", 1, "Taken over", todo.getTargetDate(), false));
+		assertEquals(TodoUpdateService.Result.NOT_FOUND,
+				store.updateIfVersion(Integer.MAX_VALUE, USER, 0, "Never added", todo.getTargetDate(), false));
+
+		Todo updated = store.findById(todo.getId());
+		assertEquals("Edited in the first tab", updated.getDescription());
+		assertEquals(USER, updated.getUsername());
+		assertTrue(updated.isDone());
+		assertEquals(1, updated.getVersion());
+	}
+
+	@Test
+	void updateIfVersionLetsOnlyOneOfConcurrentUpdatesWin() throws Exception {
+		Todo todo = store.addTodo(USER, "Edited in many tabs", LocalDate.of(2026, 5, 1), false);
+		List<Future<TodoUpdateService.Result>> results = new ArrayList<>();
+		try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+			for (int i = 0; i < 8; i++) {
+				int n = i;
+				results.add(executor.submit(() -> store.updateIfVersion(todo.getId(), USER, 0, "Edited in tab " + n,
+						todo.getTargetDate(), false)));
+			}
+		}
+
+		int updated = 0;
+		for (Future<TodoUpdateService.Result> result : results) {
+			if (result.get() == TodoUpdateService.Result.UPDATED) {
+				updated++;
+			} else {
+				assertEquals(TodoUpdateService.Result.CONFLICT, result.get());
+			}
+		}
+		assertEquals(1, updated);
+		assertEquals(1, todoRepository.findById(todo.getId()).orElseThrow().getVersion());
+	}
+}
@@ -0,0 +1,168 @@
+package com.rvg.springboot.myfirstwebapp.todo.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoUpdateService;
+
+class LogTodoStoreTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recoversWritesAfterReopenAndCutsOffATornRecord() throws Exception {
+		int kept;
+		try (LogTodoStore store = new LogTodoStore(directory, 1024 * 1024)) {
+			// Concurrent writers are committed together
+			try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+				List<Future<Todo>> added = new ArrayList<>();
+				for (int i = 0; i < 200; i++) {
+					int n = i;
+					added.add(executor.submit(() -> store.addTodo("user" + n % 4, "Todo number " + n, LocalDate.of(2026, 1, 1), false)));
+				}
+				for (Future<Todo> todo : added) {
+					todo.get();
+				}
+			}
+			Todo todo = store.findByUsername("user1").get(0);
+			kept = todo.getId();
+			todo.setDescription("Changed description");
+			todo.setDone(true);
+			store.updateTodo(todo);
+			store.deleteById(store.findByUsername("user2").get(0).getId());
+		}
+		// A crash in the middle of an append leaves a partial record behind
+		Files.write(directory.resolve(LogTodoStore.LOG_FILE), new byte[] { 0, 0, 0, 40, 1, 2 }, StandardOpenOption.APPEND);
+
+		try (LogTodoStore store = new LogTodoStore(directory, 1024 * 1024)) {
+			assertEquals(50, store.findByUsername("user1").size());
+			assertEquals(49, store.findByUsername("user2").size());
+			assertEquals("Changed description", store.findById(kept).getDescription());
+			assertTrue(store.findById(kept).isDone());
+			// New ids continue after the recovered ones, and the torn record is gone
+			assertEquals(201, store.addTodo("user1", "Added after recovery", null, false).getId());
+		}
+		try (LogTodoStore store = new LogTodoStore(directory, 1024 * 1024)) {
+			assertEquals("Added after recovery", store.findById(201).getDescription());
+			assertNull(store.findById(201).getTargetDate());
+		}
+	}
+
+	@Test
+	void compactsTheLogIntoASnapshot() throws Exception {
+		try (LogTodoStore store = new LogTodoStore(directory, 4096)) {
+			Todo todo = store.addTodo("rvg", "Learn log-structured storage", LocalDate.of(2026, 5, 1), false);
+			for (int version = 1; version <= 500; version++) {
+				todo.setVersion(version);
+				store.updateTodo(todo);
+			}
+			store.addTodo("rvg", "Second todo", null, true);
+			store.deleteById(store.addTodo("rvg", "Deleted todo", null, false).getId());
+		}
+		assertTrue(Files.size(directory.resolve(LogTodoStore.LOG_FILE)) < 4096);
+		assertTrue(Files.exists(directory.resolve(LogTodoStore.SNAPSHOT_FILE)));
+
+		try (LogTodoStore store = new LogTodoStore(directory, 4096)) {
+			assertEquals(2, store.findByUsername("rvg").size());
+			assertEquals(500, store.findById(1).getVersion());
+			assertNull(store.findById(3));
+			assertEquals(4, store.addTodo("rvg", "Next todo", null, false).getId());
+		}
+	}
+
+	@Test
+	void updateIfVersionLetsOnlyOneOfConcurrentUpdatesWin() throws Exception {
+		try (LogTodoStore store = new LogTodoStore(directory, 1024 * 1024)) {
+			Todo todo = store.addTodo("rvg", "Edited in two tabs", LocalDate.of(2026, 5, 1), false);
+			List<Future<TodoUpdateService.Result>> results = new ArrayList<>();
+			try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+				for (int i = 0; i < 8; i++) {
+					int n = i;
+					results.add(executor.submit(() -> store.updateIfVersion(todo.getId(), "rvg", 0,
+							"Edited in tab " + n, todo.getTargetDate(), false)));
+				}
+			}
+			int updated = 0;
+			for (Future<TodoUpdateService.Result> result : results) {
+				if (result.get() == TodoUpdateService.Result.UPDATED) {
+					updated++;
+				} else {
+					assertEquals(TodoUpdateService.Result.CONFLICT, result.get());
+				}
+			}
+			assertEquals(1, updated);
+			assertEquals(1, store.findById(todo.getId()).getVersion());
+
+			// Another user's todo is not found, and a deleted todo is not brought back
+			assertEquals(TodoUpdateService.Result.NOT_FOUND,
+					store.updateIfVersion(todo.getId(), "ric", 1, "Taken over", null, false));
+			store.deleteById(todo.getId());
+			assertEquals(TodoUpdateService.Result.NOT_FOUND,
+					store.updateIfVersion(todo.getId(), "rvg", 1, "Brought back", null, false));
+			assertNull(store.findById(todo.getId()));
+		}
+	}
+
+	@Test
+	void cutsOffABatchTornByACrashEvenIfItsLaterPagesWereWritten() throws Exception {
+		try (LogTodoStore store = new LogTodoStore(directory, 1024 * 1024)) {
+			for (int i = 0; i < 3; i++) {
+				store.addTodo("rvg", "Committed todo " + i, LocalDate.of(2026, 1, 1), false);
+			}
+		}
+		Path log = directory.resolve(LogTodoStore.LOG_FILE);
+		long committed = Files.size(log);
+		// A crash before the fsync of a batch can leave its later records on disk but not its start
+		byte[] first = LogRecords.put(new Todo(4, "rvg", "Lost with its batch", LocalDate.of(2026, 1, 1), false));
+		byte[] second = LogRecords.put(new Todo(5, "rvg", "Also lost with its batch", LocalDate.of(2026, 1, 1), false));
+		byte[] records = new byte[first.length + second.length];
+		System.arraycopy(first, 0, records, 0, first.length);
+		System.arraycopy(second, 0, records, first.length, second.length);
+		byte[] batch = LogRecords.batch(records);
+		Arrays.fill(batch, 0, 12 + first.length, (byte) 0);
+		Files.write(log, batch, StandardOpenOption.APPEND);
+
+		try (LogTodoStore store = new LogTodoStore(directory, 1024 * 1024)) {
+			assertEquals(3, store.findByUsername("rvg").size());
+			assertNull(store.findById(5));
+		}
+		assertEquals(committed, Files.size(log));
+	}
+
+	@Test
+	void refusesToOpenALogDamagedBeforeValidRecords() throws Exception {
+		try (LogTodoStore store = new LogTodoStore(directory, 1024 * 1024)) {
+			for (int i = 0; i < 10; i++) {
+				store.addTodo("rvg", "Committed todo " + i, LocalDate.of(2026, 1, 1), false);
+			}
+		}
+		// Flip a byte in the first batch
+		Path log = directory.resolve(LogTodoStore.LOG_FILE);
+		byte[] bytes = Files.readAllBytes(log);
+		bytes[12] ^= 0x55;
+		Files.write(log, bytes);
+
+		assertThrows(IOException.class, () -> new LogTodoStore(directory, 1024 * 1024));
+		// Nothing was cut off
+		assertEquals(bytes.length, Files.size(log));
+	}
+}
@@ -0,0 +1,52 @@
+package com.rvg.springboot.myfirstwebapp.todo.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CsvReaderTest {
+
+	@Test
+	void readsQuotedFieldsWithCommasQuotesAndLineBreaks() throws IOException {
+		CsvReader csv = new CsvReader(new StringReader(
+				"description,targetDate\r\n\"Buy milk, eggs\",2026-01-01\r\n\"Say \"\"hi\"\"\nand leave\",2026-01-02\n,\n"));
+
+		assertEquals(List.of("description", "targetDate"), csv.readRecord());
+		assertEquals(List.of("Buy milk, eggs", "2026-01-01"), csv.readRecord());
+		assertEquals(List.of("Say \"hi\"\nand leave", "2026-01-02"), csv.readRecord());
+		assertEquals(List.of("", ""), csv.readRecord());
+		assertNull(csv.readRecord());
+	}
+
+	@Test
+	void readsALastRecordWithoutLineBreakAndALoneCarriageReturn() throws IOException {
+		CsvReader csv = new CsvReader(new StringReader("a,b\rc,d"));
+
+		assertEquals(List.of("a", "b"), csv.readRecord());
+		assertEquals(List.of("c", "d"), csv.readRecord());
+		assertNull(csv.readRecord());
+	}
+
+	@Test
+	void unterminatedQuoteIsMalformed() throws IOException {
+		CsvReader csv = new CsvReader(new StringReader("a,b\n\"never closed,2026-01-01\nc,d\n"));
+
+		assertEquals(List.of("a", "b"), csv.readRecord());
+		assertThrows(CsvReader.MalformedCsvException.class, csv::readRecord);
+	}
+
+	@Test
+	void escapedFieldsReadBackUnchanged() throws IOException {
+		List<String> values = List.of("plain", "with, comma", "with \"quotes\"", "two\r\nlines", "");
+		String record = String.join(",", values.stream().map(CsvReader::escape).toList()) + "\r\n";
+
+		assertEquals(values, new CsvReader(new StringReader(record)).readRecord());
+		assertEquals("", CsvReader.escape(null));
+	}
+}
@@ -0,0 +1,120 @@
+package com.rvg.springboot.myfirstwebapp.todo.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rvg.springboot.myfirstwebapp.todo.DirectTodoWriter;
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+
+import jakarta.validation.Validation;
+
+// Not transactional: the exporter reads in its own read-only transaction
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TodoExporterTest {
+
+	private static final String USER = "exporter";
+	private static final String OTHER_USER = "reimporter";
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+	@Autowired
+	private TodoRepository todoRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@AfterEach
+	void deleteTodos() {
+		todoRepository.deleteAll(todoRepository.findByUsername(USER));
+		todoRepository.deleteAll(todoRepository.findByUsername(OTHER_USER));
+	}
+
+	@Test
+	void exportsCsvOrderedByTargetDateWithEscapedFields() throws IOException {
+		Todo later = save("Say \"hi\", then leave", LocalDate.of(2026, 3, 1), true);
+		Todo earlier = save("Exported first", LocalDate.of(2026, 1, 1), false);
+		todoRepository.save(new Todo(0, OTHER_USER, "Not exported", LocalDate.of(2026, 1, 1), false));
+
+		assertEquals("id,description,targetDate,done\r\n"
+				+ earlier.getId() + ",Exported first,2026-01-01,false\r\n"
+				+ later.getId() + ",\"Say \"\"hi\"\", then leave\",2026-03-01,true\r\n",
+				export(TodoFormat.CSV));
+	}
+
+	@Test
+	void exportsNdjsonAndAJsonArray() throws IOException {
+		Todo earlier = save("Exported first", LocalDate.of(2026, 1, 1), false);
+		Todo later = save("Exported second", LocalDate.of(2026, 3, 1), true);
+		List<TodoRecord> expected = List.of(
+				new TodoRecord(earlier.getId(), "Exported first", LocalDate.of(2026, 1, 1), false),
+				new TodoRecord(later.getId(), "Exported second", LocalDate.of(2026, 3, 1), true));
+
+		String[] lines = export(TodoFormat.NDJSON).split("\n");
+		assertEquals(2, lines.length);
+		assertEquals(expected.get(0), objectMapper.readValue(lines[0], TodoRecord.class));
+		assertEquals(expected.get(1), objectMapper.readValue(lines[1], TodoRecord.class));
+
+		ByteArrayOutputStream array = new ByteArrayOutputStream();
+		exporter().exportJsonArray(USER, array);
+		assertEquals(expected, objectMapper.readValue(array.toByteArray(), new TypeReference<List<TodoRecord>>() {
+		}));
+	}
+
+	@Test
+	void exportedTodosImportUnchanged() throws IOException {
+		save("Line one\nline two, with a comma", LocalDate.of(2026, 1, 1), true);
+		save("Another exported todo", LocalDate.of(2026, 2, 1), false);
+		TodoImporter importer = new TodoImporter(todoRepository, objectMapper,
+				Validation.buildDefaultValidatorFactory().getValidator(), 50);
+
+		for (TodoFormat format : TodoFormat.values()) {
+			ImportResult result = importer.importTodos(OTHER_USER, new StringReader(export(format)), format);
+
+			assertEquals(2, result.imported(), format.name());
+			assertEquals(summaries(USER), summaries(OTHER_USER), format.name());
+			todoRepository.deleteAll(todoRepository.findByUsername(OTHER_USER));
+		}
+	}
+
+	private String export(TodoFormat format) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		exporter().exportTodos(USER, format, output);
+		return output.toString(StandardCharsets.UTF_8);
+	}
+
+	private TodoExporter exporter() {
+		return new TodoExporter(todoRepository, new DirectTodoWriter(todoRepository, null), objectMapper,
+				transactionManager);
+	}
+
+	private Todo save(String description, LocalDate targetDate, boolean done) {
+		return todoRepository.save(new Todo(0, USER, description, targetDate, done));
+	}
+
+	private List<String> summaries(String username) {
+		return todoRepository.findByUsername(username).stream()
+				.map(todo -> todo.getDescription() + "|" + todo.getTargetDate() + "|" + todo.isDone())
+				.sorted()
+				.toList();
+	}
+}
@@ -0,0 +1,101 @@
+package com.rvg.springboot.myfirstwebapp.todo.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+
+import jakarta.validation.Validation;
+
+// Not transactional: the importer saves every chunk in its own transaction
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TodoImporterTest {
+
+	private static final String USER = "importer";
+
+	@Autowired
+	private TodoRepository todoRepository;
+
+	@AfterEach
+	void deleteTodos() {
+		todoRepository.deleteAll(todoRepository.findByUsername(USER));
+	}
+
+	@Test
+	void importsValidNdjsonLinesAndRejectsTheOthers() throws IOException {
+		String ndjson = """
+				{"description":"First imported todo","targetDate":"2026-01-01","done":true}
+
+				null
+				{"description":"Missing its date"}
+				{"description":"Short","targetDate":"2026-01-02"}
+				{"description":"%s","targetDate":"2026-01-03"}
+				not json
+				{"id":7,"description":"Second imported todo","targetDate":"2026-01-04"}
+				""".formatted("x".repeat(256));
+
+		ImportResult result = importer(2).importTodos(USER, new StringReader(ndjson), TodoFormat.NDJSON);
+
+		assertEquals(2, result.imported());
+		assertEquals(5, result.rejected());
+		assertEquals(List.of("Record 3: Expected a todo object but found null", "Record 4: targetDate is required",
+				"Record 5: Enter at least 10 characters.", "Record 6: Enter at most 255 characters."),
+				result.errors().subList(0, 4));
+		assertTrue(result.errors().get(4).startsWith("Record 7: "));
+		List<Todo> todos = todoRepository.findByUsername(USER);
+		assertEquals(List.of("First imported todo", "Second imported todo"),
+				todos.stream().map(Todo::getDescription).sorted().toList());
+		// Imported todos always get new ids
+		assertTrue(todos.stream().noneMatch(todo -> todo.getId() == 7));
+	}
+
+	@Test
+	void importsCsvAndReportsAnUnterminatedQuoteAsARejectedRecord() throws IOException {
+		String csv = "done,description,targetDate\r\n"
+				+ "true,\"Imported, with a comma\",2026-01-01\r\n"
+				+ "false,Wrong number of fields\r\n"
+				+ "false,Has an invalid date,tomorrow\r\n"
+				+ "\r\n"
+				+ "false,\"Quote never closed,2026-01-02\r\n"
+				+ "false,Swallowed by the quote,2026-01-03\r\n";
+
+		ImportResult result = importer(50).importTodos(USER, new StringReader(csv), TodoFormat.CSV);
+
+		assertEquals(1, result.imported());
+		assertEquals(List.of("Record 3: Expected 3 fields but found 2", "Record 4: Invalid targetDate: tomorrow",
+				"Record 6: Unterminated quoted field"), result.errors());
+		Todo imported = todoRepository.findByUsername(USER).get(0);
+		assertEquals("Imported, with a comma", imported.getDescription());
+		assertEquals(LocalDate.of(2026, 1, 1), imported.getTargetDate());
+		assertTrue(imported.isDone());
+	}
+
+	@Test
+	void rejectsACsvHeaderWithoutTheRequiredColumns() throws IOException {
+		ImportResult result = importer(50).importTodos(USER, new StringReader("description,date\r\nA todo,2026-01-01\r\n"),
+				TodoFormat.CSV);
+
+		assertEquals(0, result.imported());
+		assertEquals(List.of("Record 1: Header must name the description and targetDate columns"), result.errors());
+	}
+
+	private TodoImporter importer(int batchSize) {
+		return new TodoImporter(todoRepository, new ObjectMapper().findAndRegisterModules(),
+				Validation.buildDefaultValidatorFactory().getValidator(), batchSize);
+	}
+}
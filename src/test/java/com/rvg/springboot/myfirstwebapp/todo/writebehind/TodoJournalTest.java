@@ -0,0 +1,104 @@
+package com.rvg.springboot.myfirstwebapp.todo.writebehind;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+
+class TodoJournalTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recoversAppendedEntriesAndCutsOffATornLastLine() throws IOException {
+		JournalEntry first = JournalEntry.create(new Todo(0, "rvg", "First journaled todo", LocalDate.of(2026, 1, 1), false));
+		JournalEntry second = JournalEntry.delete(1001, "rvg");
+		try (TodoJournal journal = new TodoJournal(directory, objectMapper)) {
+			journal.recover(0);
+			journal.sync(journal.append(first));
+			journal.sync(journal.append(second));
+		}
+		// A crash in the middle of an append leaves part of a line behind
+		Path segment = newestSegment();
+		long complete = Files.size(segment);
+		Files.writeString(segment, "{\"op\":\"UPD", StandardOpenOption.APPEND);
+
+		try (TodoJournal journal = new TodoJournal(directory, objectMapper)) {
+			assertEquals(List.of(first, second), journal.recover(0));
+		}
+		assertEquals(complete, Files.size(segment));
+		// The cut segment is no longer the newest one, and still reads cleanly
+		try (TodoJournal journal = new TodoJournal(directory, objectMapper)) {
+			assertEquals(List.of(first, second), journal.recover(0));
+		}
+	}
+
+	@Test
+	void refusesToDropEntriesAfterAnUnreadableLine() throws IOException {
+		JournalEntry entry = JournalEntry.delete(1001, "rvg");
+		try (TodoJournal journal = new TodoJournal(directory, objectMapper)) {
+			journal.recover(0);
+			journal.sync(journal.append(entry));
+		}
+		Path segment = newestSegment();
+		Files.writeString(segment, "not json\n" + objectMapper.writeValueAsString(entry) + "\n", StandardCharsets.UTF_8,
+				StandardOpenOption.APPEND);
+
+		assertThrows(IOException.class, () -> new TodoJournal(directory, objectMapper).recover(0));
+	}
+
+	@Test
+	void refusesATornLineInAnOlderSegment() throws IOException {
+		try (TodoJournal journal = new TodoJournal(directory, objectMapper)) {
+			journal.recover(0);
+			journal.sync(journal.append(JournalEntry.delete(1001, "rvg")));
+			Files.writeString(newestSegment(), "{\"op\":\"DEL", StandardOpenOption.APPEND);
+			journal.rotate();
+			journal.sync(journal.append(JournalEntry.delete(1002, "rvg")));
+		}
+
+		assertThrows(IOException.class, () -> new TodoJournal(directory, objectMapper).recover(0));
+	}
+
+	@Test
+	void skipsAndDeletesCommittedSegments() throws IOException {
+		JournalEntry committed = JournalEntry.delete(1001, "rvg");
+		JournalEntry queued = JournalEntry.delete(1002, "rvg");
+		long committedBefore;
+		try (TodoJournal journal = new TodoJournal(directory, objectMapper)) {
+			journal.recover(0);
+			journal.sync(journal.append(committed));
+			committedBefore = journal.rotate();
+			journal.sync(journal.append(queued));
+		}
+
+		try (TodoJournal journal = new TodoJournal(directory, objectMapper)) {
+			assertEquals(List.of(queued), journal.recover(committedBefore));
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			assertEquals(2, files.count());
+		}
+	}
+
+	private Path newestSegment() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.sorted().reduce((first, second) -> second).orElseThrow();
+		}
+	}
+}
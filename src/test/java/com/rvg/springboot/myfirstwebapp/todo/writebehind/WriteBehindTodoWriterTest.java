@@ -0,0 +1,216 @@
+package com.rvg.springboot.myfirstwebapp.todo.writebehind;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rvg.springboot.myfirstwebapp.todo.Todo;
+import com.rvg.springboot.myfirstwebapp.todo.TodoRepository;
+import com.rvg.springboot.myfirstwebapp.todo.TodoUpdateService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Not transactional: the writer commits its flushes in its own transactions
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WriteBehindTodoWriterTest {
+
+	private static final String USER = "writer";
+
+	@Autowired
+	private TodoRepository todoRepository;
+
+	@Autowired
+	private JournalCheckpointRepository checkpointRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@TempDir
+	Path journal;
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@AfterEach
+	void deleteTodos() {
+		todoRepository.deleteAll(todoRepository.findByUsername(USER));
+	}
+
+	@Test
+	void coalescesChangesToTheSameTodoIntoOneWrite() throws IOException {
+		Todo saved = todoRepository.save(new Todo(0, USER, "Coalesce my changes", LocalDate.of(2026, 1, 1), false));
+		WriteBehindTodoWriter writer = writer(transactionManager);
+
+		assertEquals(TodoUpdateService.Result.UPDATED, writer.update(edit(saved, "First queued edit", saved.getVersion())));
+		// The queued edit will raise the version by one: an edit of the old version conflicts
+		assertEquals(TodoUpdateService.Result.CONFLICT, writer.update(edit(saved, "Stale queued edit", saved.getVersion())));
+		assertEquals(TodoUpdateService.Result.UPDATED,
+				writer.update(edit(saved, "Second queued edit", saved.getVersion() + 1)));
+		assertEquals(1, meterRegistry.get("todo.write-behind.pending").gauge().value());
+		assertEquals(1, meterRegistry.get("todo.write-behind.coalesced").counter().count());
+		assertEquals("Coalesce my changes", todoRepository.findById(saved.getId()).orElseThrow().getDescription());
+
+		writer.awaitWrite(saved.getId());
+
+		Todo written = todoRepository.findById(saved.getId()).orElseThrow();
+		assertEquals("Second queued edit", written.getDescription());
+		assertEquals(saved.getVersion() + 1, written.getVersion());
+		writer.shutdown();
+	}
+
+	@Test
+	void queuedDeleteIsFinal() throws IOException {
+		Todo saved = todoRepository.save(new Todo(0, USER, "Delete me for good", LocalDate.of(2026, 1, 1), false));
+		WriteBehindTodoWriter writer = writer(transactionManager);
+
+		writer.delete(saved.getId(), USER);
+		assertEquals(TodoUpdateService.Result.NOT_FOUND,
+				writer.update(edit(saved, "Edited after delete", saved.getVersion())));
+		writer.awaitWrites(USER);
+
+		assertTrue(todoRepository.findById(saved.getId()).isEmpty());
+		writer.shutdown();
+	}
+
+	@Test
+	void requeuesABatchWhoseFlushFailsAndWritesItLater() throws IOException {
+		FailingTransactionManager failing = new FailingTransactionManager(transactionManager);
+		WriteBehindTodoWriter writer = writer(failing);
+		writer.create(new Todo(0, USER, "Written after a failed flush", LocalDate.of(2026, 1, 1), false));
+
+		failing.failing = true;
+		writer.awaitWrites(USER);
+		assertEquals(0, todoRepository.findByUsername(USER).size());
+		assertEquals(1, meterRegistry.get("todo.write-behind.pending").gauge().value());
+
+		failing.failing = false;
+		writer.awaitWrites(USER);
+		assertEquals(List.of("Written after a failed flush"), descriptions());
+		assertEquals(0, meterRegistry.get("todo.write-behind.pending").gauge().value());
+		writer.shutdown();
+	}
+
+	@Test
+	void replaysTheJournalAfterACrash() throws IOException {
+		Todo saved = todoRepository.save(new Todo(0, USER, "Edited before the crash", LocalDate.of(2026, 1, 1), false));
+		WriteBehindTodoWriter crashed = writer(transactionManager);
+		crashed.create(new Todo(0, USER, "Created before the crash", LocalDate.of(2026, 2, 1), false));
+		crashed.update(edit(saved, "Changed before the crash", saved.getVersion()));
+		// The crashed writer is abandoned without a flush; only its journal is left
+
+		WriteBehindTodoWriter restarted = writer(transactionManager);
+		restarted.awaitWrites(USER);
+
+		assertEquals(List.of("Changed before the crash", "Created before the crash"), descriptions());
+		restarted.shutdown();
+	}
+
+	@Test
+	void doesNotReplayCommittedSegmentsTwice(@TempDir Path copy) throws IOException {
+		WriteBehindTodoWriter writer = writer(transactionManager);
+		writer.create(new Todo(0, USER, "Written exactly once", LocalDate.of(2026, 1, 1), false));
+		copySegments(journal, copy);
+		writer.shutdown();
+		assertEquals(List.of("Written exactly once"), descriptions());
+
+		// A crash after the commit but before the flushed segments were deleted leaves them behind
+		copySegments(copy, journal);
+		WriteBehindTodoWriter restarted = writer(transactionManager);
+		restarted.awaitWrites(USER);
+
+		assertEquals(List.of("Written exactly once"), descriptions());
+		restarted.shutdown();
+	}
+
+	@Test
+	void setsAsideChangesTheDatabaseRejects() throws IOException {
+		WriteBehindTodoWriter writer = writer(transactionManager);
+		writer.create(new Todo(0, USER, "Too short", LocalDate.of(2026, 1, 1), false));
+		writer.create(new Todo(0, USER, "Valid todo in the same batch", LocalDate.of(2026, 1, 1), false));
+
+		writer.awaitWrites(USER);
+
+		assertEquals(List.of("Valid todo in the same batch"), descriptions());
+		assertEquals(1, meterRegistry.get("todo.write-behind.dead-lettered").counter().count());
+		assertTrue(Files.readString(journal.resolve(TodoJournal.DEAD_LETTER_FILE)).contains("Too short"));
+		writer.shutdown();
+	}
+
+	private WriteBehindTodoWriter writer(PlatformTransactionManager transactionManager) throws IOException {
+		// Flushes only when a test waits for its writes
+		return new WriteBehindTodoWriter(todoRepository, checkpointRepository, transactionManager,
+				new ObjectMapper().findAndRegisterModules(), meterRegistry, 500, Duration.ofHours(1), 10_000,
+				journal.toString());
+	}
+
+	private static Todo edit(Todo todo, String description, int version) {
+		Todo edited = new Todo(todo.getId(), todo.getUsername(), description, todo.getTargetDate(), todo.isDone());
+		edited.setVersion(version);
+		return edited;
+	}
+
+	private List<String> descriptions() {
+		return todoRepository.findByUsername(USER).stream().map(Todo::getDescription).sorted().toList();
+	}
+
+	private static void copySegments(Path from, Path to) throws IOException {
+		try (Stream<Path> files = Files.list(from)) {
+			for (Path file : files.toList()) {
+				Files.copy(file, to.resolve(file.getFileName()));
+			}
+		}
+	}
+
+	/**
+	 * Fails to begin transactions while {@link #failing} is set, as an unavailable database would.
+	 */
+	private static class FailingTransactionManager implements PlatformTransactionManager {
+
+		private final PlatformTransactionManager delegate;
+
+		volatile boolean failing;
+
+		FailingTransactionManager(PlatformTransactionManager delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public TransactionStatus getTransaction(TransactionDefinition definition) {
+			if (failing) {
+				throw new CannotCreateTransactionException("The database is unavailable");
+			}
+			return delegate.getTransaction(definition);
+		}
+
+		@Override
+		public void commit(TransactionStatus status) {
+			delegate.commit(status);
+		}
+
+		@Override
+		public void rollback(TransactionStatus status) {
+			delegate.rollback(status);
+		}
+	}
+}